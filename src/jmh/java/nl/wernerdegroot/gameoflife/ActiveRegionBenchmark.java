@@ -0,0 +1,67 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares stepping a mostly settled board while keeping track of the tiles
+ * that changed, with recomputing every tile.
+ * <p>
+ * The board is filled with blocks (still lifes), with a couple of blinkers
+ * (oscillators) sprinkled in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ActiveRegionBenchmark {
+
+    @Param({"8192"})
+    public int size;
+
+    @Param({"16"})
+    public int numberOfBlinkers;
+
+    private BitPackedGrid tracked;
+    private BitPackedGrid untracked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var generation = new LongCellSet();
+        for (var rowIndex = 0; rowIndex + 1 < size; rowIndex += 8) {
+            for (var columnIndex = 0; columnIndex + 1 < size; columnIndex += 8) {
+                generation.add(Cell.pack(rowIndex, columnIndex));
+                generation.add(Cell.pack(rowIndex, columnIndex + 1));
+                generation.add(Cell.pack(rowIndex + 1, columnIndex));
+                generation.add(Cell.pack(rowIndex + 1, columnIndex + 1));
+            }
+        }
+        var random = new SplittableRandom(42);
+        for (var blinker = 0; blinker < numberOfBlinkers; blinker++) {
+            // In between the blocks:
+            var rowIndex = random.nextInt(size / 8) * 8 + 4;
+            var columnIndex = random.nextInt(size / 8) * 8 + 3;
+            generation.add(Cell.pack(rowIndex, columnIndex));
+            generation.add(Cell.pack(rowIndex, columnIndex + 1));
+            generation.add(Cell.pack(rowIndex, columnIndex + 2));
+        }
+
+        // One step to learn which tiles are changing:
+        tracked = BitPackedGrid.from(new RepeatingGrid(size, size, generation)).getNextIteration();
+        untracked = new BitPackedGrid(tracked.numberOfRows, tracked.numberOfColumns, tracked.words);
+    }
+
+    @Benchmark
+    public BitPackedGrid tracked() {
+        return tracked.getNextIteration();
+    }
+
+    @Benchmark
+    public BitPackedGrid untracked() {
+        return untracked.getNextIteration();
+    }
+}
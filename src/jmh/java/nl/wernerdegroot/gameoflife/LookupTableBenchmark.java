@@ -0,0 +1,58 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link LookupTableGrid} with the per-cell path of
+ * {@link RepeatingGrid} (looking up the neighbours of every cell), its
+ * tally of neighbours, and the bitboard of {@link BitPackedGrid}, on soups
+ * of different densities. Every grid is stepped from the same generation,
+ * so {@link BitPackedGrid} can't skip any tiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupTableBenchmark {
+
+    @Param({"512"})
+    public int size;
+
+    @Param({"0.05", "0.3", "0.5"})
+    public double density;
+
+    private RepeatingGrid repeatingGrid;
+    private BitPackedGrid bitPackedGrid;
+    private LookupTableGrid lookupTableGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repeatingGrid = Soups.random(size, size, density, 42);
+        bitPackedGrid = BitPackedGrid.from(repeatingGrid);
+        lookupTableGrid = LookupTableGrid.from(bitPackedGrid);
+    }
+
+    @Benchmark
+    public Grid perCell() {
+        return repeatingGrid.getNextIterationByLookingUpNeighbours();
+    }
+
+    @Benchmark
+    public Grid sparse() {
+        return repeatingGrid.getNextIteration();
+    }
+
+    @Benchmark
+    public Grid bitPacked() {
+        return bitPackedGrid.getNextIteration();
+    }
+
+    @Benchmark
+    public Grid lookupTable() {
+        return lookupTableGrid.getNextIteration();
+    }
+}
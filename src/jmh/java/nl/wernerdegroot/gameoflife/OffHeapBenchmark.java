@@ -0,0 +1,49 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares stepping a {@link BitPackedGrid} (a new {@code long[]} every
+ * generation) with stepping an {@link OffHeapGrid} (two buffers outside
+ * the heap that are swapped). Run with {@code -prof gc} to see the
+ * difference in allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    private BitPackedGrid bitPackedGrid;
+    private OffHeapGrid offHeapGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bitPackedGrid = BitPackedGrid.randomSoup(size, size, 0.5, 42);
+        offHeapGrid = OffHeapGrid.from(bitPackedGrid);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        offHeapGrid.close();
+    }
+
+    @Benchmark
+    public Grid bitPacked() {
+        return bitPackedGrid.getNextIteration();
+    }
+
+    @Benchmark
+    public OffHeapGrid offHeap() {
+        offHeapGrid.step();
+        return offHeapGrid;
+    }
+}
@@ -0,0 +1,71 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs well-known patterns for a number of generations. Unlike random
+ * soups, these have a small population that changes a lot over time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(PatternBenchmark.GENERATIONS)
+@State(Scope.Benchmark)
+public class PatternBenchmark {
+
+    static final int GENERATIONS = 100;
+
+    private static final int SIZE = 512;
+
+    @Param({"r-pentomino", "gosper-glider-gun", "acorn"})
+    public String pattern;
+
+    @Param({"sparse", "bit-packed"})
+    public String engine;
+
+    private Grid initial;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var repeatingGrid = switch (pattern) {
+            case "r-pentomino" -> Soups.pattern(SIZE, SIZE,
+                    ".OO",
+                    "OO.",
+                    ".O.");
+            case "gosper-glider-gun" -> Soups.pattern(SIZE, SIZE,
+                    "........................O...........",
+                    "......................O.O...........",
+                    "............OO......OO............OO",
+                    "...........O...O....OO............OO",
+                    "OO........O.....O...OO..............",
+                    "OO........O...O.OO....O.O...........",
+                    "..........O.....O.......O...........",
+                    "...........O...O....................",
+                    "............OO......................");
+            case "acorn" -> Soups.pattern(SIZE, SIZE,
+                    ".O.....",
+                    "...O...",
+                    "OO..OOO");
+            default -> throw new IllegalArgumentException("Unknown pattern " + pattern);
+        };
+
+        initial = switch (engine) {
+            case "sparse" -> repeatingGrid;
+            case "bit-packed" -> BitPackedGrid.from(repeatingGrid);
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+    }
+
+    @Benchmark
+    public Grid run() {
+        var grid = initial;
+        for (var generation = 0; generation < GENERATIONS; generation++) {
+            grid = grid.getNextIteration();
+        }
+        return grid;
+    }
+}
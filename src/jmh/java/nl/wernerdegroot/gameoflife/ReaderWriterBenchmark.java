@@ -0,0 +1,55 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing grids in the box-drawing format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ReaderWriterBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"0.1", "0.5"})
+    public double density;
+
+    private RepeatingGrid grid;
+    private String written;
+    private StreamingGridWriter streamingGridWriter;
+    private WritableByteChannel discard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = Soups.random(size, size, density, 42);
+        written = RepeatingGridWriter.write(grid);
+        streamingGridWriter = new StreamingGridWriter();
+        discard = Channels.newChannel(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public RepeatingGrid read() {
+        return RepeatingGridReader.read(written);
+    }
+
+    @Benchmark
+    public String write() {
+        return RepeatingGridWriter.write(grid);
+    }
+
+    @Benchmark
+    public void writeStreaming() throws IOException {
+        streamingGridWriter.write(grid, discard);
+    }
+}
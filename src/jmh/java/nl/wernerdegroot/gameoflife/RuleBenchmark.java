@@ -0,0 +1,48 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single call to {@link Grid#getNextIteration()} under different
+ * rules. Conway's rule should be just as fast as it was when it was
+ * hard-coded, and other rules shouldn't be much slower.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleBenchmark {
+
+    @Param({"1024"})
+    public int size;
+
+    @Param({"0.1", "0.5"})
+    public double density;
+
+    @Param({"B3/S23", "B36/S23", "B3678/S34678"})
+    public String rule;
+
+    @Param({"sparse", "bit-packed"})
+    public String engine;
+
+    private Grid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var repeatingGrid = Soups.random(size, size, density, 42).withRule(Rule.parse(rule));
+        grid = switch (engine) {
+            case "sparse" -> repeatingGrid;
+            case "bit-packed" -> BitPackedGrid.from(repeatingGrid);
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+    }
+
+    @Benchmark
+    public Grid getNextIteration() {
+        return grid.getNextIteration();
+    }
+}
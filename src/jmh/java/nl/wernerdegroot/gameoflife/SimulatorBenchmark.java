@@ -0,0 +1,63 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Grid#getNextIteration()} (a new grid every generation)
+ * with {@link Simulator#step()} (two buffers that are swapped), for both
+ * the sparse and the dense representation. Run with {@code -prof gc} to
+ * see the difference in allocation.
+ * <p>
+ * The soups are stepped 100 generations before measuring, so that the
+ * (sparse) buffers have grown to their steady state size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulatorBenchmark {
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"sparse", "dense"})
+    public String representation;
+
+    private Grid grid;
+    private Simulator simulator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var soup = Soups.random(size, size, 0.3, 42);
+        for (var generation = 0; generation < 100; generation++) {
+            soup = soup.getNextIteration();
+        }
+        switch (representation) {
+            case "sparse" -> {
+                grid = soup;
+                simulator = new SparseSimulator(soup);
+            }
+            case "dense" -> {
+                grid = BitPackedGrid.from(soup);
+                simulator = new DenseSimulator(soup);
+            }
+            default -> throw new IllegalArgumentException("Unknown representation " + representation);
+        }
+        simulator.step(100);
+    }
+
+    @Benchmark
+    public Grid getNextIteration() {
+        return grid.getNextIteration();
+    }
+
+    @Benchmark
+    public Simulator step() {
+        simulator.step();
+        return simulator;
+    }
+}
@@ -0,0 +1,48 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random starting positions for the benchmarks.
+ */
+final class Soups {
+
+    private Soups() {
+    }
+
+    /**
+     * A torus on which every cell is alive with the given probability.
+     */
+    static RepeatingGrid random(int numberOfRows, int numberOfColumns, double density, long seed) {
+        var random = new SplittableRandom(seed);
+        var expectedPopulation = (int) Math.min(Integer.MAX_VALUE - 8, (long) numberOfRows * numberOfColumns * density);
+        var generation = new LongCellSet(expectedPopulation);
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+                if (random.nextDouble() < density) {
+                    generation.add(Cell.pack(rowIndex, columnIndex));
+                }
+            }
+        }
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    }
+
+    /**
+     * Places a pattern, written as rows of '.' (dead) and 'O' (alive),
+     * in the centre of an otherwise empty torus.
+     */
+    static RepeatingGrid pattern(int numberOfRows, int numberOfColumns, String... rows) {
+        var top = numberOfRows / 2 - rows.length / 2;
+        var left = numberOfColumns / 2 - rows[0].length() / 2;
+        var generation = new LongCellSet();
+        for (var rowIndex = 0; rowIndex < rows.length; rowIndex++) {
+            var row = rows[rowIndex];
+            for (var columnIndex = 0; columnIndex < row.length(); columnIndex++) {
+                if (row.charAt(columnIndex) == 'O') {
+                    generation.add(Cell.pack(top + rowIndex, left + columnIndex));
+                }
+            }
+        }
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    }
+}
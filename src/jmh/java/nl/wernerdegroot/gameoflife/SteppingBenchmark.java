@@ -0,0 +1,50 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single call to {@link Grid#getNextIteration()} on random soups
+ * of varying sizes and densities, for every engine.
+ * <p>
+ * The largest boards need a lot of memory for the sparse engines, hence
+ * the generous heap. Restrict the parameters (for example with
+ * {@code -p size=64,1024}) for a quick run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+@State(Scope.Benchmark)
+public class SteppingBenchmark {
+
+    @Param({"64", "256", "1024", "4096", "16384"})
+    public int size;
+
+    @Param({"0.01", "0.1", "0.5"})
+    public double density;
+
+    @Param({"sparse", "sparse-lookup", "bit-packed"})
+    public String engine;
+
+    private RepeatingGrid repeatingGrid;
+    private BitPackedGrid bitPackedGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repeatingGrid = Soups.random(size, size, density, 42);
+        bitPackedGrid = BitPackedGrid.from(repeatingGrid);
+    }
+
+    @Benchmark
+    public Grid getNextIteration() {
+        return switch (engine) {
+            case "sparse" -> repeatingGrid.getNextIteration();
+            case "sparse-lookup" -> repeatingGrid.getNextIterationByLookingUpNeighbours();
+            case "bit-packed" -> bitPackedGrid.getNextIteration();
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vectorized {@link RowKernel} on dense random
+ * soups. Every grid is stepped from scratch, so all tiles are recomputed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class VectorBenchmark {
+
+    @Param({"256", "1024", "4096"})
+    public int size;
+
+    @Param({"scalar", "vectorized"})
+    public String kernel;
+
+    private BitPackedGrid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (kernel.equals("vectorized") && !RowKernel.isVectorApiAvailable()) {
+            throw new IllegalStateException("The Vector API is not available");
+        }
+        grid = BitPackedGrid.from(Soups.random(size, size, 0.5, 42)).withKernel(switch (kernel) {
+            case "scalar" -> RowKernel.scalar();
+            case "vectorized" -> RowKernel.vectorized();
+            default -> throw new IllegalArgumentException("Unknown kernel " + kernel);
+        });
+    }
+
+    @Benchmark
+    public Grid getNextIteration() {
+        return grid.getNextIteration();
+    }
+}
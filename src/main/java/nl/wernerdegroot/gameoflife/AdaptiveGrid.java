@@ -0,0 +1,167 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * A grid that switches between a {@link RepeatingGrid} and a
+ * {@link BitPackedGrid}, depending on how crowded the board is.
+ * <p>
+ * A {@link RepeatingGrid} does work for every live cell, a
+ * {@link BitPackedGrid} for every cell (live or dead, although it skips the
+ * tiles that don't change). Per cell, the latter is about a thousand times
+ * cheaper (see {@code LookupTableBenchmark}), so the sparse representation
+ * only wins when less than about one in a thousand cells is alive.
+ * <p>
+ * After every generation, the density (population / area) is compared
+ * with two thresholds. Above the {@code denseThreshold}, the next
+ * generation is converted to a {@link BitPackedGrid}. Below the
+ * {@code sparseThreshold}, it's converted back to a {@link RepeatingGrid}.
+ * In between, the representation stays the same. That way, a board whose
+ * density hovers around a single threshold doesn't get converted back and
+ * forth all the time.
+ * <p>
+ * Converting takes time (in the order of the area of the board), which is
+ * included in the time it takes to compute that generation. Which engine
+ * is used, and how long it took to switch, is recorded by
+ * {@link SimulationMetrics}.
+ */
+public class AdaptiveGrid implements Grid {
+
+    public static final double DEFAULT_DENSE_THRESHOLD = 1.0 / 512;
+    public static final double DEFAULT_SPARSE_THRESHOLD = 1.0 / 2048;
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final double sparseThreshold;
+    final double denseThreshold;
+
+    // Either a `RepeatingGrid` or a `BitPackedGrid`.
+    final Grid grid;
+
+    // How long it took to switch to the representation of this generation,
+    // or -1 if it has the same representation as the previous generation.
+    final long engineSwitchNanos;
+
+    private AdaptiveGrid(int numberOfRows, int numberOfColumns, double sparseThreshold, double denseThreshold, Grid grid, long engineSwitchNanos) {
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.sparseThreshold = sparseThreshold;
+        this.denseThreshold = denseThreshold;
+        this.grid = grid;
+        this.engineSwitchNanos = engineSwitchNanos;
+    }
+
+    public AdaptiveGrid(RepeatingGrid grid) {
+        this(grid, DEFAULT_SPARSE_THRESHOLD, DEFAULT_DENSE_THRESHOLD);
+    }
+
+    /**
+     * Starts with whichever representation suits the density of the grid,
+     * counting a grid right in between as sparse.
+     */
+    public AdaptiveGrid(RepeatingGrid grid, double sparseThreshold, double denseThreshold) {
+        this(
+                grid.numberOfRows,
+                grid.numberOfColumns,
+                sparseThreshold,
+                denseThreshold,
+                getDensity(grid.getPopulation(), grid.numberOfRows, grid.numberOfColumns) > denseThreshold ? BitPackedGrid.from(grid) : grid,
+                -1
+        );
+        if (sparseThreshold > denseThreshold) {
+            throw new IllegalArgumentException("The sparse threshold (" + sparseThreshold + ") can't be above the dense threshold (" + denseThreshold + ")");
+        }
+    }
+
+    /**
+     * Either {@link Engine#SPARSE} or {@link Engine#BIT_PACKED}.
+     */
+    public Engine getEngine() {
+        return grid instanceof BitPackedGrid ? Engine.BIT_PACKED : Engine.SPARSE;
+    }
+
+    /**
+     * Whether this generation has a different representation than the
+     * generation before it.
+     */
+    public boolean hasSwitchedEngine() {
+        return engineSwitchNanos >= 0;
+    }
+
+    /**
+     * How long it took to convert this generation to its representation,
+     * or {@code 0} if it didn't need to be converted.
+     */
+    public long getEngineSwitchNanos() {
+        return Math.max(engineSwitchNanos, 0);
+    }
+
+    public double getDensity() {
+        return getDensity(grid.getPopulation(), numberOfRows, numberOfColumns);
+    }
+
+    private static double getDensity(long population, int numberOfRows, int numberOfColumns) {
+        var area = (double) numberOfRows * numberOfColumns;
+        return area == 0 ? 0.0 : population / area;
+    }
+
+    public RepeatingGrid toRepeatingGrid() {
+        return grid instanceof BitPackedGrid bitPackedGrid ? bitPackedGrid.toRepeatingGrid() : (RepeatingGrid) grid;
+    }
+
+    @Override
+    public boolean isAlive(int rowIndex, int columnIndex) {
+        return grid.isAlive(rowIndex, columnIndex);
+    }
+
+    @Override
+    public void getRow(int rowIndex, int numberOfColumns, long[] bits) {
+        grid.getRow(rowIndex, numberOfColumns, bits);
+    }
+
+    @Override
+    public long getPopulation() {
+        return grid.getPopulation();
+    }
+
+    @Override
+    public long getNumberOfBirthsSince(Grid previous) {
+        return grid.getNumberOfBirthsSince(previous instanceof AdaptiveGrid that ? that.grid : previous);
+    }
+
+    @Override
+    public AdaptiveGrid getNextIteration() {
+        var next = grid.getNextIteration();
+        var density = getDensity(next.getPopulation(), numberOfRows, numberOfColumns);
+        var engineSwitchNanos = -1L;
+        if (next instanceof RepeatingGrid repeatingGrid && density > denseThreshold) {
+            var start = System.nanoTime();
+            next = BitPackedGrid.from(repeatingGrid);
+            engineSwitchNanos = System.nanoTime() - start;
+        } else if (next instanceof BitPackedGrid bitPackedGrid && density < sparseThreshold) {
+            var start = System.nanoTime();
+            next = bitPackedGrid.toRepeatingGrid();
+            engineSwitchNanos = System.nanoTime() - start;
+        }
+        return new AdaptiveGrid(numberOfRows, numberOfColumns, sparseThreshold, denseThreshold, next, engineSwitchNanos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AdaptiveGrid that = (AdaptiveGrid) o;
+        return toRepeatingGrid().equals(that.toRepeatingGrid());
+    }
+
+    @Override
+    public int hashCode() {
+        return toRepeatingGrid().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveGrid{" +
+               "numberOfRows=" + numberOfRows +
+               ", numberOfColumns=" + numberOfColumns +
+               ", engine=" + getEngine() +
+               '}';
+    }
+}
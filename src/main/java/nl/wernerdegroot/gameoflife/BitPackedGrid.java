@@ -0,0 +1,688 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A dense alternative to {@link RepeatingGrid}. The grid wraps around
+ * in exactly the same way, but instead of a set of live cells it keeps
+ * one bit per cell in a {@code long[]}.
+ * <p>
+ * Each row occupies {@link #wordsPerRow} consecutive words. Bit {@code j}
+ * of word {@code i} of a row is the cell in column {@code 64 * i + j}.
+ * Bits beyond the last column are always zero.
+ * <p>
+ * Because 64 cells fit in a single word, the next generation is computed
+ * for 64 cells at a time, by adding up the neighbours of every cell in a
+ * word "in parallel" with bitwise operations (bit-sliced counting).
+ * <p>
+ * On large grids, the rows can additionally be divided into bands that
+ * are computed on a {@link ForkJoinPool} (see {@link #withParallelism}).
+ * Every band only reads the current generation and only writes its own
+ * rows of the next generation, so the result is identical to stepping
+ * the rows one by one.
+ * <p>
+ * Most boards settle down into still lifes and oscillators after a while.
+ * To avoid recomputing those areas over and over again, the grid is divided
+ * into tiles of {@link #TILE_ROWS} rows by {@link #TILE_WORDS} words. Every
+ * grid remembers which tiles changed compared to the generation before it.
+ * A tile can only change in the next generation if it, or one of the tiles
+ * around it, changed in this generation. All other tiles are copied.
+ * <p>
+ * Any {@link Rule} is supported (see {@link #withRule(Rule)}), using the
+ * masks of a {@link BitSlicedRule}. Conway's rule has its own, slightly
+ * faster, implementation, which can also be vectorized (see
+ * {@link #withKernel(RowKernel)}).
+ */
+public class BitPackedGrid implements Grid {
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final int wordsPerRow;
+    final long[] words;
+
+    final Rule rule;
+
+    // How to compute a row under Conway's rule.
+    final RowKernel kernel;
+
+    // How to compute a row under any other rule (`null` for Conway's).
+    final BitSlicedRule bitSlicedRule;
+
+    // When `null`, the next generation is computed on the calling thread.
+    final ForkJoinPool pool;
+
+    // Which tiles changed compared to the previous generation. When `null`,
+    // we don't know (for example, because there is no previous generation),
+    // and every tile needs to be recomputed.
+    final boolean[] changedTiles;
+    final int numberOfTileRows;
+    final int numberOfTileColumns;
+
+    static final int TILE_ROWS = 64;
+    static final int TILE_WORDS = 8;
+
+    // Bands smaller than this are not worth splitting any further.
+    static final int MINIMUM_WORDS_PER_BAND = 1 << 12;
+
+    // The Zobrist hash of the live cells (see `getGenerationHash`). Only
+    // computed once somebody asks for it. From then on, every next
+    // generation derives its hash from the cells that flipped. The flag is
+    // volatile and written after the hash, so a thread that sees it set
+    // also sees the hash.
+    private long generationHash;
+    private volatile boolean hasGenerationHash;
+
+    public static final BitPackedGrid EMPTY = new BitPackedGrid(0, 0, new long[0]);
+
+    BitPackedGrid(int numberOfRows, int numberOfColumns, long[] words) {
+        this(numberOfRows, numberOfColumns, words, Rule.CONWAY, RowKernel.scalar(), null, null);
+    }
+
+    BitPackedGrid(int numberOfRows, int numberOfColumns, long[] words, Rule rule, RowKernel kernel, ForkJoinPool pool, boolean[] changedTiles) {
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.wordsPerRow = getWordsPerRow(numberOfColumns);
+        this.words = words;
+        this.rule = rule;
+        this.kernel = kernel;
+        this.bitSlicedRule = rule.equals(Rule.CONWAY) ? null : BitSlicedRule.of(rule);
+        this.pool = pool;
+        this.changedTiles = changedTiles;
+        this.numberOfTileRows = (numberOfRows + TILE_ROWS - 1) / TILE_ROWS;
+        this.numberOfTileColumns = (wordsPerRow + TILE_WORDS - 1) / TILE_WORDS;
+    }
+
+    public static BitPackedGrid from(RepeatingGrid grid) {
+        var wordsPerRow = getWordsPerRow(grid.numberOfColumns);
+        var words = new long[grid.numberOfRows * wordsPerRow];
+        grid.generation.forEach(packed -> {
+            var rowIndex = Math.floorMod(Cell.rowIndexOf(packed), grid.numberOfRows);
+            var columnIndex = Math.floorMod(Cell.columnIndexOf(packed), grid.numberOfColumns);
+            words[rowIndex * wordsPerRow + (columnIndex >>> 6)] |= 1L << columnIndex;
+        });
+        return new BitPackedGrid(grid.numberOfRows, grid.numberOfColumns, words, grid.rule, RowKernel.scalar(), null, null);
+    }
+
+    /**
+     * A random soup, in which every cell is alive with the given probability.
+     * The soup only depends on the seed (and the size and density).
+     */
+    public static BitPackedGrid randomSoup(int numberOfRows, int numberOfColumns, double density, long seed) {
+        var words = new long[numberOfRows * getWordsPerRow(numberOfColumns)];
+        randomSoup(0, numberOfRows, numberOfColumns, density, seed, words, 0);
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words);
+    }
+
+    /**
+     * Only the rows {@code fromRowIndex} (inclusive) to {@code toRowIndex}
+     * (exclusive) of {@link #randomSoup(int, int, double, long)}, written to
+     * {@code words} from {@code offset} on. The rows before them are skipped
+     * rather than generated, so every part of a huge soup can be generated
+     * separately (and in about the same time).
+     */
+    static void randomSoup(int fromRowIndex, int toRowIndex, int numberOfColumns, double density, long seed, long[] words, int offset) {
+        // Every cell takes one `nextDouble`, which is two steps of the
+        // generator:
+        var random = randomAfter(seed, 2L * fromRowIndex * numberOfColumns);
+        var wordsPerRow = getWordsPerRow(numberOfColumns);
+        for (var rowIndex = 0; rowIndex < toRowIndex - fromRowIndex; rowIndex++) {
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+                if (random.nextDouble() < density) {
+                    words[offset + rowIndex * wordsPerRow + (columnIndex >>> 6)] |= 1L << columnIndex;
+                }
+            }
+        }
+    }
+
+    /**
+     * The {@link Random} that {@code new Random(seed)} turns into after the
+     * given number of steps.
+     * <p>
+     * {@link Random} is specified to be a linear congruential generator:
+     * every step computes {@code state * MULTIPLIER + ADDEND} (modulo
+     * {@code 2^48}). Doing {@code n} steps at once is another step of that
+     * form, with a different multiplier and addend. These can be computed
+     * by repeated squaring, so skipping ahead takes {@code log(n)} rather
+     * than {@code n} multiplications.
+     */
+    private static Random randomAfter(long seed, long numberOfSteps) {
+        final long multiplier = 0x5DEECE66DL;
+        final long addend = 0xBL;
+        final long mask = (1L << 48) - 1;
+
+        // The same scrambling as `Random#setSeed`:
+        var state = (seed ^ multiplier) & mask;
+        var stepMultiplier = multiplier;
+        var stepAddend = addend;
+        for (var remaining = numberOfSteps; remaining > 0; remaining >>>= 1) {
+            if ((remaining & 1) != 0) {
+                state = (state * stepMultiplier + stepAddend) & mask;
+            }
+            // Two steps of `x * a + c` are one step of `x * a^2 + (a + 1) * c`:
+            stepAddend = ((stepMultiplier + 1) * stepAddend) & mask;
+            stepMultiplier = (stepMultiplier * stepMultiplier) & mask;
+        }
+        // Undo the scrambling that the constructor is about to do:
+        return new Random(state ^ multiplier);
+    }
+
+    /**
+     * Converts to a {@link RepeatingGrid} with the same live cells and rule.
+     * Fails for rules with B0, which {@link RepeatingGrid} doesn't support.
+     */
+    public RepeatingGrid toRepeatingGrid() {
+        var generation = new LongCellSet(Math.toIntExact(getPopulation()));
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+                var word = words[rowIndex * wordsPerRow + wordIndex];
+                while (word != 0) {
+                    var columnIndex = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    generation.add(Cell.pack(rowIndex, columnIndex));
+                    word &= word - 1;
+                }
+            }
+        }
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation, rule);
+    }
+
+    /**
+     * Returns the same grid, but one that computes every next generation
+     * (and the generations after that) on the provided pool. The level of
+     * parallelism is that of the pool.
+     */
+    public BitPackedGrid withParallelism(ForkJoinPool pool) {
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, kernel, pool, changedTiles);
+    }
+
+    /**
+     * Returns the same grid, but one that computes every next generation
+     * on the calling thread.
+     */
+    public BitPackedGrid sequential() {
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, kernel, null, changedTiles);
+    }
+
+    /**
+     * Returns the same grid, but one that computes every next generation
+     * (and the generations after that) with the provided rule.
+     */
+    public BitPackedGrid withRule(Rule rule) {
+        // Which tiles changed says nothing about the next generation under
+        // a different rule, so start from scratch:
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, kernel, pool, null);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the same grid, but one that computes every next generation
+     * (and the generations after that) with the provided kernel. Only
+     * used under Conway's rule.
+     */
+    public BitPackedGrid withKernel(RowKernel kernel) {
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, kernel, pool, changedTiles);
+    }
+
+    @Override
+    public boolean isAlive(int rowIndex, int columnIndex) {
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        var column = Math.floorMod(columnIndex, numberOfColumns);
+        return (words[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public void getRow(int rowIndex, int numberOfColumns, long[] bits) {
+        if (numberOfColumns != this.numberOfColumns) {
+            // Would need to wrap around (or cut off) part of the row:
+            Grid.super.getRow(rowIndex, numberOfColumns, bits);
+            return;
+        }
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        System.arraycopy(words, row * wordsPerRow, bits, 0, wordsPerRow);
+    }
+
+    @Override
+    public long getPopulation() {
+        var population = 0L;
+        for (var word : words) {
+            population += Long.bitCount(word);
+        }
+        return population;
+    }
+
+    @Override
+    public long getNumberOfBirthsSince(Grid previous) {
+        var numberOfBirths = 0L;
+        if (previous instanceof BitPackedGrid that && that.numberOfRows == numberOfRows && that.numberOfColumns == numberOfColumns) {
+            for (var index = 0; index < words.length; index++) {
+                numberOfBirths += Long.bitCount(words[index] & ~that.words[index]);
+            }
+            return numberOfBirths;
+        }
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+                var word = words[rowIndex * wordsPerRow + wordIndex];
+                while (word != 0) {
+                    var columnIndex = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    if (previous.isDead(rowIndex, columnIndex)) {
+                        numberOfBirths++;
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+        return numberOfBirths;
+    }
+
+    @Override
+    public BitPackedGrid getNextIteration() {
+        return getNextIteration(new long[words.length], new boolean[numberOfTileRows * numberOfTileColumns]);
+    }
+
+    /**
+     * Same as {@link #getNextIteration()}, but writes the next generation
+     * into the given arrays instead of allocating new ones (see
+     * {@link DenseSimulator}). Whatever was in them is overwritten, so they
+     * must not belong to a grid that is still in use.
+     */
+    BitPackedGrid getNextIteration(long[] nextWords, boolean[] nextChangedTiles) {
+        Arrays.fill(nextChangedTiles, false);
+        var hasGenerationHash = this.hasGenerationHash;
+        long generationHashDelta;
+        if (pool == null || words.length <= MINIMUM_WORDS_PER_BAND) {
+            generationHashDelta = stepTileRows(0, numberOfTileRows, nextWords, nextChangedTiles, hasGenerationHash);
+        } else {
+            generationHashDelta = pool.invoke(new StepBand(0, numberOfTileRows, nextWords, nextChangedTiles, hasGenerationHash));
+        }
+        var next = new BitPackedGrid(numberOfRows, numberOfColumns, nextWords, rule, kernel, pool, nextChangedTiles);
+        if (hasGenerationHash) {
+            next.generationHash = generationHash ^ generationHashDelta;
+            next.hasGenerationHash = true;
+        }
+        return next;
+    }
+
+    /**
+     * The number of tiles that will be recomputed by the next call to
+     * {@link #getNextIteration()}.
+     */
+    int getNumberOfActiveTiles() {
+        var numberOfActiveTiles = 0;
+        for (var tileRowIndex = 0; tileRowIndex < numberOfTileRows; tileRowIndex++) {
+            for (var tileColumnIndex = 0; tileColumnIndex < numberOfTileColumns; tileColumnIndex++) {
+                if (isActive(tileRowIndex, tileColumnIndex)) {
+                    numberOfActiveTiles++;
+                }
+            }
+        }
+        return numberOfActiveTiles;
+    }
+
+    /**
+     * Computes the next generation of the tiles in the rows of tiles from
+     * {@code fromTileRowIndex} (inclusive) to {@code toTileRowIndex}
+     * (exclusive).
+     * <p>
+     * Neighbouring tiles that need to be recomputed are computed together,
+     * one row at a time. That way, the kernel gets to work on as many words
+     * as possible at once (which matters for the vectorized kernel), rather
+     * than on the words of a single tile.
+     * <p>
+     * When asked to, returns the exclusive or of the Zobrist keys of the
+     * cells that flipped (and otherwise {@code 0}).
+     */
+    long stepTileRows(int fromTileRowIndex, int toTileRowIndex, long[] nextWords, boolean[] nextChangedTiles, boolean hasGenerationHash) {
+        var generationHashDelta = 0L;
+        var isActive = new boolean[numberOfTileColumns];
+        for (var tileRowIndex = fromTileRowIndex; tileRowIndex < toTileRowIndex; tileRowIndex++) {
+            for (var tileColumnIndex = 0; tileColumnIndex < numberOfTileColumns; tileColumnIndex++) {
+                isActive[tileColumnIndex] = isActive(tileRowIndex, tileColumnIndex);
+            }
+
+            var fromRowIndex = tileRowIndex * TILE_ROWS;
+            var toRowIndex = Math.min(fromRowIndex + TILE_ROWS, numberOfRows);
+            for (var rowIndex = fromRowIndex; rowIndex < toRowIndex; rowIndex++) {
+                var fromTileColumnIndex = 0;
+                while (fromTileColumnIndex < numberOfTileColumns) {
+                    // A run of tiles that are either all active or all inactive:
+                    var toTileColumnIndex = fromTileColumnIndex + 1;
+                    while (toTileColumnIndex < numberOfTileColumns && isActive[toTileColumnIndex] == isActive[fromTileColumnIndex]) {
+                        toTileColumnIndex++;
+                    }
+
+                    var fromWordIndex = fromTileColumnIndex * TILE_WORDS;
+                    var toWordIndex = Math.min(toTileColumnIndex * TILE_WORDS, wordsPerRow);
+                    if (isActive[fromTileColumnIndex]) {
+                        stepRow(rowIndex, fromWordIndex, toWordIndex, nextWords);
+                        markChangedTiles(rowIndex, tileRowIndex, fromTileColumnIndex, toTileColumnIndex, nextWords, nextChangedTiles);
+                        if (hasGenerationHash) {
+                            generationHashDelta ^= getGenerationHashDelta(rowIndex, fromWordIndex, toWordIndex, nextWords);
+                        }
+                    } else {
+                        var offset = rowIndex * wordsPerRow + fromWordIndex;
+                        System.arraycopy(words, offset, nextWords, offset, toWordIndex - fromWordIndex);
+                    }
+
+                    fromTileColumnIndex = toTileColumnIndex;
+                }
+            }
+        }
+        return generationHashDelta;
+    }
+
+    /**
+     * The exclusive or of the Zobrist keys of the cells in (part of) a row
+     * that are different in {@code nextWords}.
+     */
+    private long getGenerationHashDelta(int rowIndex, int fromWordIndex, int toWordIndex, long[] nextWords) {
+        var offset = rowIndex * wordsPerRow;
+        var generationHashDelta = 0L;
+        for (var wordIndex = fromWordIndex; wordIndex < toWordIndex; wordIndex++) {
+            var flipped = words[offset + wordIndex] ^ nextWords[offset + wordIndex];
+            while (flipped != 0) {
+                var columnIndex = (wordIndex << 6) + Long.numberOfTrailingZeros(flipped);
+                generationHashDelta ^= LongCellSet.zobristKeyOf(Cell.pack(rowIndex, columnIndex));
+                flipped &= flipped - 1;
+            }
+        }
+        return generationHashDelta;
+    }
+
+    /**
+     * Marks the tiles in which any of the cells of a row changed.
+     */
+    private void markChangedTiles(int rowIndex, int tileRowIndex, int fromTileColumnIndex, int toTileColumnIndex, long[] nextWords, boolean[] nextChangedTiles) {
+        var rowOffset = rowIndex * wordsPerRow;
+        for (var tileColumnIndex = fromTileColumnIndex; tileColumnIndex < toTileColumnIndex; tileColumnIndex++) {
+            var tileIndex = tileRowIndex * numberOfTileColumns + tileColumnIndex;
+            if (nextChangedTiles[tileIndex]) {
+                continue;
+            }
+            var fromWordIndex = tileColumnIndex * TILE_WORDS;
+            var toWordIndex = Math.min(fromWordIndex + TILE_WORDS, wordsPerRow);
+            var changed = 0L;
+            for (var wordIndex = fromWordIndex; wordIndex < toWordIndex; wordIndex++) {
+                changed |= words[rowOffset + wordIndex] ^ nextWords[rowOffset + wordIndex];
+            }
+            nextChangedTiles[tileIndex] = changed != 0;
+        }
+    }
+
+    /**
+     * A tile needs to be recomputed when it, or any of the (wrapped) tiles
+     * around it, changed in the last generation.
+     */
+    private boolean isActive(int tileRowIndex, int tileColumnIndex) {
+        if (changedTiles == null) {
+            return true;
+        }
+        for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+            var neighbourTileRowIndex = Math.floorMod(tileRowIndex + rowOffset, numberOfTileRows);
+            for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                var neighbourTileColumnIndex = Math.floorMod(tileColumnIndex + columnOffset, numberOfTileColumns);
+                if (changedTiles[neighbourTileRowIndex * numberOfTileColumns + neighbourTileColumnIndex]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A band of rows of tiles that is split in two until it is small enough
+     * to be computed in one go. The rows just outside the band (wrapping
+     * around at the top and the bottom of the grid) are only ever read,
+     * never written, so bands don't need to coordinate with each other.
+     * The changes to the hash of both halves are combined at the end.
+     */
+    private class StepBand extends RecursiveTask<Long> {
+
+        private final int fromTileRowIndex;
+        private final int toTileRowIndex;
+        private final long[] nextWords;
+        private final boolean[] nextChangedTiles;
+        private final boolean hasGenerationHash;
+
+        StepBand(int fromTileRowIndex, int toTileRowIndex, long[] nextWords, boolean[] nextChangedTiles, boolean hasGenerationHash) {
+            this.fromTileRowIndex = fromTileRowIndex;
+            this.toTileRowIndex = toTileRowIndex;
+            this.nextWords = nextWords;
+            this.nextChangedTiles = nextChangedTiles;
+            this.hasGenerationHash = hasGenerationHash;
+        }
+
+        @Override
+        protected Long compute() {
+            var numberOfTileRowsInBand = toTileRowIndex - fromTileRowIndex;
+            if (numberOfTileRowsInBand < 2 || (long) numberOfTileRowsInBand * TILE_ROWS * wordsPerRow <= MINIMUM_WORDS_PER_BAND) {
+                return stepTileRows(fromTileRowIndex, toTileRowIndex, nextWords, nextChangedTiles, hasGenerationHash);
+            }
+            var middleTileRowIndex = fromTileRowIndex + numberOfTileRowsInBand / 2;
+            var top = new StepBand(fromTileRowIndex, middleTileRowIndex, nextWords, nextChangedTiles, hasGenerationHash);
+            var bottom = new StepBand(middleTileRowIndex, toTileRowIndex, nextWords, nextChangedTiles, hasGenerationHash);
+            invokeAll(top, bottom);
+            return top.join() ^ bottom.join();
+        }
+    }
+
+    /**
+     * Computes the next generation of (part of) a single row and stores it
+     * in the corresponding words of {@code nextWords}.
+     */
+    void stepRow(int rowIndex, int fromWordIndex, int toWordIndex, long[] nextWords) {
+        var rowAbove = rowIndex == 0 ? numberOfRows - 1 : rowIndex - 1;
+        var rowBelow = rowIndex == numberOfRows - 1 ? 0 : rowIndex + 1;
+        if (bitSlicedRule == null) {
+            kernel.stepRow(
+                    words, rowAbove * wordsPerRow,
+                    words, rowIndex * wordsPerRow,
+                    words, rowBelow * wordsPerRow,
+                    nextWords, rowIndex * wordsPerRow,
+                    numberOfColumns,
+                    fromWordIndex,
+                    toWordIndex
+            );
+            return;
+        }
+        stepRow(
+                words, rowAbove * wordsPerRow,
+                words, rowIndex * wordsPerRow,
+                words, rowBelow * wordsPerRow,
+                nextWords, rowIndex * wordsPerRow,
+                numberOfColumns,
+                fromWordIndex,
+                toWordIndex,
+                bitSlicedRule
+        );
+    }
+
+    /**
+     * The heart of this class. Takes the three rows surrounding (and
+     * including) the row we're interested in, and writes the next
+     * generation of the words from {@code fromWordIndex} (inclusive) to
+     * {@code toWordIndex} (exclusive) of that row.
+     * <p>
+     * The rows don't need to live in the same array. That is what makes
+     * it possible to reuse this method for storage that is not a single
+     * {@code long[]}.
+     */
+    static void stepRow(
+            long[] above, int aboveOffset,
+            long[] row, int rowOffset,
+            long[] below, int belowOffset,
+            long[] next, int nextOffset,
+            int numberOfColumns,
+            int fromWordIndex,
+            int toWordIndex
+    ) {
+        stepRow(above, aboveOffset, row, rowOffset, below, belowOffset, next, nextOffset, numberOfColumns, fromWordIndex, toWordIndex, Rule.CONWAY);
+    }
+
+    static void stepRow(
+            long[] above, int aboveOffset,
+            long[] row, int rowOffset,
+            long[] below, int belowOffset,
+            long[] next, int nextOffset,
+            int numberOfColumns,
+            int fromWordIndex,
+            int toWordIndex,
+            Rule rule
+    ) {
+        stepRow(above, aboveOffset, row, rowOffset, below, belowOffset, next, nextOffset, numberOfColumns, fromWordIndex, toWordIndex, rule.equals(Rule.CONWAY) ? null : BitSlicedRule.of(rule));
+    }
+
+    /**
+     * Applies Conway's rule when {@code bitSlicedRule} is {@code null}.
+     */
+    private static void stepRow(
+            long[] above, int aboveOffset,
+            long[] row, int rowOffset,
+            long[] below, int belowOffset,
+            long[] next, int nextOffset,
+            int numberOfColumns,
+            int fromWordIndex,
+            int toWordIndex,
+            BitSlicedRule bitSlicedRule
+    ) {
+        var wordsPerRow = getWordsPerRow(numberOfColumns);
+        var lastBit = (numberOfColumns - 1) & 63;
+        for (var wordIndex = fromWordIndex; wordIndex < toWordIndex; wordIndex++) {
+            var nw = west(above, aboveOffset, wordIndex, wordsPerRow, lastBit);
+            var n = above[aboveOffset + wordIndex];
+            var ne = east(above, aboveOffset, wordIndex, wordsPerRow, lastBit);
+            var w = west(row, rowOffset, wordIndex, wordsPerRow, lastBit);
+            var alive = row[rowOffset + wordIndex];
+            var e = east(row, rowOffset, wordIndex, wordsPerRow, lastBit);
+            var sw = west(below, belowOffset, wordIndex, wordsPerRow, lastBit);
+            var s = below[belowOffset + wordIndex];
+            var se = east(below, belowOffset, wordIndex, wordsPerRow, lastBit);
+
+            var nextWord = bitSlicedRule == null
+                    ? applyConwaysRule(nw, n, ne, w, alive, e, sw, s, se)
+                    : bitSlicedRule.apply(nw, n, ne, w, alive, e, sw, s, se);
+
+            next[nextOffset + wordIndex] = wordIndex == wordsPerRow - 1
+                    ? nextWord & getLastWordMask(lastBit)
+                    : nextWord;
+        }
+    }
+
+    /**
+     * Given the eight neighbours of 64 cells (as eight words) and whether
+     * these cells are alive, determines which of these 64 cells are alive
+     * in the next generation.
+     * <p>
+     * The number of live neighbours is computed with a couple of adders,
+     * with each bit position acting as a separate counter. For every row
+     * of three (above, below) we compute a two bit sum, for the row in the
+     * middle (which excludes the cell itself) we do the same. Adding these
+     * up gives us a "ones" bit and up to four "twos" bits.
+     */
+    static long applyConwaysRule(long nw, long n, long ne, long w, long alive, long e, long sw, long s, long se) {
+        var onesAbove = nw ^ n ^ ne;
+        var twosAbove = (nw & n) | (nw & ne) | (n & ne);
+        var onesMiddle = w ^ e;
+        var twosMiddle = w & e;
+        var onesBelow = sw ^ s ^ se;
+        var twosBelow = (sw & s) | (sw & se) | (s & se);
+
+        var ones = onesAbove ^ onesMiddle ^ onesBelow;
+        var carry = (onesAbove & onesMiddle) | (onesAbove & onesBelow) | (onesMiddle & onesBelow);
+
+        // Exactly one of the four "twos" is set when the number of live
+        // neighbours is either 2 or 3. That is all we need for Conway's rule.
+        var oddNumberOfTwos = twosAbove ^ twosMiddle ^ twosBelow ^ carry;
+        var atLeastTwoTwos = (twosAbove & twosMiddle) | (twosAbove & twosBelow) | (twosAbove & carry)
+                             | (twosMiddle & twosBelow) | (twosMiddle & carry) | (twosBelow & carry);
+        var twoOrThree = oddNumberOfTwos & ~atLeastTwoTwos;
+
+        // Survive with two or three neighbours, or be born with exactly three:
+        return twoOrThree & (ones | alive);
+    }
+
+    /**
+     * Returns a word in which every bit contains the cell directly to the
+     * west of the corresponding cell in the given word. Wraps around at
+     * the left edge.
+     */
+    private static long west(long[] words, int offset, int wordIndex, int wordsPerRow, int lastBit) {
+        var carry = wordIndex == 0
+                ? (words[offset + wordsPerRow - 1] >>> lastBit) & 1L
+                : words[offset + wordIndex - 1] >>> 63;
+        return (words[offset + wordIndex] << 1) | carry;
+    }
+
+    /**
+     * Returns a word in which every bit contains the cell directly to the
+     * east of the corresponding cell in the given word. Wraps around at
+     * the right edge.
+     */
+    private static long east(long[] words, int offset, int wordIndex, int wordsPerRow, int lastBit) {
+        var carry = wordIndex == wordsPerRow - 1
+                ? (words[offset] & 1L) << lastBit
+                : words[offset + wordIndex + 1] << 63;
+        return (words[offset + wordIndex] >>> 1) | carry;
+    }
+
+    static int getWordsPerRow(int numberOfColumns) {
+        return (numberOfColumns + 63) >>> 6;
+    }
+
+    static long getLastWordMask(int lastBit) {
+        return lastBit == 63 ? -1L : (1L << (lastBit + 1)) - 1;
+    }
+
+    /**
+     * Same as {@link RepeatingGrid#getGenerationHash()} (and equal to it for
+     * the same live cells). The first call visits every live cell. After
+     * that, the next generations keep track of their hash while stepping,
+     * at the cost of a key per flipped cell.
+     */
+    public long getGenerationHash() {
+        if (!hasGenerationHash) {
+            generationHash = computeGenerationHash();
+            hasGenerationHash = true;
+        }
+        return generationHash;
+    }
+
+    private long computeGenerationHash() {
+        var hash = 0L;
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+                var word = words[rowIndex * wordsPerRow + wordIndex];
+                while (word != 0) {
+                    var columnIndex = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    hash ^= LongCellSet.zobristKeyOf(Cell.pack(rowIndex, columnIndex));
+                    word &= word - 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BitPackedGrid that = (BitPackedGrid) o;
+        return numberOfRows == that.numberOfRows && numberOfColumns == that.numberOfColumns && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * numberOfRows + numberOfColumns) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "BitPackedGrid{" +
+               "numberOfRows=" + numberOfRows +
+               ", numberOfColumns=" + numberOfColumns +
+               '}';
+    }
+}
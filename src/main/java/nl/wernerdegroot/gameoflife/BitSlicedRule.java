@@ -0,0 +1,109 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies a {@link Rule} to 64 cells at a time, like
+ * {@link BitPackedGrid#applyConwaysRule} does for Conway's rule.
+ * <p>
+ * The number of live neighbours of every cell is added up in four words:
+ * the "ones", "twos", "fours" and "eights" bits of that number. Every
+ * number of neighbours that leads to a live cell under the rule is then
+ * matched against those bits. Which numbers those are (and whether they
+ * lead to a birth, survival or both) is worked out once per rule, so
+ * applying the rule only visits the numbers that matter, without a
+ * single branch on the rule.
+ * <p>
+ * Computed once per rule (and then shared), see {@link #of(Rule)}.
+ */
+final class BitSlicedRule {
+
+    private static final Map<Rule, BitSlicedRule> RULES = new ConcurrentHashMap<>();
+
+    // For every number of live neighbours from 0 to 7 that leads to a live
+    // cell: `-1` where the corresponding bit of that number is _not_ set,
+    // so that xor-ing it with the "ones", "twos" or "fours" gives `-1`
+    // exactly for the cells with that number of neighbours. Eight live
+    // neighbours looks the same as none in those three bits, so that one
+    // is handled separately.
+    private final long[] notOnes;
+    private final long[] notTwos;
+    private final long[] notFours;
+
+    // Which cells live on: `births ^ (alive & toggles)` is `births` for
+    // the dead cells and `survivals` for the live ones.
+    private final long[] births;
+    private final long[] toggles;
+
+    private final long birthsWithEight;
+    private final long togglesWithEight;
+
+    private BitSlicedRule(Rule rule) {
+        var numberOfCounts = 0;
+        for (var count = 0; count < 8; count++) {
+            if (rule.isBorn(count) || rule.survives(count)) {
+                numberOfCounts++;
+            }
+        }
+        this.notOnes = new long[numberOfCounts];
+        this.notTwos = new long[numberOfCounts];
+        this.notFours = new long[numberOfCounts];
+        this.births = new long[numberOfCounts];
+        this.toggles = new long[numberOfCounts];
+
+        var index = 0;
+        for (var count = 0; count < 8; count++) {
+            if (rule.isBorn(count) || rule.survives(count)) {
+                notOnes[index] = (count & 1) != 0 ? 0L : -1L;
+                notTwos[index] = (count & 2) != 0 ? 0L : -1L;
+                notFours[index] = (count & 4) != 0 ? 0L : -1L;
+                births[index] = rule.isBorn(count) ? -1L : 0L;
+                toggles[index] = rule.isBorn(count) != rule.survives(count) ? -1L : 0L;
+                index++;
+            }
+        }
+        this.birthsWithEight = rule.isBorn(8) ? -1L : 0L;
+        this.togglesWithEight = rule.isBorn(8) != rule.survives(8) ? -1L : 0L;
+    }
+
+    static BitSlicedRule of(Rule rule) {
+        return RULES.computeIfAbsent(rule, BitSlicedRule::new);
+    }
+
+    /**
+     * Given the eight neighbours of 64 cells (as eight words) and whether
+     * these cells are alive, determines which of these 64 cells are alive
+     * in the next generation.
+     */
+    long apply(long nw, long n, long ne, long w, long alive, long e, long sw, long s, long se) {
+        // Same adders as for Conway's rule: a "ones" bit and four "twos"
+        // bits (which are added up below).
+        var onesAbove = nw ^ n ^ ne;
+        var twosAbove = (nw & n) | (nw & ne) | (n & ne);
+        var onesMiddle = w ^ e;
+        var twosMiddle = w & e;
+        var onesBelow = sw ^ s ^ se;
+        var twosBelow = (sw & s) | (sw & se) | (s & se);
+
+        var ones = onesAbove ^ onesMiddle ^ onesBelow;
+        var carry = (onesAbove & onesMiddle) | (onesAbove & onesBelow) | (onesMiddle & onesBelow);
+
+        // Add the four "twos" in pairs. When both pairs add up to two, all
+        // four are set and the number of neighbours is eight:
+        var sumAbove = twosAbove ^ twosMiddle;
+        var carryAbove = twosAbove & twosMiddle;
+        var sumBelow = twosBelow ^ carry;
+        var carryBelow = twosBelow & carry;
+        var twos = sumAbove ^ sumBelow;
+        var fours = (sumAbove & sumBelow) | (carryAbove ^ carryBelow);
+        var eights = carryAbove & carryBelow;
+
+        var result = 0L;
+        for (var index = 0; index < births.length; index++) {
+            var matches = (ones ^ notOnes[index]) & (twos ^ notTwos[index]) & (fours ^ notFours[index]);
+            result |= matches & (births[index] ^ (alive & toggles[index]));
+        }
+        return (result & ~eights) | (eights & (birthsWithEight ^ (alive & togglesWithEight)));
+    }
+}
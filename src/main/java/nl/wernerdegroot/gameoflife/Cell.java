@@ -6,9 +6,33 @@ import java.util.stream.Stream;
  * Coordinates on a grid.
  *
  * The grid's origin is in the top-left corner.
+ *
+ * Where allocating a {@code Cell} for every lookup is too expensive,
+ * the coordinates can be packed into a single {@code long} instead
+ * (see {@link #pack(int, int)}).
  */
 public record Cell(int rowIndex, int columnIndex) {
 
+    public static long pack(int rowIndex, int columnIndex) {
+        return ((long) rowIndex << 32) | (columnIndex & 0xFFFFFFFFL);
+    }
+
+    public static int rowIndexOf(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int columnIndexOf(long packed) {
+        return (int) packed;
+    }
+
+    public static Cell unpack(long packed) {
+        return new Cell(rowIndexOf(packed), columnIndexOf(packed));
+    }
+
+    public long pack() {
+        return pack(rowIndex, columnIndex);
+    }
+
     public Cell north() {
         return new Cell(rowIndex - 1, columnIndex);
     }
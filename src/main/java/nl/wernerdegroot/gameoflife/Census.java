@@ -0,0 +1,208 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Runs many random soups, each until it stabilises (becomes a still life
+ * or an oscillator, see {@link CycleDetector}) or until a maximum number of
+ * generations, and writes one line of CSV per soup:
+ * <pre>
+ * seed,population,generations_to_stabilise,period
+ * </pre>
+ * The soups are independent, so they're simulated in parallel on a fixed
+ * pool of threads (one per core by default). Each soup is stepped on a
+ * single thread with a sequential {@link BitPackedGrid}. Results are
+ * written as soon as they're done (in that order, rather than by seed)
+ * through a buffered writer on the calling thread, so the threads that
+ * simulate never wait for the output. For soups that didn't stabilise,
+ * the last two columns are empty.
+ * <p>
+ * Every soup is completely determined by its seed (and the size and
+ * density), so any line of the output can be reproduced on its own.
+ */
+public class Census {
+
+    public static final String HEADER = "seed,population,generations_to_stabilise,period";
+
+    // Enough to keep every thread busy while the results are being written:
+    static final int SOUPS_IN_FLIGHT_PER_THREAD = 4;
+
+    public record Result(long seed, long population, long generationsToStabilise, long period) {
+
+        public boolean hasStabilised() {
+            return generationsToStabilise >= 0;
+        }
+
+        String toCsv() {
+            return hasStabilised()
+                    ? seed + "," + population + "," + generationsToStabilise + "," + period
+                    : seed + "," + population + ",,";
+        }
+    }
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final double density;
+    final long maximumNumberOfGenerations;
+    final int numberOfThreads;
+
+    public Census(int numberOfRows, int numberOfColumns, double density, long maximumNumberOfGenerations, int numberOfThreads) {
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.density = density;
+        this.maximumNumberOfGenerations = maximumNumberOfGenerations;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    static final String USAGE = """
+            Usage: Census [options]
+
+              --rows <n>            Number of rows (default: 64)
+              --columns <n>         Number of columns (default: 64)
+              --density <d>         Chance that a cell of a soup is alive (default: 0.5)
+              --generations <n>     Maximum number of generations per soup (default: 10000)
+              --first-seed <n>      Seed of the first soup (default: 0)
+              --soups <n>           Number of soups, with consecutive seeds (default: 1000)
+              --threads <n>         Number of threads (default: one per core)
+              --output <file>       Write the CSV to a file instead of standard out
+            """;
+
+    /**
+     * The command line arguments of {@link #main(String[])}.
+     */
+    static final class Arguments {
+        int numberOfRows = 64;
+        int numberOfColumns = 64;
+        double density = 0.5;
+        long maximumNumberOfGenerations = 10_000L;
+        long firstSeed = 0L;
+        long numberOfSoups = 1_000L;
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        Path output;
+
+        /**
+         * Throws an {@link IllegalArgumentException} (with a message that is
+         * fit for the user) when the arguments don't make sense.
+         */
+        static Arguments parse(String... args) {
+            var arguments = new Arguments();
+            for (var index = 0; index < args.length; index++) {
+                var argument = args[index];
+                try {
+                    switch (argument) {
+                        case "--rows" -> arguments.numberOfRows = Options.positive(argument, Integer.parseInt(Options.valueOf(args, ++index, argument)));
+                        case "--columns" -> arguments.numberOfColumns = Options.positive(argument, Integer.parseInt(Options.valueOf(args, ++index, argument)));
+                        case "--density" -> arguments.density = Options.density(Double.parseDouble(Options.valueOf(args, ++index, argument)));
+                        case "--generations" -> arguments.maximumNumberOfGenerations = Options.nonNegative(argument, Long.parseLong(Options.valueOf(args, ++index, argument)));
+                        case "--first-seed" -> arguments.firstSeed = Long.parseLong(Options.valueOf(args, ++index, argument));
+                        case "--soups" -> arguments.numberOfSoups = Options.nonNegative(argument, Long.parseLong(Options.valueOf(args, ++index, argument)));
+                        case "--threads" -> arguments.numberOfThreads = Options.positive(argument, Integer.parseInt(Options.valueOf(args, ++index, argument)));
+                        case "--output" -> arguments.output = Path.of(Options.valueOf(args, ++index, argument));
+                        default -> throw new IllegalArgumentException("Unknown option: " + argument);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a number: " + args[index] + " (for " + argument + ")");
+                }
+            }
+            return arguments;
+        }
+    }
+
+    /**
+     * Writes to standard out, unless an output file is provided (see
+     * {@link #USAGE}).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        var census = new Census(arguments.numberOfRows, arguments.numberOfColumns, arguments.density, arguments.maximumNumberOfGenerations, arguments.numberOfThreads);
+        try (var writer = arguments.output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, UTF_8), 1 << 16)
+                : Files.newBufferedWriter(arguments.output, UTF_8)) {
+            census.run(arguments.firstSeed, arguments.numberOfSoups, writer);
+        }
+    }
+
+    /**
+     * Runs the soups with seeds {@code firstSeed} up to (but not including)
+     * {@code firstSeed + numberOfSoups}, and writes the results (including
+     * a header) as CSV. Doesn't close the writer, but does flush it.
+     */
+    public void run(long firstSeed, long numberOfSoups, Writer writer) throws IOException, InterruptedException {
+        writer.write(HEADER);
+        writer.write('\n');
+
+        try (var executor = Executors.newFixedThreadPool(numberOfThreads)) {
+            var completionService = new ExecutorCompletionService<Result>(executor);
+
+            // Only keep a few soups per thread in flight, and submit the next
+            // one whenever a result is written, so memory doesn't grow with
+            // the number of soups:
+            var endSeed = firstSeed + numberOfSoups;
+            var nextSeed = firstSeed;
+            for (var count = 0L; count < (long) numberOfThreads * SOUPS_IN_FLIGHT_PER_THREAD && nextSeed < endSeed; count++) {
+                submit(completionService, nextSeed++);
+            }
+
+            for (var count = 0L; count < numberOfSoups; count++) {
+                try {
+                    writer.write(completionService.take().get().toCsv());
+                    writer.write('\n');
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw new IllegalStateException("Failed to simulate a soup", e.getCause());
+                }
+                if (nextSeed < endSeed) {
+                    submit(completionService, nextSeed++);
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void submit(ExecutorCompletionService<Result> completionService, long seed) {
+        completionService.submit(() -> run(seed));
+    }
+
+    /**
+     * Simulates a single soup.
+     */
+    public Result run(long seed) {
+        var grid = randomSoup(seed);
+        var cycleDetector = new CycleDetector();
+        for (var generation = 0L; generation <= maximumNumberOfGenerations; generation++) {
+            var cycle = cycleDetector.observe(grid.getGenerationHash(), generation);
+            if (cycle.isPresent()) {
+                return new Result(seed, grid.getPopulation(), cycle.get().firstGeneration(), cycle.get().period());
+            }
+            if (generation < maximumNumberOfGenerations) {
+                grid = grid.getNextIteration();
+            }
+        }
+        return new Result(seed, grid.getPopulation(), -1, -1);
+    }
+
+    BitPackedGrid randomSoup(long seed) {
+        return BitPackedGrid.randomSoup(numberOfRows, numberOfColumns, density, seed);
+    }
+}
@@ -0,0 +1,231 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Saves a {@link Snapshot} of every so many generations to a directory,
+ * without stopping the simulation while doing so.
+ * <p>
+ * Grids are immutable, so the simulation can simply hand a generation to
+ * this class and carry on stepping. A background thread writes it to disk.
+ * Only a few checkpoints can be waiting to be written. When the disk can't
+ * keep up, new checkpoints are dropped (see {@link #getNumberOfDroppedCheckpoints()})
+ * rather than piling up in memory or slowing the simulation down.
+ * <p>
+ * Every checkpoint is written to a temporary file first, forced to disk,
+ * and only then moved into place (after which the directory is forced to
+ * disk as well). That way, a crash or a power loss halfway through a write
+ * never leaves a broken checkpoint behind. Only the most recent checkpoints are kept. Use
+ * {@link #resume(Path)} to pick up where a previous run left off.
+ */
+public class Checkpointer implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1;
+    public static final int DEFAULT_NUMBER_OF_CHECKPOINTS_TO_KEEP = 2;
+
+    private static final String PREFIX = "generation-";
+    private static final String SUFFIX = ".snapshot";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private record Checkpoint(Grid grid, int numberOfRows, int numberOfColumns, Rule rule, long generation) {
+    }
+
+    // Tells the writer that there will be no more checkpoints.
+    private static final Checkpoint END = new Checkpoint(null, 0, 0, null, -1);
+
+    private final Path directory;
+    private final long interval;
+    private final int numberOfCheckpointsToKeep;
+    private final BlockingQueue<Checkpoint> queue;
+    private final Thread writer;
+    private final AtomicLong numberOfDroppedCheckpoints = new AtomicLong();
+    private volatile IOException failure;
+    private volatile long lastWrittenGeneration = -1;
+    private boolean isClosed = false;
+
+    public Checkpointer(Path directory, long interval) throws IOException {
+        this(directory, interval, DEFAULT_QUEUE_CAPACITY, DEFAULT_NUMBER_OF_CHECKPOINTS_TO_KEEP);
+    }
+
+    public Checkpointer(Path directory, long interval, int queueCapacity, int numberOfCheckpointsToKeep) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive, but was " + interval);
+        }
+        if (numberOfCheckpointsToKeep <= 0) {
+            throw new IllegalArgumentException("Must keep at least one checkpoint, but was " + numberOfCheckpointsToKeep);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.interval = interval;
+        this.numberOfCheckpointsToKeep = numberOfCheckpointsToKeep;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity + 1); // Always room for `END`.
+        this.writer = new Thread(this::writeCheckpoints, "checkpointer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Checkpoints the generation if its number is a multiple of the interval.
+     * Returns whether it was handed to the writer: {@code false} when it's not
+     * time for a checkpoint, or when the writer is still busy with earlier ones.
+     * <p>
+     * The grid must not change afterward, which is a given for the immutable
+     * grids like {@link RepeatingGrid} and {@link BitPackedGrid}.
+     */
+    public boolean offer(RepeatingGrid grid, long generation) {
+        return offer(grid, grid.numberOfRows, grid.numberOfColumns, grid.getRule(), generation);
+    }
+
+    public boolean offer(Grid grid, int numberOfRows, int numberOfColumns, Rule rule, long generation) {
+        if (isClosed) {
+            throw new IllegalStateException("Checkpointer is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Failed to write an earlier checkpoint", failure);
+        }
+        if (generation % interval != 0) {
+            return false;
+        }
+        // Leave the last slot for `END`:
+        if (queue.remainingCapacity() <= 1 || !queue.offer(new Checkpoint(grid, numberOfRows, numberOfColumns, rule, generation))) {
+            numberOfDroppedCheckpoints.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public long getNumberOfDroppedCheckpoints() {
+        return numberOfDroppedCheckpoints.get();
+    }
+
+    /**
+     * Returns the number of the last generation that is safely on disk, or
+     * {@code -1} if there is none yet.
+     */
+    public long getLastWrittenGeneration() {
+        return lastWrittenGeneration;
+    }
+
+    /**
+     * Waits for the checkpoints that are still queued to be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            isClosed = true;
+            try {
+                queue.put(END);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing the last checkpoints", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the most recent checkpoint in a directory, if there is any.
+     */
+    public static Optional<Snapshot> resume(Path directory) throws IOException {
+        var checkpoints = listCheckpoints(directory);
+        if (checkpoints.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(Snapshot.read(checkpoints.getLast()));
+    }
+
+    static Path getPathOf(Path directory, long generation) {
+        // Zero-padded, so the names sort in the order of the generations:
+        return directory.resolve(String.format("%s%020d%s", PREFIX, generation, SUFFIX));
+    }
+
+    /**
+     * Returns the checkpoints in a directory, oldest first.
+     */
+    static List<Path> listCheckpoints(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        var checkpoints = new ArrayList<Path>();
+        try (var paths = Files.list(directory)) {
+            paths.filter(path -> {
+                var fileName = path.getFileName().toString();
+                return fileName.startsWith(PREFIX) && fileName.endsWith(SUFFIX);
+            }).forEach(checkpoints::add);
+        }
+        checkpoints.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return checkpoints;
+    }
+
+    private void writeCheckpoints() {
+        while (true) {
+            Checkpoint checkpoint;
+            try {
+                checkpoint = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (checkpoint == END) {
+                return;
+            }
+            if (failure != null) {
+                // Don't bother with the rest once something went wrong.
+                continue;
+            }
+            try {
+                write(checkpoint);
+                lastWrittenGeneration = checkpoint.generation();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Makes sure the entries of a directory (like a file that was just
+     * moved into it) are on disk.
+     */
+    private static void force(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, READ);
+        } catch (IOException e) {
+            // Some platforms (like Windows) can't open a directory. There,
+            // the move itself is as durable as it gets.
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private void write(Checkpoint checkpoint) throws IOException {
+        var path = getPathOf(directory, checkpoint.generation());
+        var temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        Snapshot.write(temporaryPath, checkpoint.grid(), checkpoint.numberOfRows(), checkpoint.numberOfColumns(), checkpoint.rule(), checkpoint.generation());
+        Files.move(temporaryPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        force(directory);
+
+        var checkpoints = listCheckpoints(directory);
+        for (var index = 0; index < checkpoints.size() - numberOfCheckpointsToKeep; index++) {
+            Files.deleteIfExists(checkpoints.get(index));
+        }
+    }
+}
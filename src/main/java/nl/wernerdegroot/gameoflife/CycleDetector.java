@@ -0,0 +1,91 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Optional;
+
+/**
+ * Finds out when a simulation stops evolving: when a generation is the
+ * same as one of the generations before it, every generation after that
+ * will repeat as well.
+ * <p>
+ * Instead of the generations themselves, only their 64-bit hashes are
+ * remembered (see {@link RepeatingGrid#getGenerationHash()}), and only
+ * for the most recent generations. Cycles with a period longer than that
+ * are not detected. A still life is a cycle with period 1, and a board
+ * that died out is a still life as well.
+ * <p>
+ * Hashes can collide, so strictly speaking a detected cycle is only very
+ * likely (the chance of a false positive is about 1 in 2<sup>64</sup> per
+ * pair of generations).
+ */
+public class CycleDetector {
+
+    public static final int DEFAULT_HISTORY_SIZE = 1 << 12;
+
+    /**
+     * The generation with number {@code firstGeneration} is the first that
+     * repeats. It is the same as the generation with number
+     * {@code firstGeneration + period} (and so on).
+     */
+    public record Cycle(long firstGeneration, long period) {
+    }
+
+    private final int historySize;
+
+    // Generation number by hash, and the hashes in the order they were seen
+    // (so we know which one to forget once the history is full). The latter
+    // is a ring buffer: the oldest hash is at `oldest`, unless it's empty.
+    private final LongLongMap generationByHash;
+    private final long[] hashes;
+    private int oldest = 0;
+    private int numberOfHashes = 0;
+
+    public CycleDetector() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    public CycleDetector(int historySize) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size must be positive, but was " + historySize);
+        }
+        this.historySize = historySize;
+        this.generationByHash = new LongLongMap(Math.min(historySize, 1 << 16));
+        this.hashes = new long[historySize];
+    }
+
+    public Optional<Cycle> observe(RepeatingGrid grid, long generation) {
+        return observe(grid.getGenerationHash(), generation);
+    }
+
+    /**
+     * Remembers the hash of a generation. Returns the cycle if a generation
+     * with the same hash was seen before (and not forgotten yet). The
+     * generations must be observed in order, starting at zero or higher.
+     */
+    public Optional<Cycle> observe(long generationHash, long generation) {
+        if (generation < 0) {
+            throw new IllegalArgumentException("Generation must not be negative, but was " + generation);
+        }
+        // Generation numbers are never negative, so -1 means "not seen":
+        var previousGeneration = generationByHash.get(generationHash, -1);
+        if (previousGeneration >= 0) {
+            return Optional.of(new Cycle(previousGeneration, generation - previousGeneration));
+        }
+
+        if (numberOfHashes == historySize) {
+            generationByHash.remove(hashes[oldest]);
+            hashes[oldest] = generationHash;
+            oldest = (oldest + 1) % historySize;
+        } else {
+            hashes[(oldest + numberOfHashes) % historySize] = generationHash;
+            numberOfHashes++;
+        }
+        generationByHash.put(generationHash, generation);
+        return Optional.empty();
+    }
+
+    public void clear() {
+        generationByHash.clear();
+        oldest = 0;
+        numberOfHashes = 0;
+    }
+}
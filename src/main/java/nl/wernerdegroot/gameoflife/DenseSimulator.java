@@ -0,0 +1,63 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * A {@link Simulator} that computes generations in the same way as
+ * {@link BitPackedGrid#getNextIteration()} (including its kernel, its
+ * parallelism and the tiles it skips), but that writes every next
+ * generation into the words of the generation before the current one.
+ * <p>
+ * The only allocations while stepping are a few small objects per step,
+ * which don't grow with the size of the board.
+ */
+public class DenseSimulator implements Simulator {
+
+    private BitPackedGrid grid;
+    private long[] spareWords;
+    private boolean[] spareChangedTiles;
+
+    public DenseSimulator(BitPackedGrid grid) {
+        // Grids are immutable, so we make our own copy to write to:
+        this.grid = new BitPackedGrid(grid.numberOfRows, grid.numberOfColumns, grid.words.clone(), grid.rule, grid.kernel, grid.pool, null);
+        this.spareWords = new long[grid.words.length];
+        this.spareChangedTiles = new boolean[grid.numberOfTileRows * grid.numberOfTileColumns];
+    }
+
+    public DenseSimulator(RepeatingGrid grid) {
+        this(BitPackedGrid.from(grid));
+    }
+
+    @Override
+    public void step() {
+        var next = grid.getNextIteration(spareWords, spareChangedTiles);
+        spareWords = grid.words;
+        spareChangedTiles = grid.changedTiles == null
+                ? new boolean[grid.numberOfTileRows * grid.numberOfTileColumns]
+                : grid.changedTiles;
+        grid = next;
+    }
+
+    @Override
+    public long getPopulation() {
+        return grid.getPopulation();
+    }
+
+    @Override
+    public RepeatingGrid snapshot() {
+        return grid.toRepeatingGrid();
+    }
+
+    /**
+     * Same as {@link #snapshot()}, but without converting to live cells.
+     */
+    public BitPackedGrid toBitPackedGrid() {
+        return new BitPackedGrid(grid.numberOfRows, grid.numberOfColumns, grid.words.clone(), grid.rule, grid.kernel, grid.pool, null);
+    }
+
+    @Override
+    public String toString() {
+        return "DenseSimulator{" +
+               "numberOfRows=" + grid.numberOfRows +
+               ", numberOfColumns=" + grid.numberOfColumns +
+               '}';
+    }
+}
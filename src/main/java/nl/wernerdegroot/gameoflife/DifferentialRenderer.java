@@ -0,0 +1,185 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Renders generation after generation of a grid on a terminal, in the
+ * format of {@link RepeatingGridWriter}.
+ * <p>
+ * The first frame is written in full. For every frame after that, only
+ * the cells that flipped since the previous frame are redrawn, by moving
+ * the cursor there with ANSI escape sequences. All output of a frame is
+ * collected in a buffer first, and written in one go.
+ * <p>
+ * Only relative cursor movements are used (up, down, and to a column on
+ * the current line), so the grid can be anywhere on the screen. Between
+ * frames, the cursor rests at the start of the line below the grid.
+ * <p>
+ * Not thread-safe: use one renderer per terminal.
+ */
+public class DifferentialRenderer {
+
+    private static final byte ESCAPE = 0x1B;
+    private static final byte[] ALIVE_BYTES = RepeatingGridWriter.ALIVE.getBytes(UTF_8);
+    private static final byte[] DEAD_BYTES = RepeatingGridWriter.DEAD.getBytes(UTF_8);
+
+    private final int numberOfRows;
+    private final int numberOfColumns;
+    private final int wordsPerRow;
+    private final StreamingGridWriter fullWriter = new StreamingGridWriter();
+
+    // What is currently on the screen:
+    private final long[] previous;
+    private final long[] row;
+    private boolean hasRendered = false;
+
+    // Output of the current frame:
+    private byte[] bytes = new byte[1 << 12];
+    private int length = 0;
+
+    // Position of the cursor, relative to the top-left of the grid (both
+    // 0-based, where line 0 is the header):
+    private int cursorLine;
+    private int cursorColumn;
+
+    // Rendering to the same stream frame after frame reuses its channel:
+    private OutputStream outputStream;
+    private WritableByteChannel outputStreamChannel;
+
+    public DifferentialRenderer(int numberOfRows, int numberOfColumns) {
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        this.previous = new long[numberOfRows * wordsPerRow];
+        this.row = new long[wordsPerRow];
+    }
+
+    public void render(Grid grid, OutputStream outputStream) throws IOException {
+        render(grid, channelOf(outputStream));
+        outputStream.flush();
+    }
+
+    public void render(Grid grid, WritableByteChannel channel) throws IOException {
+        if (numberOfRows == 0 || numberOfColumns == 0) {
+            return;
+        }
+
+        if (!hasRendered) {
+            fullWriter.write(grid, numberOfRows, numberOfColumns, channel);
+            for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+                grid.getRow(rowIndex, numberOfColumns, row);
+                System.arraycopy(row, 0, previous, rowIndex * wordsPerRow, wordsPerRow);
+            }
+            hasRendered = true;
+            return;
+        }
+
+        length = 0;
+        cursorLine = numberOfRows + 2;
+        cursorColumn = 0;
+
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            grid.getRow(rowIndex, numberOfColumns, row);
+            var offset = rowIndex * wordsPerRow;
+            for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+                var flipped = row[wordIndex] ^ previous[offset + wordIndex];
+                while (flipped != 0) {
+                    var bit = Long.numberOfTrailingZeros(flipped);
+                    var columnIndex = (wordIndex << 6) + bit;
+                    var isAlive = (row[wordIndex] & (1L << bit)) != 0;
+                    drawCell(rowIndex, columnIndex, isAlive);
+                    flipped &= flipped - 1;
+                }
+                previous[offset + wordIndex] = row[wordIndex];
+            }
+        }
+
+        if (length == 0) {
+            return;
+        }
+
+        // Back to where we started:
+        moveToLine(numberOfRows + 2);
+        append((byte) '\r');
+
+        var buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Forgets what is on the screen, so the next frame is written in full.
+     */
+    public void reset() {
+        hasRendered = false;
+        Arrays.fill(previous, 0L);
+    }
+
+    private void drawCell(int rowIndex, int columnIndex, boolean isAlive) {
+        // One line for the header. Every cell is preceded by a separator:
+        moveToLine(rowIndex + 1);
+        var column = 2 * columnIndex + 1;
+        if (cursorColumn != column) {
+            // Columns are 1-based in the escape sequence:
+            escape(column + 1, (byte) 'G');
+        }
+        append(isAlive ? ALIVE_BYTES : DEAD_BYTES);
+        cursorColumn = column + 1;
+    }
+
+    private void moveToLine(int line) {
+        if (line < cursorLine) {
+            escape(cursorLine - line, (byte) 'A');
+        } else if (line > cursorLine) {
+            escape(line - cursorLine, (byte) 'B');
+        }
+        cursorLine = line;
+    }
+
+    private void escape(int argument, byte command) {
+        append(ESCAPE);
+        append((byte) '[');
+        appendNumber(argument);
+        append(command);
+    }
+
+    private void appendNumber(int number) {
+        var divisor = 1;
+        while (divisor <= number / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            append((byte) ('0' + (number / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+    private void append(byte[] toAppend) {
+        for (var b : toAppend) {
+            append(b);
+        }
+    }
+
+    private void append(byte b) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[length++] = b;
+    }
+
+    private WritableByteChannel channelOf(OutputStream outputStream) {
+        if (outputStream != this.outputStream) {
+            this.outputStream = outputStream;
+            this.outputStreamChannel = Channels.newChannel(outputStream);
+        }
+        return outputStreamChannel;
+    }
+}
@@ -0,0 +1,377 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static nl.wernerdegroot.gameoflife.DistributedProtocol.*;
+
+/**
+ * Computes a grid that is spread over several {@link DistributedWorker}s,
+ * each in its own process (on this machine or another one).
+ * <p>
+ * The rows of the grid are divided into bands of (almost) equal height,
+ * one per worker. Every generation, each worker needs the last row of the
+ * band above it and the first row of the band below it (wrapping around at
+ * the top and the bottom). Workers send these edge rows to the coordinator
+ * after every step, and the coordinator sends them on to the neighbours
+ * with the next step. Nothing else crosses the network while stepping, so
+ * the traffic per generation is two rows in and two rows out per worker,
+ * however many rows the bands have.
+ * <p>
+ * The coordinator keeps the workers in lock step: it sends all of them the
+ * next step (so they compute at the same time), and then waits until all
+ * of them replied before starting the generation after that. The result is
+ * exactly the same as stepping a {@link BitPackedGrid} in a single process.
+ * <p>
+ * The whole grid never has to fit in the coordinator. Workers generate their
+ * own band of a random soup (see {@link #randomSoup}) or read it from a
+ * {@link Snapshot} (see {@link #resume}), and write it to a snapshot again
+ * (see {@link #write}).
+ */
+public class DistributedCoordinator implements Simulator, AutoCloseable {
+
+    private record Connection(Socket socket, DataInputStream in, DataOutputStream out, int fromRowIndex, int toRowIndex) {
+    }
+
+    /**
+     * Tells a worker where to get its band from (see {@link DistributedProtocol}).
+     */
+    @FunctionalInterface
+    private interface BandSource {
+        void write(DataOutputStream out, int fromRowIndex, int toRowIndex) throws IOException;
+    }
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final int wordsPerRow;
+    final Rule rule;
+
+    private final List<Connection> connections = new ArrayList<>();
+
+    // The first and the last row of every band, in the current generation:
+    private final long[][] firstRows;
+    private final long[][] lastRows;
+
+    private long population;
+    private long generation;
+
+    /**
+     * Connects to the workers, and hands each of them its band of the grid.
+     * All of the grid has to be in this process for that, so this is meant
+     * for small grids (and tests) only.
+     */
+    public DistributedCoordinator(BitPackedGrid grid, List<InetSocketAddress> workers) throws IOException {
+        this(grid.numberOfRows, grid.numberOfColumns, grid.rule, 0, workers, (out, fromRowIndex, toRowIndex) -> {
+            out.writeByte(ROWS);
+            for (var rowIndex = fromRowIndex; rowIndex < toRowIndex; rowIndex++) {
+                writeRow(out, grid.words, rowIndex * grid.wordsPerRow, grid.wordsPerRow);
+            }
+        });
+    }
+
+    /**
+     * Starts with {@link BitPackedGrid#randomSoup(int, int, double, long)},
+     * of which every worker generates its own band.
+     */
+    public static DistributedCoordinator randomSoup(int numberOfRows, int numberOfColumns, double density, long seed, Rule rule, List<InetSocketAddress> workers) throws IOException {
+        return new DistributedCoordinator(numberOfRows, numberOfColumns, rule, 0, workers, (out, fromRowIndex, toRowIndex) -> {
+            out.writeByte(SOUP);
+            out.writeLong(seed);
+            out.writeDouble(density);
+        });
+    }
+
+    /**
+     * Carries on from a {@link Snapshot}, of which every worker reads its own
+     * band. The workers need to be able to read the file.
+     */
+    public static DistributedCoordinator resume(Path snapshot, List<InetSocketAddress> workers) throws IOException {
+        var header = Snapshot.readHeader(snapshot);
+        // The workers may well be running in another directory:
+        var path = snapshot.toAbsolutePath().toString();
+        return new DistributedCoordinator(header.numberOfRows(), header.numberOfColumns(), header.rule(), header.generation(), workers, (out, fromRowIndex, toRowIndex) -> {
+            out.writeByte(SNAPSHOT);
+            out.writeUTF(path);
+        });
+    }
+
+    private DistributedCoordinator(int numberOfRows, int numberOfColumns, Rule rule, long generation, List<InetSocketAddress> workers, BandSource bandSource) throws IOException {
+        if (workers.isEmpty() || workers.size() > numberOfRows) {
+            throw new IllegalArgumentException("Need between 1 and " + numberOfRows + " workers, but got " + workers.size());
+        }
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        this.rule = rule;
+        this.generation = generation;
+        this.firstRows = new long[workers.size()][wordsPerRow];
+        this.lastRows = new long[workers.size()][wordsPerRow];
+
+        try {
+            for (var workerIndex = 0; workerIndex < workers.size(); workerIndex++) {
+                var fromRowIndex = (int) ((long) numberOfRows * workerIndex / workers.size());
+                var toRowIndex = (int) ((long) numberOfRows * (workerIndex + 1) / workers.size());
+                var connection = connect(workers.get(workerIndex), fromRowIndex, toRowIndex);
+                connections.add(connection);
+
+                var out = connection.out();
+                out.writeByte(INIT);
+                out.writeInt(numberOfRows);
+                out.writeInt(numberOfColumns);
+                out.writeInt(fromRowIndex);
+                out.writeInt(toRowIndex);
+                out.writeUTF(rule.toString());
+                bandSource.write(out, fromRowIndex, toRowIndex);
+                out.flush();
+            }
+            for (var workerIndex = 0; workerIndex < connections.size(); workerIndex++) {
+                population += connections.get(workerIndex).in().readLong();
+                readEdges(workerIndex);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeConnections();
+            throw e;
+        }
+    }
+
+    private static Connection connect(InetSocketAddress address, int fromRowIndex, int toRowIndex) throws IOException {
+        var socket = new Socket();
+        try {
+            socket.connect(address);
+            socket.setTcpNoDelay(true);
+            return new Connection(
+                    socket,
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16)),
+                    new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16)),
+                    fromRowIndex,
+                    toRowIndex
+            );
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Usage: {@code DistributedCoordinator (--workers HOST:PORT,HOST:PORT,... | --local-workers N)
+     * [--rows R] [--columns C] [--density D] [--seed S] [--rule RULE] [--resume FILE]
+     * [--generations G] [--save FILE]}.
+     * With {@code --local-workers}, the workers are started as separate
+     * JVMs on this machine. Starts with a random soup, or with the snapshot
+     * given by {@code --resume}, and saves the last generation to the
+     * snapshot given by {@code --save} (if any). Prints how fast the
+     * generations were computed.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var workers = new ArrayList<InetSocketAddress>();
+        var numberOfLocalWorkers = 0;
+        var numberOfRows = 1024;
+        var numberOfColumns = 1024;
+        var density = 0.3;
+        var seed = new Random().nextLong();
+        var rule = Rule.CONWAY;
+        Path resume = null;
+        Path save = null;
+        var numberOfGenerations = 1000;
+
+        for (var index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "--workers" -> {
+                    for (var worker : args[++index].split(",")) {
+                        var separator = worker.lastIndexOf(':');
+                        workers.add(new InetSocketAddress(worker.substring(0, separator), Integer.parseInt(worker.substring(separator + 1))));
+                    }
+                }
+                case "--local-workers" -> numberOfLocalWorkers = Integer.parseInt(args[++index]);
+                case "--rows" -> numberOfRows = Integer.parseInt(args[++index]);
+                case "--columns" -> numberOfColumns = Integer.parseInt(args[++index]);
+                case "--density" -> density = Double.parseDouble(args[++index]);
+                case "--seed" -> seed = Long.parseLong(args[++index]);
+                case "--rule" -> rule = Options.supported(Rule.parse(args[++index]));
+                case "--resume" -> resume = Path.of(args[++index]);
+                case "--save" -> save = Path.of(args[++index]);
+                case "--generations" -> numberOfGenerations = Integer.parseInt(args[++index]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[index]);
+            }
+        }
+
+        var localProcesses = new ArrayList<DistributedWorker.LocalProcess>();
+        try {
+            for (var count = 0; count < numberOfLocalWorkers; count++) {
+                var localProcess = DistributedWorker.startLocalProcess();
+                localProcesses.add(localProcess);
+                workers.add(localProcess.address());
+            }
+
+            try (var coordinator = resume != null
+                    ? DistributedCoordinator.resume(resume, workers)
+                    : DistributedCoordinator.randomSoup(numberOfRows, numberOfColumns, density, seed, rule, workers)) {
+                var start = System.nanoTime();
+                coordinator.step(numberOfGenerations);
+                var elapsedSeconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+
+                var generationsPerSecond = numberOfGenerations / elapsedSeconds;
+                System.out.printf("Workers:                 %d%n", workers.size());
+                System.out.printf("Generations:             %d%n", numberOfGenerations);
+                System.out.printf("Board:                   %d x %d%n", coordinator.numberOfRows, coordinator.numberOfColumns);
+                System.out.printf("Time:                    %.3f s%n", elapsedSeconds);
+                System.out.printf("Generations per second:  %.1f%n", generationsPerSecond);
+                System.out.printf("Cell updates per second: %.4g%n", generationsPerSecond * coordinator.numberOfRows * coordinator.numberOfColumns);
+                System.out.printf("Population:              %d%n", coordinator.getPopulation());
+
+                if (save != null) {
+                    coordinator.write(save);
+                    System.out.printf("Saved generation %d to %s%n", coordinator.getGeneration(), save);
+                }
+            }
+        } finally {
+            for (var localProcess : localProcesses) {
+                localProcess.close();
+            }
+        }
+    }
+
+    /**
+     * Computes the next generation on all workers.
+     */
+    @Override
+    public void step() {
+        try {
+            var numberOfWorkers = connections.size();
+            for (var workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+                var out = connections.get(workerIndex).out();
+                out.writeByte(STEP);
+                // The last row of the band above, and the first row of the
+                // band below (both wrapping around):
+                writeRow(out, lastRows[Math.floorMod(workerIndex - 1, numberOfWorkers)], 0, wordsPerRow);
+                writeRow(out, firstRows[(workerIndex + 1) % numberOfWorkers], 0, wordsPerRow);
+                out.flush();
+            }
+
+            var nextPopulation = 0L;
+            for (var workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+                nextPopulation += connections.get(workerIndex).in().readLong();
+                readEdges(workerIndex);
+            }
+            population = nextPopulation;
+            generation++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost contact with a worker", e);
+        }
+    }
+
+    private void readEdges(int workerIndex) throws IOException {
+        var in = connections.get(workerIndex).in();
+        readRow(in, firstRows[workerIndex], 0, wordsPerRow);
+        readRow(in, lastRows[workerIndex], 0, wordsPerRow);
+    }
+
+    /**
+     * Without asking the workers: they report their population after every
+     * step.
+     */
+    @Override
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * The number of the current generation (counting on from the snapshot,
+     * when resumed from one).
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Saves the current generation to a {@link Snapshot}. This process only
+     * writes the header. Every worker writes its own band, straight from its
+     * memory to the file, so the workers need to be able to write to the
+     * file. Once this returns, all of it is on disk.
+     */
+    public void write(Path path) throws IOException {
+        Snapshot.writeHeader(path, numberOfRows, numberOfColumns, rule, generation);
+        var absolutePath = path.toAbsolutePath().toString();
+        for (var connection : connections) {
+            connection.out().writeByte(WRITE);
+            connection.out().writeUTF(absolutePath);
+            connection.out().flush();
+        }
+        for (var connection : connections) {
+            var numberOfRowsWritten = connection.in().readInt();
+            if (numberOfRowsWritten != connection.toRowIndex() - connection.fromRowIndex()) {
+                throw new IOException("A worker wrote " + numberOfRowsWritten + " rows instead of " + (connection.toRowIndex() - connection.fromRowIndex()));
+            }
+        }
+    }
+
+    /**
+     * Collects the bands of all workers into a single grid. All of the grid
+     * has to fit in this process for that, so this is meant for tests (use
+     * {@link #write(Path)} otherwise).
+     */
+    BitPackedGrid gather() {
+        try {
+            for (var connection : connections) {
+                connection.out().writeByte(GATHER);
+                connection.out().flush();
+            }
+            var words = new long[numberOfRows * wordsPerRow];
+            for (var connection : connections) {
+                for (var rowIndex = connection.fromRowIndex(); rowIndex < connection.toRowIndex(); rowIndex++) {
+                    readRow(connection.in(), words, rowIndex * wordsPerRow, wordsPerRow);
+                }
+            }
+            return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, RowKernel.scalar(), null, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost contact with a worker", e);
+        }
+    }
+
+    /**
+     * Like {@link #gather()}, all of the grid has to fit in this process.
+     */
+    @Override
+    public RepeatingGrid snapshot() {
+        return gather().toRepeatingGrid();
+    }
+
+    /**
+     * Shuts the workers down (they exit once their coordinator is done).
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (var connection : connections) {
+                connection.out().writeByte(SHUTDOWN);
+                connection.out().flush();
+            }
+        } finally {
+            closeConnections();
+        }
+    }
+
+    private void closeConnections() throws IOException {
+        IOException failure = null;
+        for (var connection : connections) {
+            try {
+                connection.socket().close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The messages between a {@link DistributedCoordinator} and its
+ * {@link DistributedWorker}s. Every message starts with a single byte
+ * (one of the constants below), and every request gets exactly one reply:
+ * <pre>
+ * INIT     int rows, int columns, int first row, int last row (exclusive), UTF rule,
+ *          and where the band comes from, one of:
+ *            ROWS      the rows of the band
+ *            SOUP      long seed, double density (see {@link BitPackedGrid#randomSoup(int, int, double, long)})
+ *            SNAPSHOT  UTF path of a {@link Snapshot} of the whole grid
+ *          reply: long population, the first and the last row of the band
+ * STEP     the row above the band, the row below the band
+ *          reply: long population, the first and the last row of the next generation of the band
+ * WRITE    UTF path of a {@link Snapshot} of which only the header is written
+ *          reply: int number of rows written (the rows of the band)
+ * GATHER   reply: the rows of the band
+ * SHUTDOWN reply: nothing, the worker closes the connection
+ * </pre>
+ * A row is {@link BitPackedGrid#getWordsPerRow(int)} longs, in the same
+ * layout as {@link BitPackedGrid}. Paths are resolved by the worker, so
+ * workers on other machines need a shared file system for those.
+ */
+final class DistributedProtocol {
+
+    static final byte INIT = 1;
+    static final byte STEP = 2;
+    static final byte GATHER = 3;
+    static final byte SHUTDOWN = 4;
+    static final byte WRITE = 5;
+
+    // Where the band of an INIT comes from:
+    static final byte ROWS = 1;
+    static final byte SOUP = 2;
+    static final byte SNAPSHOT = 3;
+
+    private DistributedProtocol() {
+    }
+
+    static void writeRow(DataOutputStream out, long[] words, int offset, int wordsPerRow) throws IOException {
+        for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+            out.writeLong(words[offset + wordIndex]);
+        }
+    }
+
+    static void readRow(DataInputStream in, long[] words, int offset, int wordsPerRow) throws IOException {
+        for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+            words[offset + wordIndex] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.wernerdegroot.gameoflife.DistributedProtocol.*;
+
+/**
+ * Computes a band of rows of a grid that is spread over several processes
+ * (see {@link DistributedCoordinator}).
+ * <p>
+ * A band spans the full width of the grid, so it wraps around at the left
+ * and right edges by itself. To compute the next generation of its rows,
+ * the worker only needs one more row above and one more row below the band
+ * (the "halo"), which belong to the neighbouring bands (or, at the top and
+ * the bottom of the grid, to the band at the other end). The coordinator
+ * sends these every generation. The worker keeps them right above and
+ * below its own rows, so every row can be computed with
+ * {@link BitPackedGrid#stepRow}, just like in a single process.
+ * <p>
+ * Run it with {@code DistributedWorker [--port P]}. It prints the port it
+ * listens on, serves a single coordinator, and exits when that one is done.
+ */
+public class DistributedWorker {
+
+    static final String LISTENING_ON_PORT = "Listening on port ";
+
+    private int numberOfColumns;
+    private int wordsPerRow;
+    private int fromRowIndex;
+    private int numberOfRowsInBand;
+    private Rule rule;
+
+    // The rows of the band, with a halo row above and below:
+    private long[] words;
+    private long[] nextWords;
+
+    public static void main(String[] args) throws IOException {
+        var port = 0;
+        for (var index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "--port" -> port = Integer.parseInt(args[++index]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[index]);
+            }
+        }
+
+        try (var serverSocket = new ServerSocket(port)) {
+            System.out.println(LISTENING_ON_PORT + serverSocket.getLocalPort());
+            System.out.flush();
+            serve(serverSocket);
+        }
+    }
+
+    /**
+     * Accepts a single coordinator, and answers its requests until it shuts
+     * the worker down (or disconnects).
+     */
+    public static void serve(ServerSocket serverSocket) throws IOException {
+        try (var socket = serverSocket.accept()) {
+            socket.setTcpNoDelay(true);
+            var in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            new DistributedWorker().serve(in, out);
+        }
+    }
+
+    void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            var command = in.read();
+            switch (command) {
+                case -1, SHUTDOWN -> {
+                    return;
+                }
+                case INIT -> init(in, out);
+                case STEP -> step(in, out);
+                case WRITE -> write(in, out);
+                case GATHER -> gather(out);
+                default -> throw new IOException("Unknown command: " + command);
+            }
+            out.flush();
+        }
+    }
+
+    private void init(DataInputStream in, DataOutputStream out) throws IOException {
+        in.readInt(); // The number of rows of the whole grid doesn't matter to a band.
+        numberOfColumns = in.readInt();
+        fromRowIndex = in.readInt();
+        var toRowIndex = in.readInt();
+        rule = Rule.parse(in.readUTF());
+        wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        numberOfRowsInBand = toRowIndex - fromRowIndex;
+        words = new long[(numberOfRowsInBand + 2) * wordsPerRow];
+        nextWords = new long[words.length];
+
+        // The band goes right below the halo row:
+        var source = in.readByte();
+        switch (source) {
+            case ROWS -> {
+                for (var rowIndex = 1; rowIndex <= numberOfRowsInBand; rowIndex++) {
+                    readRow(in, words, rowIndex * wordsPerRow, wordsPerRow);
+                }
+            }
+            case SOUP -> {
+                var seed = in.readLong();
+                var density = in.readDouble();
+                BitPackedGrid.randomSoup(fromRowIndex, toRowIndex, numberOfColumns, density, seed, words, wordsPerRow);
+            }
+            case SNAPSHOT -> Snapshot.readRows(Path.of(in.readUTF()), fromRowIndex, numberOfRowsInBand, words, wordsPerRow);
+            default -> throw new IOException("Unknown source of a band: " + source);
+        }
+
+        var population = 0L;
+        for (var wordIndex = wordsPerRow; wordIndex < (numberOfRowsInBand + 1) * wordsPerRow; wordIndex++) {
+            population += Long.bitCount(words[wordIndex]);
+        }
+        out.writeLong(population);
+        writeEdges(out);
+    }
+
+    private void step(DataInputStream in, DataOutputStream out) throws IOException {
+        readRow(in, words, 0, wordsPerRow);
+        readRow(in, words, (numberOfRowsInBand + 1) * wordsPerRow, wordsPerRow);
+
+        var population = 0L;
+        for (var rowIndex = 1; rowIndex <= numberOfRowsInBand; rowIndex++) {
+            BitPackedGrid.stepRow(
+                    words, (rowIndex - 1) * wordsPerRow,
+                    words, rowIndex * wordsPerRow,
+                    words, (rowIndex + 1) * wordsPerRow,
+                    nextWords, rowIndex * wordsPerRow,
+                    numberOfColumns,
+                    0,
+                    wordsPerRow,
+                    rule
+            );
+            for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+                population += Long.bitCount(nextWords[rowIndex * wordsPerRow + wordIndex]);
+            }
+        }
+
+        var swap = words;
+        words = nextWords;
+        nextWords = swap;
+
+        out.writeLong(population);
+        writeEdges(out);
+    }
+
+    private void write(DataInputStream in, DataOutputStream out) throws IOException {
+        Snapshot.writeRows(Path.of(in.readUTF()), fromRowIndex, numberOfRowsInBand, words, wordsPerRow);
+        out.writeInt(numberOfRowsInBand);
+    }
+
+    private void gather(DataOutputStream out) throws IOException {
+        for (var rowIndex = 1; rowIndex <= numberOfRowsInBand; rowIndex++) {
+            writeRow(out, words, rowIndex * wordsPerRow, wordsPerRow);
+        }
+    }
+
+    private void writeEdges(DataOutputStream out) throws IOException {
+        writeRow(out, words, wordsPerRow, wordsPerRow);
+        writeRow(out, words, numberOfRowsInBand * wordsPerRow, wordsPerRow);
+    }
+
+    /**
+     * A worker in a separate JVM on this machine.
+     */
+    public record LocalProcess(Process process, InetSocketAddress address) implements AutoCloseable {
+
+        @Override
+        public void close() throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Starts a worker in a new JVM (with the same class path as this one),
+     * and waits until it listens on a port.
+     */
+    public static LocalProcess startLocalProcess() throws IOException {
+        var javaCommand = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        var command = new ArrayList<String>();
+        command.add(javaCommand);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DistributedWorker.class.getName());
+        var process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+        var line = reader.readLine();
+        if (line == null || !line.startsWith(LISTENING_ON_PORT)) {
+            process.destroyForcibly();
+            throw new IOException("Worker didn't start: " + line);
+        }
+        var port = Integer.parseInt(line.substring(LISTENING_ON_PORT.length()).trim());
+        return new LocalProcess(process, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+}
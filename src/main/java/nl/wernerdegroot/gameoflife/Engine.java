@@ -0,0 +1,78 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The different ways to compute generations on a torus, by the name used
+ * on the command line.
+ */
+public enum Engine {
+
+    /**
+     * {@link RepeatingGrid}: only keeps track of the live cells.
+     */
+    SPARSE("sparse"),
+
+    /**
+     * {@link BitPackedGrid}: one bit per cell, 64 cells at a time.
+     */
+    BIT_PACKED("bit-packed"),
+
+    /**
+     * {@link BitPackedGrid} with the {@link RowKernel#vectorized() vectorized}
+     * kernel (which falls back to the scalar kernel when the Vector API is
+     * not available).
+     */
+    VECTORIZED("vectorized"),
+
+    /**
+     * {@link LookupTableGrid}: looks up the next generation of 2x2 cells at
+     * a time.
+     */
+    LOOKUP_TABLE("lookup-table"),
+
+    /**
+     * {@link AdaptiveGrid}: switches between {@link #SPARSE} and
+     * {@link #BIT_PACKED}, depending on the density of the board.
+     */
+    ADAPTIVE("adaptive");
+
+    final String name;
+
+    Engine(String name) {
+        this.name = name;
+    }
+
+    public static Engine of(String name) {
+        return Arrays.stream(values())
+                .filter(engine -> engine.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown engine: " + name));
+    }
+
+    /**
+     * Returns a grid with the same live cells (and rule) as {@code grid},
+     * that computes the next generations with this engine. Engines that can
+     * run in parallel do so on the given pool, unless it's {@code null}.
+     * The pool is not shut down; that's up to the caller.
+     */
+    public Grid create(RepeatingGrid grid, ForkJoinPool pool) {
+        return switch (this) {
+            case SPARSE -> grid;
+            case BIT_PACKED -> withParallelism(BitPackedGrid.from(grid), pool);
+            case VECTORIZED -> withParallelism(BitPackedGrid.from(grid).withKernel(RowKernel.vectorized()), pool);
+            case LOOKUP_TABLE -> LookupTableGrid.from(grid);
+            case ADAPTIVE -> new AdaptiveGrid(grid);
+        };
+    }
+
+    private static BitPackedGrid withParallelism(BitPackedGrid grid, ForkJoinPool pool) {
+        return pool == null ? grid : grid.withParallelism(pool);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
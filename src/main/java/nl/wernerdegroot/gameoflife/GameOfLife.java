@@ -1,44 +1,212 @@
 package nl.wernerdegroot.gameoflife;
 
-import java.time.Duration;
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Random;
-import java.util.stream.IntStream;
-
-import static java.util.stream.Collectors.toSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GameOfLife {
 
-    public static void main(String[] args) throws InterruptedException {
+    static final int DEFAULT_NUMBER_OF_ROWS = 10;
+    static final int DEFAULT_NUMBER_OF_COLUMNS = 10;
+
+    public static void main(String[] args) throws InterruptedException, IOException, JMException {
+
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.print(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (options.isHelp) {
+            System.out.print(Options.USAGE);
+            return;
+        }
+
+        var initial = createInitialGrid(options);
+        var generationNumber = 0L;
+
+        if (options.checkpointDirectory != null) {
+            var snapshot = Checkpointer.resume(options.checkpointDirectory);
+            if (snapshot.isPresent()) {
+                // Carry on with the rule of the checkpoint:
+                var rule = snapshot.get().grid().getRule();
+                if (options.rule != null && !options.rule.equals(rule)) {
+                    System.err.println("The checkpoint in " + options.checkpointDirectory + " uses rule " + rule + ", not " + options.rule);
+                    System.exit(2);
+                    return;
+                }
+                initial = snapshot.get().toRepeatingGrid();
+                generationNumber = snapshot.get().generation();
+            }
+        }
+
+        var checkpointer = options.checkpointDirectory == null ? null : new Checkpointer(options.checkpointDirectory, options.checkpointInterval);
+        // Only the engines that can run in parallel use the pool:
+        var pool = options.numberOfThreads > 1 ? new ForkJoinPool(options.numberOfThreads) : null;
+        var grid = options.engine.create(initial, pool);
+
+        if (options.isHeadless) {
+            // Counting births and deaths takes about as long as computing
+            // the next generation on the dense engines, so only do so when
+            // asked:
+            var metrics = options.hasMetrics ? new SimulationMetrics() : SimulationMetrics.DISABLED;
+            runHeadless(grid, generationNumber, initial.numberOfRows, initial.numberOfColumns, initial.getRule(), options.numberOfGenerations, metrics, checkpointer, System.out);
+            close(pool, checkpointer);
+            return;
+        }
+
+        // Available over JMX (and as JFR events):
+        var metrics = new SimulationMetrics();
+        metrics.register("GameOfLife");
 
-        var random = new Random();
+        // Draws the first grid in full, and after that only redraws
+        // the cells that changed:
+        var renderer = new DifferentialRenderer(initial.numberOfRows, initial.numberOfColumns);
 
-        var numberOfRows = 10;
-        var numberOfColumns = 10;
-        var initialNumberOfLiveCells = 20;
-        var iterationInterval = Duration.ofSeconds(2);
+        // Generations are computed on a separate thread. By default, the
+        // simulation keeps to the interval instead of waiting for the
+        // terminal; the screen shows whichever generation is due (use
+        // `--frame-drop-policy none` to show every generation instead):
+        var numberOfRows = initial.numberOfRows;
+        var numberOfColumns = initial.numberOfColumns;
+        var rule = initial.getRule();
+        var nextGenerationNumber = new AtomicLong(generationNumber + 1);
+        var pipeline = new SimulationPipeline<>(
+                grid,
+                generationNumber,
+                current -> {
+                    var next = metrics.step(current, Grid::getNextIteration);
+                    var nextGeneration = nextGenerationNumber.getAndIncrement();
+                    if (checkpointer != null) {
+                        checkpointer.offer(next, numberOfRows, numberOfColumns, rule, nextGeneration);
+                    }
+                    return next;
+                },
+                options.lookahead,
+                options.frameDropPolicy,
+                options.interval,
+                (current, ignored) -> renderer.render(current, System.out)
+        );
 
-        var generation = IntStream.range(0, initialNumberOfLiveCells)
-                .mapToObj(ignored -> {
-                    var rowIndex = random.nextInt(numberOfRows);
-                    var columnIndex = random.nextInt(numberOfColumns);
-                    return new Cell(rowIndex, columnIndex);
-                })
-                .collect(toSet());
+        pipeline.start().awaitTermination();
+        pipeline.close();
+        close(pool, checkpointer);
+    }
 
-        var grid = new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    private static void close(ForkJoinPool pool, Checkpointer checkpointer) throws IOException {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (checkpointer != null) {
+            checkpointer.close();
+        }
+    }
 
-        System.out.print(RepeatingGridWriter.write(grid));
+    /**
+     * The pattern (centred on a board of the requested size, if any), or
+     * else a random soup.
+     */
+    static RepeatingGrid createInitialGrid(Options options) throws IOException {
+        RepeatingGrid grid;
+        if (options.pattern != null) {
+            var pattern = PatternReader.read(options.pattern);
+            var numberOfRows = options.numberOfRows == null ? pattern.numberOfRows : options.numberOfRows;
+            var numberOfColumns = options.numberOfColumns == null ? pattern.numberOfColumns : options.numberOfColumns;
+            grid = centre(pattern, numberOfRows, numberOfColumns);
+        } else {
+            var numberOfRows = options.numberOfRows == null ? DEFAULT_NUMBER_OF_ROWS : options.numberOfRows;
+            var numberOfColumns = options.numberOfColumns == null ? DEFAULT_NUMBER_OF_COLUMNS : options.numberOfColumns;
+            var seed = options.seed == null ? new Random().nextLong() : options.seed;
+            grid = BitPackedGrid.randomSoup(numberOfRows, numberOfColumns, options.density, seed).toRepeatingGrid();
+        }
+        return options.rule == null ? grid : grid.withRule(options.rule);
+    }
 
-        while(true) {
-            Thread.sleep(iterationInterval);
+    static RepeatingGrid centre(RepeatingGrid pattern, int numberOfRows, int numberOfColumns) {
+        if (numberOfRows < pattern.numberOfRows || numberOfColumns < pattern.numberOfColumns) {
+            throw new IllegalArgumentException(
+                    "The pattern (" + pattern.numberOfRows + "x" + pattern.numberOfColumns + ") doesn't fit on the board (" + numberOfRows + "x" + numberOfColumns + ")"
+            );
+        }
+        var rowOffset = (numberOfRows - pattern.numberOfRows) / 2;
+        var columnOffset = (numberOfColumns - pattern.numberOfColumns) / 2;
+        var generation = new LongCellSet(Math.toIntExact(pattern.getPopulation()));
+        pattern.generation.forEach(packed -> generation.add(Cell.pack(
+                Math.floorMod(Cell.rowIndexOf(packed), pattern.numberOfRows) + rowOffset,
+                Math.floorMod(Cell.columnIndexOf(packed), pattern.numberOfColumns) + columnOffset
+        )));
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation, pattern.getRule());
+    }
 
-            // Redraw the grid by moving the cursor up a couple of lines.
-            // Two extra, because of the header and the footer:
-            System.out.printf("\033[%dF", numberOfRows + 2);
+    /**
+     * Computes the given number of generations as fast as possible (without
+     * rendering anything), and prints how fast that went. Returns the last
+     * generation.
+     */
+    static Grid runHeadless(
+            Grid grid,
+            long generationNumber,
+            int numberOfRows,
+            int numberOfColumns,
+            Rule rule,
+            long numberOfGenerations,
+            SimulationMetrics metrics,
+            Checkpointer checkpointer,
+            PrintStream out
+    ) {
+        // Counted here rather than taken from the metrics, which may well
+        // be disabled:
+        var numberOfEngineSwitches = 0L;
+        var totalEngineSwitchNanos = 0L;
+        // The metrics only keep those of the last generation:
+        var numberOfBirths = 0L;
+        var numberOfDeaths = 0L;
 
-            grid = grid.getNextIteration();
+        var start = System.nanoTime();
+        for (var count = 0L; count < numberOfGenerations; count++) {
+            grid = metrics.step(grid, Grid::getNextIteration);
+            generationNumber++;
+            if (metrics.isEnabled()) {
+                numberOfBirths += metrics.getNumberOfBirths();
+                numberOfDeaths += metrics.getNumberOfDeaths();
+            }
+            if (grid instanceof AdaptiveGrid adaptiveGrid && adaptiveGrid.hasSwitchedEngine()) {
+                numberOfEngineSwitches++;
+                totalEngineSwitchNanos += adaptiveGrid.getEngineSwitchNanos();
+            }
+            if (checkpointer != null) {
+                checkpointer.offer(grid, numberOfRows, numberOfColumns, rule, generationNumber);
+            }
+        }
+        var elapsedNanos = Math.max(System.nanoTime() - start, 1);
 
-            System.out.print(RepeatingGridWriter.write(grid));
+        var elapsedSeconds = elapsedNanos / 1e9;
+        var generationsPerSecond = numberOfGenerations / elapsedSeconds;
+        var cellUpdatesPerSecond = generationsPerSecond * numberOfRows * numberOfColumns;
+        out.printf("Generations:             %d (up to generation %d)%n", numberOfGenerations, generationNumber);
+        out.printf("Board:                   %d x %d%n", numberOfRows, numberOfColumns);
+        out.printf("Time:                    %.3f s%n", elapsedSeconds);
+        out.printf("Generations per second:  %.1f%n", generationsPerSecond);
+        out.printf("Cell updates per second: %.4g%n", cellUpdatesPerSecond);
+        out.printf("Population:              %d%n", grid.getPopulation());
+        if (grid instanceof AdaptiveGrid adaptiveGrid) {
+            out.printf("Engine:                  %s%n", adaptiveGrid.getEngine());
+        }
+        if (metrics.isEnabled()) {
+            out.printf("Births:                  %d%n", numberOfBirths);
+            out.printf("Deaths:                  %d%n", numberOfDeaths);
+        }
+        if (numberOfEngineSwitches > 0) {
+            out.printf("Engine switches:         %d (%.3f ms in total)%n", numberOfEngineSwitches, totalEngineSwitchNanos / 1e6);
         }
+        return grid;
     }
 }
@@ -0,0 +1,44 @@
+package nl.wernerdegroot.gameoflife;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for every generation that is computed by way of
+ * {@link SimulationMetrics}. Its duration is the time it took to compute
+ * the generation. Record with, for example:
+ * <pre>
+ * java -XX:StartFlightRecording:filename=recording.jfr ...
+ * </pre>
+ */
+@Name("nl.wernerdegroot.gameoflife.Generation")
+@Label("Generation")
+@Category("Game of Life")
+@Description("Computing the next generation of a grid")
+@StackTrace(false)
+class GenerationEvent extends Event {
+
+    @Label("Generation")
+    long generation;
+
+    @Label("Population")
+    long population;
+
+    @Label("Births")
+    long births;
+
+    @Label("Deaths")
+    long deaths;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Engine")
+    @Description("The engine of an adaptive grid")
+    String engine;
+
+    @Label("Engine Switch")
+    @Description("Time it took an adaptive grid to switch to a different engine")
+    @Timespan
+    long engineSwitchNanos;
+}
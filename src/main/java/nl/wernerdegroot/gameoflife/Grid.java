@@ -0,0 +1,46 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+
+/**
+ * A single generation of live cells, that knows how to compute the
+ * next generation.
+ * <p>
+ * Implementations differ in how they store the live cells and in what
+ * happens at the edges: {@link RepeatingGrid} and {@link BitPackedGrid}
+ * wrap around, {@link UnboundedGrid} doesn't have any edges at all.
+ */
+public interface Grid {
+
+    boolean isAlive(int rowIndex, int columnIndex);
+
+    default boolean isDead(int rowIndex, int columnIndex) {
+        return !isAlive(rowIndex, columnIndex);
+    }
+
+    long getPopulation();
+
+    /**
+     * Copies the first {@code numberOfColumns} cells of a row into
+     * {@code bits}: bit {@code j} of {@code bits[i]} is set when the cell
+     * in column {@code 64 * i + j} is alive. Meant for reading a grid row
+     * by row, without a call to {@link #isAlive(int, int)} for every cell.
+     */
+    default void getRow(int rowIndex, int numberOfColumns, long[] bits) {
+        Arrays.fill(bits, 0, (numberOfColumns + 63) >>> 6, 0L);
+        for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+            if (isAlive(rowIndex, columnIndex)) {
+                bits[columnIndex >>> 6] |= 1L << columnIndex;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cells that are alive in this generation, but
+     * were dead in the previous one. The number of cells that died follows
+     * from that and the population of both generations.
+     */
+    long getNumberOfBirthsSince(Grid previous);
+
+    Grid getNextIteration();
+}
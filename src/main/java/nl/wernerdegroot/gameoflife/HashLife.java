@@ -0,0 +1,495 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gosper's HashLife algorithm, for fast-forwarding patterns very far into
+ * the future.
+ * <p>
+ * The plane is represented as a quadtree. A node of level {@code k} is a
+ * square of {@code 2^k} by {@code 2^k} cells, made up of four nodes of
+ * level {@code k - 1}. Nodes are "hash-consed": two nodes with the same
+ * contents are always the same object. That makes the tree very compact
+ * for regular patterns, and it makes it possible to remember the result
+ * of every node: the centre of the node, {@code 2^(k - 2)} generations
+ * into the future.
+ * <p>
+ * Note that, unlike {@link RepeatingGrid}, this class simulates the
+ * infinite plane. When converting back to a {@link RepeatingGrid}, the
+ * result matches the torus only as long as the pattern didn't reach
+ * the edges of that torus.
+ * <p>
+ * The nodes are kept in a cache that is bounded (softly) by a maximum
+ * number of nodes. When the cache fills up, all nodes that are no longer
+ * reachable from the current generation are discarded between two steps.
+ */
+public class HashLife {
+
+    public static final int DEFAULT_MAXIMUM_NUMBER_OF_NODES = 1 << 22;
+
+    // Jumps are decomposed into steps of 2^j generations. For each of those
+    // steps, the tree needs to be at least j + 3 levels deep. We need to
+    // stay well below 64 levels to be able to address cells with a `long`.
+    private static final int MAXIMUM_LEVEL = 60;
+
+    static final class Node {
+
+        final int level;
+        final Node nw;
+        final Node ne;
+        final Node sw;
+        final Node se;
+        final long population;
+        final long id;
+
+        // Next node in the same bucket of the cache:
+        Node next;
+
+        // The centre of this node, 2^(level - 2) generations later:
+        Node result;
+
+        // The centre of this node, 2^partialExponent generations later:
+        Node partialResult;
+        int partialExponent = -1;
+
+        // Used when collecting garbage:
+        long mark;
+
+        Node(int level, Node nw, Node ne, Node sw, Node se, long population, long id) {
+            this.level = level;
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            this.population = population;
+            this.id = id;
+        }
+    }
+
+    private final Node dead = new Node(0, null, null, null, null, 0, 0);
+    private final Node alive = new Node(0, null, null, null, null, 1, 1);
+
+    private final int maximumNumberOfNodes;
+    private final List<Node> emptyNodes = new ArrayList<>();
+
+    private Node[] buckets = new Node[1 << 10];
+    private int numberOfNodes = 0;
+    private long nextId = 2;
+    private long currentMark = 0;
+
+    private Node root;
+    private long generation = 0;
+
+    public HashLife() {
+        this(DEFAULT_MAXIMUM_NUMBER_OF_NODES);
+    }
+
+    public HashLife(int maximumNumberOfNodes) {
+        this.maximumNumberOfNodes = maximumNumberOfNodes;
+        this.root = empty(3);
+    }
+
+    /**
+     * Places the live cells of a {@link RepeatingGrid} on the infinite plane,
+     * keeping their coordinates. Only Conway's rule is supported.
+     */
+    public static HashLife from(RepeatingGrid grid) {
+        return from(grid, DEFAULT_MAXIMUM_NUMBER_OF_NODES);
+    }
+
+    public static HashLife from(RepeatingGrid grid, int maximumNumberOfNodes) {
+        if (!grid.getRule().equals(Rule.CONWAY)) {
+            throw new IllegalArgumentException("HashLife only supports " + Rule.CONWAY + ", not " + grid.getRule());
+        }
+        var hashLife = new HashLife(maximumNumberOfNodes);
+        grid.generation.forEach(packed -> hashLife.setAlive(Cell.rowIndexOf(packed), Cell.columnIndexOf(packed)));
+        return hashLife;
+    }
+
+    /**
+     * The part of the plane that is covered by the given {@link RepeatingGrid}
+     * dimensions, with the origin in the top-left corner.
+     * <p>
+     * Only visits the parts of the tree that overlap with that area, so the
+     * rest of the plane can be arbitrarily large (and crowded).
+     */
+    public RepeatingGrid toRepeatingGrid(int numberOfRows, int numberOfColumns) {
+        var generation = new LongCellSet();
+        var halfSize = 1L << (root.level - 1);
+        collectLiveCells(root, -halfSize, -halfSize, numberOfRows, numberOfColumns, generation);
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    }
+
+    /**
+     * All live cells on the plane. Fails with an {@link ArithmeticException}
+     * when one of them is out of the range of an {@code int}; use
+     * {@link #toRepeatingGrid(int, int)} or {@link #isAlive(long, long)} for
+     * patterns that have travelled that far.
+     */
+    public Set<Cell> getLiveCells() {
+        Set<Cell> liveCells = new HashSet<>();
+        var halfSize = 1L << (root.level - 1);
+        collectLiveCells(root, -halfSize, -halfSize, liveCells);
+        return liveCells;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getPopulation() {
+        return root.population;
+    }
+
+    int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public boolean isAlive(long rowIndex, long columnIndex) {
+        var halfSize = 1L << (root.level - 1);
+        if (rowIndex < -halfSize || rowIndex >= halfSize || columnIndex < -halfSize || columnIndex >= halfSize) {
+            return false;
+        }
+
+        var node = root;
+        var top = -halfSize;
+        var left = -halfSize;
+        while (node.level > 0 && node.population > 0) {
+            var half = 1L << (node.level - 1);
+            var south = rowIndex >= top + half;
+            var east = columnIndex >= left + half;
+            node = south
+                    ? (east ? node.se : node.sw)
+                    : (east ? node.ne : node.nw);
+            top += south ? half : 0;
+            left += east ? half : 0;
+        }
+        return node == alive;
+    }
+
+    public void setAlive(long rowIndex, long columnIndex) {
+        while (!covers(root, rowIndex, columnIndex)) {
+            root = expand(root);
+        }
+        var halfSize = 1L << (root.level - 1);
+        root = setAlive(root, -halfSize, -halfSize, rowIndex, columnIndex);
+    }
+
+    /**
+     * Advances the pattern by the given number of generations. The jump is
+     * split up in steps of a power of two (one for every bit that is set in
+     * {@code generations}).
+     */
+    public void jump(long generations) {
+        if (generations < 0 || generations >= 1L << (MAXIMUM_LEVEL - 3)) {
+            throw new IllegalArgumentException("Can't jump " + generations + " generations");
+        }
+        for (var exponent = 0; exponent < Long.SIZE; exponent++) {
+            if ((generations & (1L << exponent)) != 0) {
+                advanceByPowerOfTwo(exponent);
+            }
+        }
+    }
+
+    private void advanceByPowerOfTwo(int exponent) {
+        // Make sure there's enough empty space around the pattern for it to
+        // grow into. The pattern can't grow faster than the speed of light
+        // (one cell per generation).
+        while (root.level < exponent + 3 || !isCentered(root)) {
+            root = expand(root);
+        }
+        root = successor(root, exponent);
+        generation += 1L << exponent;
+
+        if (numberOfNodes > maximumNumberOfNodes) {
+            collectGarbage();
+        }
+    }
+
+    private Node successor(Node node, int exponent) {
+        if (node.population == 0) {
+            return empty(node.level - 1);
+        }
+
+        var clampedExponent = Math.min(exponent, node.level - 2);
+        if (clampedExponent == node.level - 2 && node.result != null) {
+            return node.result;
+        }
+        if (clampedExponent == node.partialExponent) {
+            return node.partialResult;
+        }
+
+        Node result;
+        if (node.level == 2) {
+            result = successorOf4x4(node);
+        } else {
+            var n00 = successor(node.nw, clampedExponent);
+            var n01 = successor(join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw), clampedExponent);
+            var n02 = successor(node.ne, clampedExponent);
+            var n10 = successor(join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne), clampedExponent);
+            var n11 = successor(join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw), clampedExponent);
+            var n12 = successor(join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne), clampedExponent);
+            var n20 = successor(node.sw, clampedExponent);
+            var n21 = successor(join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw), clampedExponent);
+            var n22 = successor(node.se, clampedExponent);
+
+            if (clampedExponent < node.level - 2) {
+                // The nine nodes above are already far enough into the future.
+                // All that's left to do is to take their centres.
+                result = join(
+                        join(n00.se, n01.sw, n10.ne, n11.nw),
+                        join(n01.se, n02.sw, n11.ne, n12.nw),
+                        join(n10.se, n11.sw, n20.ne, n21.nw),
+                        join(n11.se, n12.sw, n21.ne, n22.nw)
+                );
+            } else {
+                result = join(
+                        successor(join(n00, n01, n10, n11), clampedExponent),
+                        successor(join(n01, n02, n11, n12), clampedExponent),
+                        successor(join(n10, n11, n20, n21), clampedExponent),
+                        successor(join(n11, n12, n21, n22), clampedExponent)
+                );
+            }
+        }
+
+        if (clampedExponent == node.level - 2) {
+            node.result = result;
+        } else {
+            node.partialResult = result;
+            node.partialExponent = clampedExponent;
+        }
+        return result;
+    }
+
+    /**
+     * The base case: a node of 4 by 4 cells, for which we determine the
+     * centre 2 by 2 cells one generation later by simply counting.
+     */
+    private Node successorOf4x4(Node node) {
+        var cells = new boolean[4][4];
+        fill(node, 0, 0, cells);
+        return join(
+                nextCell(cells, 1, 1),
+                nextCell(cells, 1, 2),
+                nextCell(cells, 2, 1),
+                nextCell(cells, 2, 2)
+        );
+    }
+
+    private void fill(Node node, int top, int left, boolean[][] cells) {
+        if (node.level == 0) {
+            cells[top][left] = node == alive;
+        } else {
+            var half = 1 << (node.level - 1);
+            fill(node.nw, top, left, cells);
+            fill(node.ne, top, left + half, cells);
+            fill(node.sw, top + half, left, cells);
+            fill(node.se, top + half, left + half, cells);
+        }
+    }
+
+    private Node nextCell(boolean[][] cells, int rowIndex, int columnIndex) {
+        var numberOfLiveNeighbours = 0;
+        for (var row = rowIndex - 1; row <= rowIndex + 1; row++) {
+            for (var column = columnIndex - 1; column <= columnIndex + 1; column++) {
+                if ((row != rowIndex || column != columnIndex) && cells[row][column]) {
+                    numberOfLiveNeighbours++;
+                }
+            }
+        }
+        var isAlive = cells[rowIndex][columnIndex];
+        return numberOfLiveNeighbours == 3 || (isAlive && numberOfLiveNeighbours == 2) ? alive : dead;
+    }
+
+    /**
+     * Whether all live cells of the node are in its centre quarter.
+     */
+    private boolean isCentered(Node node) {
+        var centreQuarterPopulation = node.nw.se.se.population
+                                      + node.ne.sw.sw.population
+                                      + node.sw.ne.ne.population
+                                      + node.se.nw.nw.population;
+        return centreQuarterPopulation == node.population;
+    }
+
+    /**
+     * Wraps a node in a node that is twice as large, keeping it centred.
+     */
+    private Node expand(Node node) {
+        if (node.level + 1 > MAXIMUM_LEVEL) {
+            throw new IllegalStateException("Pattern has grown too large");
+        }
+        var border = empty(node.level - 1);
+        return join(
+                join(border, border, border, node.nw),
+                join(border, border, node.ne, border),
+                join(border, node.sw, border, border),
+                join(node.se, border, border, border)
+        );
+    }
+
+    private boolean covers(Node node, long rowIndex, long columnIndex) {
+        var halfSize = 1L << (node.level - 1);
+        return -halfSize <= rowIndex && rowIndex < halfSize && -halfSize <= columnIndex && columnIndex < halfSize;
+    }
+
+    private Node setAlive(Node node, long top, long left, long rowIndex, long columnIndex) {
+        if (node.level == 0) {
+            return alive;
+        }
+        var half = 1L << (node.level - 1);
+        var south = rowIndex >= top + half;
+        var east = columnIndex >= left + half;
+        var childTop = south ? top + half : top;
+        var childLeft = east ? left + half : left;
+        if (south) {
+            return east
+                    ? join(node.nw, node.ne, node.sw, setAlive(node.se, childTop, childLeft, rowIndex, columnIndex))
+                    : join(node.nw, node.ne, setAlive(node.sw, childTop, childLeft, rowIndex, columnIndex), node.se);
+        } else {
+            return east
+                    ? join(node.nw, setAlive(node.ne, childTop, childLeft, rowIndex, columnIndex), node.sw, node.se)
+                    : join(setAlive(node.nw, childTop, childLeft, rowIndex, columnIndex), node.ne, node.sw, node.se);
+        }
+    }
+
+    private void collectLiveCells(Node node, long top, long left, Set<Cell> liveCells) {
+        if (node.population == 0) {
+            return;
+        }
+        if (node.level == 0) {
+            liveCells.add(new Cell(Math.toIntExact(top), Math.toIntExact(left)));
+            return;
+        }
+        var half = 1L << (node.level - 1);
+        collectLiveCells(node.nw, top, left, liveCells);
+        collectLiveCells(node.ne, top, left + half, liveCells);
+        collectLiveCells(node.sw, top + half, left, liveCells);
+        collectLiveCells(node.se, top + half, left + half, liveCells);
+    }
+
+    private void collectLiveCells(Node node, long top, long left, int numberOfRows, int numberOfColumns, LongCellSet liveCells) {
+        var size = 1L << node.level;
+        if (node.population == 0 || top >= numberOfRows || left >= numberOfColumns || top + size <= 0 || left + size <= 0) {
+            return;
+        }
+        if (node.level == 0) {
+            // Inside the area, so the coordinates fit in an `int`:
+            liveCells.add(Cell.pack((int) top, (int) left));
+            return;
+        }
+        var half = size >>> 1;
+        collectLiveCells(node.nw, top, left, numberOfRows, numberOfColumns, liveCells);
+        collectLiveCells(node.ne, top, left + half, numberOfRows, numberOfColumns, liveCells);
+        collectLiveCells(node.sw, top + half, left, numberOfRows, numberOfColumns, liveCells);
+        collectLiveCells(node.se, top + half, left + half, numberOfRows, numberOfColumns, liveCells);
+    }
+
+    private Node empty(int level) {
+        while (emptyNodes.size() <= level) {
+            var size = emptyNodes.size();
+            if (size == 0) {
+                emptyNodes.add(dead);
+            } else {
+                var smaller = emptyNodes.get(size - 1);
+                emptyNodes.add(join(smaller, smaller, smaller, smaller));
+            }
+        }
+        return emptyNodes.get(level);
+    }
+
+    /**
+     * Returns the (one and only) node with the given children.
+     */
+    Node join(Node nw, Node ne, Node sw, Node se) {
+        var hash = hash(nw, ne, sw, se);
+        var bucketIndex = hash & (buckets.length - 1);
+        for (var node = buckets[bucketIndex]; node != null; node = node.next) {
+            if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+                return node;
+            }
+        }
+
+        var population = nw.population + ne.population + sw.population + se.population;
+        var node = new Node(nw.level + 1, nw, ne, sw, se, population, nextId++);
+        node.next = buckets[bucketIndex];
+        buckets[bucketIndex] = node;
+        numberOfNodes++;
+
+        if (numberOfNodes > buckets.length - (buckets.length >>> 2)) {
+            rehash(buckets.length << 1, false);
+        }
+        return node;
+    }
+
+    private static int hash(Node nw, Node ne, Node sw, Node se) {
+        var hash = nw.id;
+        hash = hash * 0x9E3779B97F4A7C15L + ne.id;
+        hash = hash * 0x9E3779B97F4A7C15L + sw.id;
+        hash = hash * 0x9E3779B97F4A7C15L + se.id;
+        hash ^= hash >>> 29;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void rehash(int numberOfBuckets, boolean onlyMarked) {
+        var newBuckets = new Node[numberOfBuckets];
+        for (var bucket : buckets) {
+            var node = bucket;
+            while (node != null) {
+                var next = node.next;
+                if (!onlyMarked || node.mark == currentMark) {
+                    var bucketIndex = hash(node.nw, node.ne, node.sw, node.se) & (numberOfBuckets - 1);
+                    node.next = newBuckets[bucketIndex];
+                    newBuckets[bucketIndex] = node;
+                }
+                node = next;
+            }
+        }
+        buckets = newBuckets;
+    }
+
+    /**
+     * Discards all nodes that can't be reached from the current generation.
+     * Memoised results pointing to discarded nodes are forgotten.
+     */
+    void collectGarbage() {
+        currentMark++;
+        mark(root);
+        for (var emptyNode : emptyNodes) {
+            mark(emptyNode);
+        }
+
+        numberOfNodes = 0;
+        for (var bucket : buckets) {
+            for (var node = bucket; node != null; node = node.next) {
+                if (node.mark == currentMark) {
+                    numberOfNodes++;
+                    if (node.result != null && node.result.mark != currentMark) {
+                        node.result = null;
+                    }
+                    if (node.partialResult != null && node.partialResult.mark != currentMark) {
+                        node.partialResult = null;
+                        node.partialExponent = -1;
+                    }
+                }
+            }
+        }
+
+        // Rebuilding the table is what actually drops the unreachable nodes:
+        rehash(buckets.length, true);
+    }
+
+    private void mark(Node node) {
+        if (node.mark == currentMark || node.level == 0) {
+            return;
+        }
+        node.mark = currentMark;
+        mark(node.nw);
+        mark(node.ne);
+        mark(node.sw);
+        mark(node.se);
+    }
+}
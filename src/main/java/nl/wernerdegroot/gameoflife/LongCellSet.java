@@ -0,0 +1,284 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * A set of cells, where every cell is packed into a {@code long} (see
+ * {@link Cell#pack(int, int)}).
+ * <p>
+ * A {@code HashSet<Cell>} needs a {@code Cell}, a {@code HashMap.Node} and
+ * a slot in the table for every live cell (easily more than 48 bytes).
+ * This set stores the packed cells directly in a {@code long[]} using open
+ * addressing with linear probing. The table doesn't need to have a size
+ * that is a power of two, so a set that is created with the number of
+ * cells it is going to hold (or that is compacted with
+ * {@link #compactCopy()}) takes less than 10 bytes per cell.
+ * <p>
+ * When computing generation after generation, the same set can be
+ * {@link #clear() cleared} and filled again without allocating anything.
+ */
+final class LongCellSet {
+
+    static final float LOAD_FACTOR = 0.85f;
+
+    // We use `0` to mark a free slot in the table. That means that we
+    // need to keep track of the (perfectly valid) cell `0` separately:
+    private static final long FREE = 0L;
+
+    private long[] table;
+    private boolean containsFree;
+    private int size;
+    private int maximumSize;
+
+    LongCellSet() {
+        this(16);
+    }
+
+    LongCellSet(int expectedSize) {
+        allocate(getCapacityFor(expectedSize));
+    }
+
+    static LongCellSet of(long... cells) {
+        var result = new LongCellSet(cells.length);
+        for (var cell : cells) {
+            result.add(cell);
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(long cell) {
+        if (cell == FREE) {
+            return containsFree;
+        }
+        var table = this.table;
+        var index = indexOf(cell, table.length);
+        while (true) {
+            var current = table[index];
+            if (current == cell) {
+                return true;
+            }
+            if (current == FREE) {
+                return false;
+            }
+            index = next(index, table.length);
+        }
+    }
+
+    /**
+     * Returns {@code true} when the cell wasn't in this set yet.
+     */
+    boolean add(long cell) {
+        if (cell == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        var index = indexOf(cell, table.length);
+        while (true) {
+            var current = table[index];
+            if (current == cell) {
+                return false;
+            }
+            if (current == FREE) {
+                table[index] = cell;
+                if (++size > maximumSize) {
+                    resize(table.length * 2);
+                }
+                return true;
+            }
+            index = next(index, table.length);
+        }
+    }
+
+    /**
+     * Removes all cells, but keeps the table (and thereby the capacity)
+     * around to be reused.
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(table, FREE);
+            containsFree = false;
+            size = 0;
+        }
+    }
+
+    void forEach(LongConsumer consumer) {
+        if (containsFree) {
+            consumer.accept(FREE);
+        }
+        for (var cell : table) {
+            if (cell != FREE) {
+                consumer.accept(cell);
+            }
+        }
+    }
+
+    /**
+     * The number of cells in this set that match the predicate.
+     */
+    int count(LongPredicate predicate) {
+        var count = containsFree && predicate.test(FREE) ? 1 : 0;
+        for (var cell : table) {
+            if (cell != FREE && predicate.test(cell)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A copy with the smallest table that still respects the load factor.
+     */
+    LongCellSet compactCopy() {
+        var result = new LongCellSet(size);
+        if (containsFree) {
+            result.add(FREE);
+        }
+        for (var cell : table) {
+            if (cell != FREE) {
+                result.insertUnique(cell);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a cell that is known not to be in this set yet, and for which
+     * there's enough room. Saves a couple of comparisons while copying.
+     */
+    private void insertUnique(long cell) {
+        var index = indexOf(cell, table.length);
+        while (table[index] != FREE) {
+            index = next(index, table.length);
+        }
+        table[index] = cell;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        var oldTable = table;
+        allocate(capacity);
+        size = containsFree ? 1 : 0;
+        for (var cell : oldTable) {
+            if (cell != FREE) {
+                insertUnique(cell);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        maximumSize = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int getCapacityFor(int expectedSize) {
+        return Math.max(4, (int) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1);
+    }
+
+    /**
+     * Scrambles the cell (neighbouring cells are very similar), and maps
+     * the result onto the table by multiplying instead of taking the
+     * remainder (see Lemire's "fast range" reduction).
+     */
+    private static int indexOf(long cell, int capacity) {
+        var hash = mix(cell);
+        return (int) (((hash >>> 32) * capacity) >>> 32);
+    }
+
+    private static int next(int index, int capacity) {
+        return ++index == capacity ? 0 : index;
+    }
+
+    /**
+     * The Zobrist hash of the cells in this set: the exclusive or of the
+     * {@link #zobristKeyOf(long) keys} of all of them. Because the keys are
+     * combined with exclusive or, the hash of a set that differs in a few
+     * cells can be derived by flipping just the keys of those cells.
+     */
+    long zobristHash() {
+        var hash = containsFree ? zobristKeyOf(FREE) : 0L;
+        for (var cell : table) {
+            if (cell != FREE) {
+                hash ^= zobristKeyOf(cell);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A pseudo-random 64-bit key for a cell. Classic Zobrist hashing draws
+     * these from a random number generator and keeps them in a table, but
+     * that doesn't work for grids of arbitrary size. Instead, we compute
+     * them with the (bijective) SplitMix64 finalizer, so every cell gets
+     * its own key.
+     */
+    static long zobristKeyOf(long cell) {
+        var key = cell + 0x9E3779B97F4A7C15L;
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    static long mix(long cell) {
+        var hash = cell * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return hash ^ (hash >>> 29);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        LongCellSet that = (LongCellSet) o;
+        if (size != that.size || containsFree != that.containsFree) {
+            return false;
+        }
+        for (var cell : table) {
+            if (cell != FREE && !that.contains(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Independent of the order of the cells in the table:
+        var hash = containsFree ? mix(FREE) : 0L;
+        for (var cell : table) {
+            if (cell != FREE) {
+                hash += mix(cell);
+            }
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        var result = new StringBuilder("[");
+        forEach(cell -> {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(Cell.unpack(cell));
+        });
+        return result.append(']').toString();
+    }
+}
@@ -0,0 +1,176 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code long} to {@code long}, without boxing either of them.
+ * <p>
+ * Like {@link LongCellSet}, the keys are stored in a {@code long[]} using
+ * open addressing with linear probing (and the values in a second array,
+ * at the same index). Unlike {@link LongCellSet}, keys can be removed:
+ * the keys after a removed one are shifted back, so a lookup never has to
+ * skip over "tombstones".
+ * <p>
+ * The keys are expected to be hashes already, so they're not scrambled
+ * any further.
+ */
+final class LongLongMap {
+
+    static final float LOAD_FACTOR = 0.75f;
+
+    // We use `0` to mark a free slot in the table. That means that we
+    // need to keep track of the (perfectly valid) key `0` separately:
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private boolean containsFree;
+    private long valueOfFree;
+    private int size;
+    private int maximumSize;
+
+    LongLongMap() {
+        this(16);
+    }
+
+    LongLongMap(int expectedSize) {
+        allocate(getCapacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code missing} when there's no value for the key.
+     */
+    long get(long key, long missing) {
+        if (key == FREE) {
+            return containsFree ? valueOfFree : missing;
+        }
+        var mask = keys.length - 1;
+        var index = indexOf(key, mask);
+        while (true) {
+            var current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == FREE) {
+                return missing;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    void put(long key, long value) {
+        if (key == FREE) {
+            if (!containsFree) {
+                containsFree = true;
+                size++;
+            }
+            valueOfFree = value;
+            return;
+        }
+        var mask = keys.length - 1;
+        var index = indexOf(key, mask);
+        while (true) {
+            var current = keys[index];
+            if (current == key) {
+                values[index] = value;
+                return;
+            }
+            if (current == FREE) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > maximumSize) {
+                    resize(keys.length * 2);
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    void remove(long key) {
+        if (key == FREE) {
+            if (containsFree) {
+                containsFree = false;
+                size--;
+            }
+            return;
+        }
+        var mask = keys.length - 1;
+        var index = indexOf(key, mask);
+        while (keys[index] != key) {
+            if (keys[index] == FREE) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        size--;
+
+        // Shift back every key after it that would otherwise no longer be
+        // found (because its probe sequence passes the slot that's free now):
+        var free = index;
+        var current = (free + 1) & mask;
+        while (keys[current] != FREE) {
+            var home = indexOf(keys[current], mask);
+            var distanceToCurrent = (current - home) & mask;
+            var distanceToFree = (free - home) & mask;
+            if (distanceToFree < distanceToCurrent) {
+                keys[free] = keys[current];
+                values[free] = values[current];
+                free = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[free] = FREE;
+    }
+
+    /**
+     * Removes all keys, but keeps the table around to be reused.
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            containsFree = false;
+            size = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+        var mask = capacity - 1;
+        for (var oldIndex = 0; oldIndex < oldKeys.length; oldIndex++) {
+            var key = oldKeys[oldIndex];
+            if (key != FREE) {
+                var index = indexOf(key, mask);
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[oldIndex];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        maximumSize = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int getCapacityFor(int expectedSize) {
+        var capacity = Math.max(4, (int) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1);
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * The keys are hashes, so their top bits are as good as any.
+     */
+    private static int indexOf(long key, int mask) {
+        return (int) (key >>> 32) & mask;
+    }
+}
@@ -0,0 +1,262 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A grid that computes the next generation two by two cells at a time,
+ * by looking it up in a table.
+ * <p>
+ * The next generation of a block of 2x2 cells only depends on the 4x4
+ * cells around it (the block itself, and a border of one cell). These 16
+ * cells form a 16 bit number, so all 65,536 possibilities fit in a table
+ * of 64 KB. Every entry holds the next generation of the 2x2 cells in the
+ * center, in 4 bits:
+ * <pre>
+ * index: bit 4 * i + j is the cell in row i, column j of the 4x4 block
+ * entry: bit 2 * i + j is the cell in row i + 1, column j + 1 of the 4x4 block
+ * </pre>
+ * The table is computed once per {@link Rule} (and then shared). Computing
+ * a generation then takes a single lookup per 4 cells, rather than adding
+ * up 8 neighbours per cell.
+ * <p>
+ * Cells are stored in the same way as in {@link BitPackedGrid}, and the
+ * grid wraps around in the same way. To make the 4x4 blocks along the
+ * edges easy to read, every row is first copied into a "padded" row, with
+ * the last column in front and the first two columns at the end. When the
+ * number of rows or columns is odd, the blocks along the bottom or right
+ * edge stick out of the grid; the cells that stick out are not written.
+ */
+public class LookupTableGrid implements Grid {
+
+    private static final Map<Rule, byte[]> TABLES = new ConcurrentHashMap<>();
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final int wordsPerRow;
+    final long[] words;
+    final Rule rule;
+    private final byte[] table;
+
+    LookupTableGrid(int numberOfRows, int numberOfColumns, long[] words, Rule rule) {
+        if (rule.isBornWithoutNeighbours()) {
+            throw new IllegalArgumentException("Rules with B0 are not supported: " + rule);
+        }
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        this.words = words;
+        this.rule = rule;
+        this.table = TABLES.computeIfAbsent(rule, LookupTableGrid::createTable);
+    }
+
+    public static LookupTableGrid from(BitPackedGrid grid) {
+        // Both are immutable, so they can share their words:
+        return new LookupTableGrid(grid.numberOfRows, grid.numberOfColumns, grid.words, grid.rule);
+    }
+
+    public static LookupTableGrid from(RepeatingGrid grid) {
+        return from(BitPackedGrid.from(grid));
+    }
+
+    public BitPackedGrid toBitPackedGrid() {
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, RowKernel.scalar(), null, null);
+    }
+
+    public RepeatingGrid toRepeatingGrid() {
+        return toBitPackedGrid().toRepeatingGrid();
+    }
+
+    public LookupTableGrid withRule(Rule rule) {
+        return new LookupTableGrid(numberOfRows, numberOfColumns, words, rule);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    static byte[] createTable(Rule rule) {
+        var table = new byte[1 << 16];
+        for (var block = 0; block < table.length; block++) {
+            var entry = 0;
+            for (var rowIndex = 1; rowIndex <= 2; rowIndex++) {
+                for (var columnIndex = 1; columnIndex <= 2; columnIndex++) {
+                    var numberOfLiveNeighbours = 0;
+                    for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                        for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                            if (rowOffset != 0 || columnOffset != 0) {
+                                numberOfLiveNeighbours += (block >>> (4 * (rowIndex + rowOffset) + columnIndex + columnOffset)) & 1;
+                            }
+                        }
+                    }
+                    var isAlive = ((block >>> (4 * rowIndex + columnIndex)) & 1) != 0;
+                    if (rule.isAliveInNextGeneration(isAlive, numberOfLiveNeighbours)) {
+                        entry |= 1 << (2 * (rowIndex - 1) + columnIndex - 1);
+                    }
+                }
+            }
+            table[block] = (byte) entry;
+        }
+        return table;
+    }
+
+    @Override
+    public boolean isAlive(int rowIndex, int columnIndex) {
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        var column = Math.floorMod(columnIndex, numberOfColumns);
+        return (words[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public void getRow(int rowIndex, int numberOfColumns, long[] bits) {
+        if (numberOfColumns != this.numberOfColumns) {
+            Grid.super.getRow(rowIndex, numberOfColumns, bits);
+            return;
+        }
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        System.arraycopy(words, row * wordsPerRow, bits, 0, wordsPerRow);
+    }
+
+    @Override
+    public long getPopulation() {
+        var population = 0L;
+        for (var word : words) {
+            population += Long.bitCount(word);
+        }
+        return population;
+    }
+
+    @Override
+    public long getNumberOfBirthsSince(Grid previous) {
+        if (previous instanceof LookupTableGrid that && that.numberOfRows == numberOfRows && that.numberOfColumns == numberOfColumns) {
+            var numberOfBirths = 0L;
+            for (var index = 0; index < words.length; index++) {
+                numberOfBirths += Long.bitCount(words[index] & ~that.words[index]);
+            }
+            return numberOfBirths;
+        }
+        return toBitPackedGrid().getNumberOfBirthsSince(previous);
+    }
+
+    /**
+     * Computes two rows at a time. The four padded rows that these depend
+     * on slide down two rows at a time, so every row is only padded once.
+     */
+    @Override
+    public LookupTableGrid getNextIteration() {
+        var nextWords = new long[words.length];
+        if (numberOfRows == 0 || numberOfColumns == 0) {
+            return new LookupTableGrid(numberOfRows, numberOfColumns, nextWords, rule);
+        }
+
+        var above = new long[wordsPerRow + 1];
+        var top = new long[wordsPerRow + 1];
+        var bottom = new long[wordsPerRow + 1];
+        var below = new long[wordsPerRow + 1];
+
+        pad(-1, above);
+        pad(0, top);
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex += 2) {
+            pad(rowIndex + 1, bottom);
+            pad(rowIndex + 2, below);
+
+            var hasBottomRow = rowIndex + 1 < numberOfRows;
+            var topOffset = rowIndex * wordsPerRow;
+            var bottomOffset = topOffset + wordsPerRow;
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex += 2) {
+                // Column `columnIndex - 1` is bit `columnIndex` of a padded row:
+                var block = nibbleAt(above, columnIndex)
+                            | nibbleAt(top, columnIndex) << 4
+                            | nibbleAt(bottom, columnIndex) << 8
+                            | nibbleAt(below, columnIndex) << 12;
+                long entry = table[block];
+                if (entry == 0) {
+                    continue;
+                }
+
+                // Both columns of a block are in the same word, because
+                // the block starts at an even column:
+                var wordIndex = columnIndex >>> 6;
+                var mask = columnIndex + 1 < numberOfColumns ? 0b11L : 0b01L;
+                nextWords[topOffset + wordIndex] |= (entry & mask) << columnIndex;
+                if (hasBottomRow) {
+                    nextWords[bottomOffset + wordIndex] |= ((entry >>> 2) & mask) << columnIndex;
+                }
+            }
+
+            // The bottom two rows of this block are the top two of the next:
+            var recycled = above;
+            above = bottom;
+            bottom = recycled;
+            recycled = top;
+            top = below;
+            below = recycled;
+        }
+
+        return new LookupTableGrid(numberOfRows, numberOfColumns, nextWords, rule);
+    }
+
+    /**
+     * Copies a (wrapped) row into {@code padded}, shifted one column to the
+     * right, with the last column in front and the first two columns after
+     * the last one. Bit {@code j} of the padded row is column {@code j - 1}.
+     */
+    private void pad(int rowIndex, long[] padded) {
+        var offset = Math.floorMod(rowIndex, numberOfRows) * wordsPerRow;
+        var carry = 0L;
+        for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+            var word = words[offset + wordIndex];
+            padded[wordIndex] = (word << 1) | carry;
+            carry = word >>> 63;
+        }
+        padded[wordsPerRow] = carry;
+
+        setBit(padded, 0, isAliveInRow(offset, numberOfColumns - 1));
+        setBit(padded, numberOfColumns + 1, isAliveInRow(offset, 0));
+        setBit(padded, numberOfColumns + 2, isAliveInRow(offset, 1 % numberOfColumns));
+    }
+
+    private boolean isAliveInRow(int offset, int columnIndex) {
+        return (words[offset + (columnIndex >>> 6)] & (1L << columnIndex)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * The 4 bits starting at bit {@code index}.
+     */
+    private static int nibbleAt(long[] bits, int index) {
+        var wordIndex = index >>> 6;
+        var shift = index & 63;
+        var nibble = bits[wordIndex] >>> shift;
+        if (shift > 60) {
+            nibble |= bits[wordIndex + 1] << (64 - shift);
+        }
+        return (int) nibble & 0xF;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        LookupTableGrid that = (LookupTableGrid) o;
+        return numberOfRows == that.numberOfRows && numberOfColumns == that.numberOfColumns && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * numberOfRows + numberOfColumns) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "LookupTableGrid{" +
+               "numberOfRows=" + numberOfRows +
+               ", numberOfColumns=" + numberOfColumns +
+               '}';
+    }
+}
@@ -0,0 +1,147 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Arrays;
+
+/**
+ * Tallies the number of live neighbours per cell, where every cell is
+ * packed into a {@code long} (see {@link Cell#pack(int, int)}).
+ * <p>
+ * Works just like {@link LongCellSet} (open addressing, linear probing),
+ * with a {@code byte} next to every cell to hold its count. A cell has
+ * at most 8 neighbours, so that's plenty.
+ */
+final class NeighbourCounts {
+
+    static final float LOAD_FACTOR = 0.75f;
+
+    private static final long FREE = 0L;
+
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long cell, int numberOfLiveNeighbours);
+    }
+
+    private long[] cells;
+    private byte[] counts;
+    private int countOfFree;
+    private int size;
+    private int maximumSize;
+
+    NeighbourCounts() {
+        this(16);
+    }
+
+    NeighbourCounts(int expectedSize) {
+        allocate(getCapacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of live neighbours of a cell (which is {@code 0}
+     * for cells that were never incremented).
+     */
+    int get(long cell) {
+        if (cell == FREE) {
+            return countOfFree;
+        }
+        var index = indexOf(cell, cells.length);
+        while (true) {
+            var current = cells[index];
+            if (current == cell) {
+                return counts[index];
+            }
+            if (current == FREE) {
+                return 0;
+            }
+            index = next(index, cells.length);
+        }
+    }
+
+    void increment(long cell) {
+        if (cell == FREE) {
+            if (countOfFree++ == 0) {
+                size++;
+            }
+            return;
+        }
+        var index = indexOf(cell, cells.length);
+        while (true) {
+            var current = cells[index];
+            if (current == cell) {
+                counts[index]++;
+                return;
+            }
+            if (current == FREE) {
+                cells[index] = cell;
+                counts[index] = 1;
+                if (++size > maximumSize) {
+                    resize(cells.length * 2);
+                }
+                return;
+            }
+            index = next(index, cells.length);
+        }
+    }
+
+    /**
+     * Removes all counts, but keeps the tables around to be reused.
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(cells, FREE);
+            countOfFree = 0;
+            size = 0;
+        }
+    }
+
+    void forEach(Consumer consumer) {
+        if (countOfFree > 0) {
+            consumer.accept(FREE, countOfFree);
+        }
+        for (var index = 0; index < cells.length; index++) {
+            var cell = cells[index];
+            if (cell != FREE) {
+                consumer.accept(cell, counts[index]);
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        var oldCells = cells;
+        var oldCounts = counts;
+        allocate(capacity);
+        for (var oldIndex = 0; oldIndex < oldCells.length; oldIndex++) {
+            var cell = oldCells[oldIndex];
+            if (cell != FREE) {
+                var index = indexOf(cell, capacity);
+                while (cells[index] != FREE) {
+                    index = next(index, capacity);
+                }
+                cells[index] = cell;
+                counts[index] = oldCounts[oldIndex];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        cells = new long[capacity];
+        counts = new byte[capacity];
+        maximumSize = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int getCapacityFor(int expectedSize) {
+        return Math.max(4, (int) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1);
+    }
+
+    private static int indexOf(long cell, int capacity) {
+        var hash = LongCellSet.mix(cell);
+        return (int) (((hash >>> 32) * capacity) >>> 32);
+    }
+
+    private static int next(int index, int capacity) {
+        return ++index == capacity ? 0 : index;
+    }
+}
@@ -0,0 +1,330 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A bit-packed grid (see {@link BitPackedGrid}) for boards that are too
+ * large for the Java heap, like 100,000 by 100,000 cells (1.25 GB per
+ * generation).
+ * <p>
+ * Unlike the other grids, this one is mutable (see {@link Simulator}). It
+ * owns two buffers outside the heap: one with the current generation, and
+ * one that the next generation is written to. After every {@link #step()},
+ * the two are swapped. The only memory that is allocated on the heap while
+ * stepping is a handful of rows per thread, so the garbage collector has
+ * nothing to do that grows with the size of the board.
+ * <p>
+ * The buffers are either direct buffers (see {@link #allocate}), which count
+ * towards {@code -XX:MaxDirectMemorySize}, or mapped from a file (see
+ * {@link #map}), which leaves it to the operating system to decide which
+ * parts of the board are kept in memory. A buffer can hold at most 2 GB, so
+ * every generation is divided into chunks of rows.
+ * <p>
+ * Rows are copied into (and out of) small arrays on the heap, so they can
+ * be computed with the same kernels as {@link BitPackedGrid}.
+ */
+public class OffHeapGrid implements Simulator, AutoCloseable {
+
+    // How many bytes of a generation to put into a single buffer.
+    static final long CHUNK_SIZE = 1L << 30;
+
+    // Bands with fewer rows than this are not split any further.
+    static final int ROWS_PER_BAND = 256;
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final int wordsPerRow;
+    final int rowsPerChunk;
+
+    final Rule rule;
+    final RowKernel kernel;
+    private final ForkJoinPool pool;
+    private final FileChannel channel;
+
+    private LongBuffer[] current;
+    private LongBuffer[] next;
+
+    private OffHeapGrid(int numberOfRows, int numberOfColumns, Rule rule, RowKernel kernel, ForkJoinPool pool, long chunkSize, FileChannel channel, Allocator allocator) throws IOException {
+        if (rule.isBornWithoutNeighbours()) {
+            throw new IllegalArgumentException("Rules with B0 are not supported: " + rule);
+        }
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        this.rowsPerChunk = (int) Math.max(1, chunkSize / Math.max(1, (long) wordsPerRow * Long.BYTES));
+        this.rule = rule;
+        this.kernel = kernel;
+        this.pool = pool;
+        this.channel = channel;
+        this.current = allocateGeneration(0, allocator);
+        this.next = allocateGeneration(1, allocator);
+    }
+
+    @FunctionalInterface
+    private interface Allocator {
+        ByteBuffer allocate(long position, int size) throws IOException;
+    }
+
+    /**
+     * Creates an empty grid in direct memory.
+     *
+     * @param pool when {@code null}, every generation is computed on the calling thread
+     */
+    public static OffHeapGrid allocate(int numberOfRows, int numberOfColumns, Rule rule, RowKernel kernel, ForkJoinPool pool) {
+        return allocate(numberOfRows, numberOfColumns, rule, kernel, pool, CHUNK_SIZE);
+    }
+
+    static OffHeapGrid allocate(int numberOfRows, int numberOfColumns, Rule rule, RowKernel kernel, ForkJoinPool pool, long chunkSize) {
+        try {
+            return new OffHeapGrid(numberOfRows, numberOfColumns, rule, kernel, pool, chunkSize, null, (position, size) -> ByteBuffer.allocateDirect(size));
+        } catch (IOException e) {
+            throw new IllegalStateException("Allocating direct memory doesn't do I/O", e);
+        }
+    }
+
+    public static OffHeapGrid allocate(int numberOfRows, int numberOfColumns) {
+        return allocate(numberOfRows, numberOfColumns, Rule.CONWAY, RowKernel.scalar(), null);
+    }
+
+    /**
+     * Creates an empty grid in a file (which is created, or overwritten if
+     * it exists), with room for both generations. The file is only used as
+     * storage: it is not a {@link Snapshot}.
+     *
+     * @param pool when {@code null}, every generation is computed on the calling thread
+     */
+    public static OffHeapGrid map(Path path, int numberOfRows, int numberOfColumns, Rule rule, RowKernel kernel, ForkJoinPool pool) throws IOException {
+        var channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+        try {
+            return new OffHeapGrid(numberOfRows, numberOfColumns, rule, kernel, pool, CHUNK_SIZE, channel, (position, size) -> channel.map(READ_WRITE, position, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static OffHeapGrid map(Path path, int numberOfRows, int numberOfColumns) throws IOException {
+        return map(path, numberOfRows, numberOfColumns, Rule.CONWAY, RowKernel.scalar(), null);
+    }
+
+    /**
+     * Copies a grid into direct memory.
+     */
+    public static OffHeapGrid from(BitPackedGrid grid) {
+        var result = allocate(grid.numberOfRows, grid.numberOfColumns, grid.rule, grid.kernel, null);
+        for (var rowIndex = 0; rowIndex < grid.numberOfRows; rowIndex++) {
+            result.setRow(rowIndex, grid.words, rowIndex * grid.wordsPerRow);
+        }
+        return result;
+    }
+
+    private LongBuffer[] allocateGeneration(int generationIndex, Allocator allocator) throws IOException {
+        var bytesPerRow = (long) wordsPerRow * Long.BYTES;
+        var bytesPerGeneration = numberOfRows * bytesPerRow;
+        var numberOfChunks = (numberOfRows + rowsPerChunk - 1) / rowsPerChunk;
+        var chunks = new LongBuffer[numberOfChunks];
+        for (var chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+            var fromRowIndex = (long) chunkIndex * rowsPerChunk;
+            var toRowIndex = Math.min(numberOfRows, fromRowIndex + rowsPerChunk);
+            var buffer = allocator.allocate(generationIndex * bytesPerGeneration + fromRowIndex * bytesPerRow, (int) ((toRowIndex - fromRowIndex) * bytesPerRow));
+            chunks[chunkIndex] = buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+        return chunks;
+    }
+
+    /**
+     * Fills the grid with the same random soup as
+     * {@link BitPackedGrid#randomSoup(int, int, double, long)}, one row at
+     * a time.
+     */
+    public OffHeapGrid fillRandomly(double density, long seed) {
+        var random = new Random(seed);
+        var row = new long[wordsPerRow];
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            Arrays.fill(row, 0L);
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+                if (random.nextDouble() < density) {
+                    row[columnIndex >>> 6] |= 1L << columnIndex;
+                }
+            }
+            setRow(rowIndex, row, 0);
+        }
+        return this;
+    }
+
+    public boolean isAlive(int rowIndex, int columnIndex) {
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        var column = Math.floorMod(columnIndex, numberOfColumns);
+        var word = current[row / rowsPerChunk].get((row % rowsPerChunk) * wordsPerRow + (column >>> 6));
+        return (word & (1L << column)) != 0;
+    }
+
+    public void setAlive(int rowIndex, int columnIndex, boolean isAlive) {
+        var row = Math.floorMod(rowIndex, numberOfRows);
+        var column = Math.floorMod(columnIndex, numberOfColumns);
+        var chunk = current[row / rowsPerChunk];
+        var index = (row % rowsPerChunk) * wordsPerRow + (column >>> 6);
+        var word = chunk.get(index);
+        chunk.put(index, isAlive ? word | (1L << column) : word & ~(1L << column));
+    }
+
+    /**
+     * Copies a row of the current generation into {@code bits} (which must
+     * have room for {@link BitPackedGrid#getWordsPerRow(int)} words).
+     */
+    public void getRow(int rowIndex, long[] bits) {
+        getRow(current, Math.floorMod(rowIndex, numberOfRows), bits);
+    }
+
+    @Override
+    public long getPopulation() {
+        var population = 0L;
+        var row = new long[wordsPerRow];
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            getRow(current, rowIndex, row);
+            for (var word : row) {
+                population += Long.bitCount(word);
+            }
+        }
+        return population;
+    }
+
+    /**
+     * Computes the next generation into the other buffer, and swaps the two.
+     */
+    @Override
+    public void step() {
+        if (pool == null || numberOfRows <= ROWS_PER_BAND) {
+            stepRows(0, numberOfRows);
+        } else {
+            pool.invoke(new StepBand(0, numberOfRows));
+        }
+
+        var swap = current;
+        current = next;
+        next = swap;
+    }
+
+    private class StepBand extends RecursiveAction {
+
+        private final int fromRowIndex;
+        private final int toRowIndex;
+
+        StepBand(int fromRowIndex, int toRowIndex) {
+            this.fromRowIndex = fromRowIndex;
+            this.toRowIndex = toRowIndex;
+        }
+
+        @Override
+        protected void compute() {
+            var numberOfRowsInBand = toRowIndex - fromRowIndex;
+            if (numberOfRowsInBand <= ROWS_PER_BAND) {
+                stepRows(fromRowIndex, toRowIndex);
+            } else {
+                var middleRowIndex = fromRowIndex + numberOfRowsInBand / 2;
+                invokeAll(new StepBand(fromRowIndex, middleRowIndex), new StepBand(middleRowIndex, toRowIndex));
+            }
+        }
+    }
+
+    /**
+     * Steps the rows from {@code fromRowIndex} (inclusive) to
+     * {@code toRowIndex} (exclusive), keeping a window of three rows (above,
+     * the row itself and below) on the heap that slides down one row at a
+     * time.
+     */
+    private void stepRows(int fromRowIndex, int toRowIndex) {
+        if (numberOfRows == 0 || wordsPerRow == 0) {
+            return;
+        }
+        var above = new long[wordsPerRow];
+        var row = new long[wordsPerRow];
+        var below = new long[wordsPerRow];
+        var nextRow = new long[wordsPerRow];
+
+        getRow(current, fromRowIndex == 0 ? numberOfRows - 1 : fromRowIndex - 1, above);
+        getRow(current, fromRowIndex, row);
+        for (var rowIndex = fromRowIndex; rowIndex < toRowIndex; rowIndex++) {
+            getRow(current, rowIndex == numberOfRows - 1 ? 0 : rowIndex + 1, below);
+            if (rule.equals(Rule.CONWAY)) {
+                kernel.stepRow(above, 0, row, 0, below, 0, nextRow, 0, numberOfColumns, 0, wordsPerRow);
+            } else {
+                BitPackedGrid.stepRow(above, 0, row, 0, below, 0, nextRow, 0, numberOfColumns, 0, wordsPerRow, rule);
+            }
+            setRow(next, rowIndex, nextRow, 0);
+
+            var recycled = above;
+            above = row;
+            row = below;
+            below = recycled;
+        }
+    }
+
+    private void getRow(LongBuffer[] generation, int rowIndex, long[] bits) {
+        generation[rowIndex / rowsPerChunk].get((rowIndex % rowsPerChunk) * wordsPerRow, bits, 0, wordsPerRow);
+    }
+
+    private void setRow(int rowIndex, long[] bits, int offset) {
+        setRow(current, rowIndex, bits, offset);
+    }
+
+    private void setRow(LongBuffer[] generation, int rowIndex, long[] bits, int offset) {
+        generation[rowIndex / rowsPerChunk].put((rowIndex % rowsPerChunk) * wordsPerRow, bits, offset, wordsPerRow);
+    }
+
+    /**
+     * Copies the current generation onto the heap. Only for boards that
+     * fit there.
+     */
+    public BitPackedGrid toBitPackedGrid() {
+        var words = new long[Math.multiplyExact(numberOfRows, wordsPerRow)];
+        var row = new long[wordsPerRow];
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            getRow(current, rowIndex, row);
+            System.arraycopy(row, 0, words, rowIndex * wordsPerRow, wordsPerRow);
+        }
+        return new BitPackedGrid(numberOfRows, numberOfColumns, words, rule, kernel, null, null);
+    }
+
+    /**
+     * Copies the current generation onto the heap, as live cells. Only for
+     * boards that fit there.
+     */
+    @Override
+    public RepeatingGrid snapshot() {
+        return toBitPackedGrid().toRepeatingGrid();
+    }
+
+    /**
+     * Releases the file, if the grid is mapped from one. Direct memory (and
+     * the mapping itself) is released once the grid is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        current = null;
+        next = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapGrid{" +
+               "numberOfRows=" + numberOfRows +
+               ", numberOfColumns=" + numberOfColumns +
+               '}';
+    }
+}
@@ -0,0 +1,153 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The command line options of {@link GameOfLife}. See {@link #USAGE}.
+ */
+final class Options {
+
+    static final String USAGE = """
+            Usage: GameOfLife [options]
+
+              --rows <n>                 Number of rows (default: 10, or the height of the pattern)
+              --columns <n>              Number of columns (default: 10, or the width of the pattern)
+              --density <d>              Chance that a cell of the random soup is alive (default: 0.2)
+              --seed <n>                 Seed of the random soup (default: random)
+              --pattern <file>           Start with a pattern (.rle, .cells or the box-drawing format)
+                                         instead of a random soup
+              --rule <rule>              Rule in B/S notation (default: B3/S23, or the rule of the pattern)
+              --engine <engine>          One of: %s (default: sparse)
+              --threads <n>              Number of threads for the engines that support it (default: 1)
+              --interval <milliseconds>  Time between two generations on screen (default: 2000)
+              --lookahead <n>            Number of generations to compute ahead of the screen (default: 4)
+              --frame-drop-policy <p>    One of: %s (default: latest)
+              --headless                 Don't draw anything, just compute generations as fast as possible
+              --generations <n>          Number of generations to compute in headless mode (default: 1000)
+              --metrics                  Also count births and deaths in headless mode (slower)
+              --checkpoint <directory>   Save the board every so many generations, and resume from the
+                                         latest checkpoint in that directory
+              --checkpoint-every <n>     Number of generations between two checkpoints (default: 100)
+              --help                     Show this message
+            """.formatted(
+            Arrays.stream(Engine.values()).map(Engine::toString).collect(joining(", ")),
+            Arrays.stream(SimulationPipeline.FrameDropPolicy.values()).map(Options::toArgument).collect(joining(", "))
+    );
+
+    Integer numberOfRows;
+    Integer numberOfColumns;
+    double density = 0.2;
+    Long seed;
+    Path pattern;
+    Rule rule;
+    Engine engine = Engine.SPARSE;
+    int numberOfThreads = 1;
+    Duration interval = Duration.ofSeconds(2);
+    int lookahead = 4;
+    SimulationPipeline.FrameDropPolicy frameDropPolicy = SimulationPipeline.FrameDropPolicy.LATEST;
+    boolean isHeadless = false;
+    long numberOfGenerations = 1000;
+    boolean hasMetrics = false;
+    Path checkpointDirectory;
+    long checkpointInterval = 100;
+    boolean isHelp = false;
+
+    /**
+     * Throws an {@link IllegalArgumentException} (with a message that is
+     * fit for the user) when the arguments don't make sense.
+     */
+    static Options parse(String... args) {
+        var options = new Options();
+        for (var index = 0; index < args.length; index++) {
+            var argument = args[index];
+            try {
+                switch (argument) {
+                    case "--rows" -> options.numberOfRows = positive(argument, Integer.parseInt(valueOf(args, ++index, argument)));
+                    case "--columns" -> options.numberOfColumns = positive(argument, Integer.parseInt(valueOf(args, ++index, argument)));
+                    case "--density" -> options.density = Double.parseDouble(valueOf(args, ++index, argument));
+                    case "--seed" -> options.seed = Long.parseLong(valueOf(args, ++index, argument));
+                    case "--pattern" -> options.pattern = Path.of(valueOf(args, ++index, argument));
+                    case "--rule" -> options.rule = supported(Rule.parse(valueOf(args, ++index, argument)));
+                    case "--engine" -> options.engine = Engine.of(valueOf(args, ++index, argument));
+                    case "--threads" -> options.numberOfThreads = positive(argument, Integer.parseInt(valueOf(args, ++index, argument)));
+                    case "--interval" -> options.interval = Duration.ofMillis(nonNegative(argument, Long.parseLong(valueOf(args, ++index, argument))));
+                    case "--lookahead" -> options.lookahead = positive(argument, Integer.parseInt(valueOf(args, ++index, argument)));
+                    case "--frame-drop-policy" -> options.frameDropPolicy = frameDropPolicyOf(valueOf(args, ++index, argument));
+                    case "--headless" -> options.isHeadless = true;
+                    case "--generations" -> options.numberOfGenerations = nonNegative(argument, Long.parseLong(valueOf(args, ++index, argument)));
+                    case "--metrics" -> options.hasMetrics = true;
+                    case "--checkpoint" -> options.checkpointDirectory = Path.of(valueOf(args, ++index, argument));
+                    case "--checkpoint-every" -> options.checkpointInterval = positive(argument, Long.parseLong(valueOf(args, ++index, argument)));
+                    case "--help" -> options.isHelp = true;
+                    default -> throw new IllegalArgumentException("Unknown option: " + argument);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + args[index] + " (for " + argument + ")");
+            }
+        }
+        density(options.density);
+        return options;
+    }
+
+    static String valueOf(String[] args, int index, String argument) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + argument);
+        }
+        return args[index];
+    }
+
+    static int positive(String argument, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(argument + " must be positive, but was " + value);
+        }
+        return value;
+    }
+
+    static long positive(String argument, long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(argument + " must be positive, but was " + value);
+        }
+        return value;
+    }
+
+    static long nonNegative(String argument, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(argument + " must not be negative, but was " + value);
+        }
+        return value;
+    }
+
+    /**
+     * None of the engines support rules with B0 (see {@link RepeatingGrid}).
+     */
+    static Rule supported(Rule rule) {
+        if (rule.isBornWithoutNeighbours()) {
+            throw new IllegalArgumentException("Rules with B0 are not supported: " + rule);
+        }
+        return rule;
+    }
+
+    static double density(double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Density must be between 0 and 1, but was " + value);
+        }
+        return value;
+    }
+
+    private static SimulationPipeline.FrameDropPolicy frameDropPolicyOf(String argument) {
+        for (var frameDropPolicy : SimulationPipeline.FrameDropPolicy.values()) {
+            if (toArgument(frameDropPolicy).equals(argument)) {
+                return frameDropPolicy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown frame drop policy: " + argument);
+    }
+
+    private static String toArgument(SimulationPipeline.FrameDropPolicy frameDropPolicy) {
+        return frameDropPolicy.name().toLowerCase().replace('_', '-');
+    }
+}
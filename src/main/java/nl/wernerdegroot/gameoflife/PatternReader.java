@@ -0,0 +1,290 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads patterns from a {@link Reader}, one character at a time, and puts
+ * the live cells straight into the storage of a {@link RepeatingGrid}.
+ * There is no intermediate matrix, so apart from the grid itself, reading
+ * a pattern takes a constant amount of memory.
+ * <p>
+ * The following formats are supported:
+ * <ul>
+ *     <li>The box-drawing format of {@link RepeatingGridWriter} (see
+ *     {@link RepeatingGridReader} for the details)</li>
+ *     <li>Plaintext (usually with extension {@code .cells}), see
+ *     https://conwaylife.com/wiki/Plaintext</li>
+ *     <li>Run Length Encoded (usually with extension {@code .rle}), see
+ *     https://conwaylife.com/wiki/Run_Length_Encoded</li>
+ * </ul>
+ * The dimensions of the grid are taken from the header of an RLE file
+ * (if present), and are otherwise just large enough to hold the pattern.
+ * The same goes for the {@link Rule}, which is Conway's unless the header
+ * of an RLE file says otherwise.
+ */
+public class PatternReader {
+
+    public enum Format {
+        BOX_DRAWING,
+        PLAINTEXT,
+        RLE;
+
+        public static Format of(Path path) {
+            var fileName = path.getFileName().toString().toLowerCase();
+            if (fileName.endsWith(".rle")) {
+                return RLE;
+            } else if (fileName.endsWith(".cells")) {
+                return PLAINTEXT;
+            } else {
+                return BOX_DRAWING;
+            }
+        }
+    }
+
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 13];
+    private int position = 0;
+    private int limit = 0;
+
+    // Where the live cells end up, and how large the pattern turned out to be:
+    private final LongCellSet generation = new LongCellSet();
+    private int numberOfRows = 0;
+    private int numberOfColumns = 0;
+    private Rule rule = Rule.CONWAY;
+
+    private PatternReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads a file, guessing the format from its extension.
+     */
+    public static RepeatingGrid read(Path path) throws IOException {
+        try (var reader = Files.newBufferedReader(path, UTF_8)) {
+            return read(reader, Format.of(path));
+        }
+    }
+
+    public static RepeatingGrid read(Reader reader, Format format) throws IOException {
+        var patternReader = new PatternReader(reader);
+        switch (format) {
+            case BOX_DRAWING -> patternReader.readBoxDrawing();
+            case PLAINTEXT -> patternReader.readPlaintext();
+            case RLE -> patternReader.readRle();
+        }
+        return patternReader.toRepeatingGrid();
+    }
+
+    static RepeatingGrid readBoxDrawing(Reader reader) {
+        try {
+            return read(reader, Format.BOX_DRAWING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RepeatingGrid toRepeatingGrid() {
+        if (numberOfRows == 0 || numberOfColumns == 0) {
+            return RepeatingGrid.EMPTY;
+        }
+        // The table grew by doubling, so it's at most twice as large as it
+        // needs to be. Compacting it would take a second table for a while:
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation, rule);
+    }
+
+    /**
+     * Ignores everything but ' ' (dead) and 'X' (alive). Lines without
+     * any of these are skipped entirely.
+     */
+    private void readBoxDrawing() throws IOException {
+        var rowIndex = 0;
+        var columnIndex = 0;
+        int current;
+        while ((current = next()) != END_OF_INPUT) {
+            switch (current) {
+                case 'X' -> setAlive(rowIndex, columnIndex++);
+                case ' ' -> columnIndex++;
+                case '\n' -> {
+                    if (columnIndex > 0) {
+                        endRow(rowIndex++, columnIndex);
+                        columnIndex = 0;
+                    }
+                }
+                default -> {
+                    // Ignore all other characters.
+                }
+            }
+        }
+
+        // Last row (in case there's no trailing '\n'):
+        if (columnIndex > 0) {
+            endRow(rowIndex, columnIndex);
+        }
+    }
+
+    /**
+     * Lines that start with '!' are comments. Every other line is a row,
+     * where 'O' (or '*') is a live cell and anything else a dead cell.
+     */
+    private void readPlaintext() throws IOException {
+        var rowIndex = 0;
+        var columnIndex = 0;
+        var isComment = false;
+        var isStartOfLine = true;
+        int current;
+        while ((current = next()) != END_OF_INPUT) {
+            if (current == '\r') {
+                continue;
+            }
+            if (isStartOfLine) {
+                isComment = current == '!';
+                isStartOfLine = false;
+            }
+            if (current == '\n') {
+                if (!isComment) {
+                    endRow(rowIndex++, columnIndex);
+                }
+                columnIndex = 0;
+                isStartOfLine = true;
+            } else if (!isComment) {
+                if (current == 'O' || current == '*') {
+                    setAlive(rowIndex, columnIndex);
+                }
+                columnIndex++;
+            }
+        }
+
+        if (!isStartOfLine && !isComment) {
+            endRow(rowIndex, columnIndex);
+        }
+    }
+
+    /**
+     * Lines that start with '#' are comments. The line that starts with 'x'
+     * is the header. Everything else is data: 'b' is a dead cell, '$' is
+     * the end of a row and '!' the end of the pattern. Any other letter is
+     * a live cell. Each of these can be preceded by a number of times to
+     * repeat it.
+     */
+    private void readRle() throws IOException {
+        var rowIndex = 0;
+        var columnIndex = 0;
+        var count = 0;
+        var isStartOfLine = true;
+        var hasHeader = false;
+        int current;
+        while ((current = next()) != END_OF_INPUT) {
+            if (isStartOfLine && current == '#') {
+                skipLine();
+                continue;
+            }
+            if (isStartOfLine && current == 'x' && !hasHeader) {
+                readRleHeader();
+                hasHeader = true;
+                continue;
+            }
+            isStartOfLine = current == '\n';
+
+            if ('0' <= current && current <= '9') {
+                count = count * 10 + (current - '0');
+            } else if (current == 'b') {
+                columnIndex += Math.max(count, 1);
+                count = 0;
+            } else if (current == '$') {
+                endRow(rowIndex, columnIndex);
+                rowIndex += Math.max(count, 1);
+                columnIndex = 0;
+                count = 0;
+            } else if (current == '!') {
+                break;
+            } else if (Character.isLetter(current)) {
+                for (var run = Math.max(count, 1); run > 0; run--) {
+                    setAlive(rowIndex, columnIndex++);
+                }
+                count = 0;
+            }
+        }
+
+        if (columnIndex > 0) {
+            endRow(rowIndex, columnIndex);
+        }
+    }
+
+    /**
+     * Reads the rest of a header like "x = 3, y = 2, rule = B3/S23" (after
+     * the 'x') and takes the dimensions and the rule from it.
+     */
+    private void readRleHeader() throws IOException {
+        var header = new StringBuilder("x");
+        int current;
+        while ((current = next()) != END_OF_INPUT && current != '\n') {
+            header.append((char) current);
+        }
+        for (var part : header.toString().split(",")) {
+            var keyAndValue = part.split("=");
+            if (keyAndValue.length != 2) {
+                continue;
+            }
+            var key = keyAndValue[0].trim();
+            var value = keyAndValue[1].trim();
+            switch (key) {
+                case "x" -> numberOfColumns = Math.max(numberOfColumns, Integer.parseInt(value));
+                case "y" -> numberOfRows = Math.max(numberOfRows, Integer.parseInt(value));
+                case "rule" -> rule = parseRule(value);
+                default -> {
+                    // Ignore anything else.
+                }
+            }
+        }
+    }
+
+    private static Rule parseRule(String value) throws IOException {
+        // Golly may add the topology, like "B3/S23:T100,100":
+        var withoutTopology = value.split(":")[0];
+        try {
+            var rule = Rule.parse(withoutTopology);
+            if (rule.isBornWithoutNeighbours()) {
+                throw new IOException("Rules with B0 are not supported: " + value);
+            }
+            return rule;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported rule: " + value, e);
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int current;
+        do {
+            current = next();
+        } while (current != END_OF_INPUT && current != '\n');
+    }
+
+    private void setAlive(int rowIndex, int columnIndex) {
+        generation.add(Cell.pack(rowIndex, columnIndex));
+    }
+
+    private void endRow(int rowIndex, int length) {
+        numberOfRows = Math.max(numberOfRows, rowIndex + 1);
+        numberOfColumns = Math.max(numberOfColumns, length);
+    }
+
+    private int next() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return END_OF_INPUT;
+            }
+        }
+        return buffer[position++];
+    }
+}
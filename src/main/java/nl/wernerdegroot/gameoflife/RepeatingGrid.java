@@ -3,27 +3,65 @@ package nl.wernerdegroot.gameoflife;
 import java.util.*;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toSet;
-
 /**
  * The game of life is traditionally played on an infinite grid.
  * For this project, we simplify things by wrapping the grid around.
  * The only good reason to do so is that it simplifies drawing.
- * With some minor adjustments (skipping wrapping) this class
- * could easily represent an infinite grid.
+ * See {@link UnboundedGrid} for a grid that doesn't wrap around.
+ * <p>
+ * Unless a different {@link Rule} is provided (see {@link #withRule(Rule)}),
+ * the next generation is computed with Conway's rule. Rules under which
+ * cells are born without any live neighbours (B0) are not supported,
+ * because then every dead cell far away from the live cells comes alive.
  */
-public class RepeatingGrid {
+public class RepeatingGrid implements Grid {
 
     final int numberOfRows;
     final int numberOfColumns;
-    final Set<Cell> generation;
+    final LongCellSet generation;
+    final Rule rule;
+
+    // The Zobrist hash of the live cells (see `getGenerationHash`). Computed
+    // on demand, unless it was already computed while stepping. Unlike
+    // `String.hash`, every value is a valid hash (and a `long` may even be
+    // read half-written), so a separate flag tells whether it's there. The
+    // flag is volatile and written after the hash, so a thread that sees it
+    // set also sees the hash. A race just means computing it twice.
+    private long generationHash;
+    private volatile boolean hasGenerationHash;
 
-    public static final RepeatingGrid EMPTY = new RepeatingGrid(0, 0, Set.of());
+    public static final RepeatingGrid EMPTY = new RepeatingGrid(0, 0, new LongCellSet(0));
 
     public RepeatingGrid(int numberOfRows, int numberOfColumns, Set<Cell> generation) {
+        this(numberOfRows, numberOfColumns, toLongCellSet(generation));
+    }
+
+    RepeatingGrid(int numberOfRows, int numberOfColumns, LongCellSet generation) {
+        this(numberOfRows, numberOfColumns, generation, Rule.CONWAY);
+    }
+
+    RepeatingGrid(int numberOfRows, int numberOfColumns, LongCellSet generation, Rule rule) {
+        if (rule.isBornWithoutNeighbours()) {
+            throw new IllegalArgumentException("Rules with B0 are not supported: " + rule);
+        }
         this.numberOfRows = numberOfRows;
         this.numberOfColumns = numberOfColumns;
         this.generation = generation;
+        this.rule = rule;
+    }
+
+    private RepeatingGrid(int numberOfRows, int numberOfColumns, LongCellSet generation, Rule rule, long generationHash) {
+        this(numberOfRows, numberOfColumns, generation, rule);
+        this.generationHash = generationHash;
+        this.hasGenerationHash = true;
+    }
+
+    private static LongCellSet toLongCellSet(Set<Cell> cells) {
+        var result = new LongCellSet(cells.size());
+        for (var cell : cells) {
+            result.add(cell.pack());
+        }
+        return result;
     }
 
     /**
@@ -43,12 +81,12 @@ public class RepeatingGrid {
                 .map(numberOfColumns -> {
                     var numberOfRows = matrix.size();
 
-                    Set<Cell> generation = new HashSet<>();
+                    var generation = new LongCellSet();
                     for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
                         var row = matrix.get(rowIndex);
                         for (var columnIndex = 0; columnIndex < row.size(); columnIndex++) {
                             if (row.get(columnIndex)) {
-                                generation.add(new Cell(rowIndex, columnIndex));
+                                generation.add(Cell.pack(rowIndex, columnIndex));
                             }
                         }
                     }
@@ -57,22 +95,74 @@ public class RepeatingGrid {
                 .orElse(RepeatingGrid.EMPTY);
     }
 
+    /**
+     * Returns the same grid, but one that computes every next generation
+     * (and the generations after that) with the provided rule.
+     */
+    public RepeatingGrid withRule(Rule rule) {
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation, rule);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    public Set<Cell> getLiveCells() {
+        Set<Cell> liveCells = new HashSet<>();
+        generation.forEach(packed -> liveCells.add(Cell.unpack(packed)));
+        return liveCells;
+    }
+
     public boolean isAlive(Cell cell) {
-        return generation.contains(cell);
+        return isAlive(cell.rowIndex(), cell.columnIndex());
     }
 
+    @Override
     public boolean isAlive(int rowIndex, int columnIndex) {
-        var coordinates = new Cell(rowIndex, columnIndex);
-        return isAlive(coordinates);
+        return generation.contains(Cell.pack(rowIndex, columnIndex));
     }
 
     public boolean isDead(Cell cell) {
         return !isAlive(cell);
     }
 
+    @Override
     public boolean isDead(int rowIndex, int columnIndex) {
-        var coordinates = new Cell(rowIndex, columnIndex);
-        return isDead(coordinates);
+        return !isAlive(rowIndex, columnIndex);
+    }
+
+    @Override
+    public long getPopulation() {
+        return generation.size();
+    }
+
+    /**
+     * Returns a 64-bit hash of the live cells. Two generations with the
+     * same live cells have the same hash. Two different generations will
+     * only have the same hash with a chance of about 1 in 2<sup>64</sup>,
+     * so it's a cheap way to find out if a generation was seen before (see
+     * {@link CycleDetector}).
+     * <p>
+     * The hash is the exclusive or of a pseudo-random key for every live
+     * cell (Zobrist hashing). It is computed as a side effect of computing
+     * the next generation, so for grids produced by
+     * {@link #getNextIteration()}, it is available without another pass
+     * over the live cells.
+     */
+    public long getGenerationHash() {
+        if (!hasGenerationHash) {
+            generationHash = generation.zobristHash();
+            hasGenerationHash = true;
+        }
+        return generationHash;
+    }
+
+    @Override
+    public long getNumberOfBirthsSince(Grid previous) {
+        if (previous instanceof RepeatingGrid that) {
+            return generation.count(packed -> !that.generation.contains(packed));
+        }
+        return generation.count(packed -> previous.isDead(Cell.rowIndexOf(packed), Cell.columnIndexOf(packed)));
     }
 
     private Cell wrap(Cell cell) {
@@ -87,44 +177,177 @@ public class RepeatingGrid {
     }
 
     long getNumberOfLivingNeighboursOf(Cell cell) {
-        return getNeighboursOf(cell).filter(this::isAlive).count();
+        return getNumberOfLivingNeighboursOf(cell.rowIndex(), cell.columnIndex());
     }
 
-    Stream<Cell> getSurvivors() {
-        return generation
-                .stream()
-                .filter(cell -> {
-                    var numberOfLiveNeighbours = getNumberOfLivingNeighboursOf(cell);
-                    return 2 <= numberOfLiveNeighbours && numberOfLiveNeighbours <= 3;
-                });
+    /**
+     * Same as {@link #getNumberOfLivingNeighboursOf(Cell)}, but without
+     * allocating a {@code Cell} for every neighbour.
+     */
+    int getNumberOfLivingNeighboursOf(int rowIndex, int columnIndex) {
+        var numberOfLivingNeighbours = 0;
+        for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+            var neighbourRowIndex = wrapRowIndex(rowIndex + rowOffset);
+            for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                if (rowOffset != 0 || columnOffset != 0) {
+                    var neighbourColumnIndex = wrapColumnIndex(columnIndex + columnOffset);
+                    if (generation.contains(Cell.pack(neighbourRowIndex, neighbourColumnIndex))) {
+                        numberOfLivingNeighbours++;
+                    }
+                }
+            }
+        }
+        return numberOfLivingNeighbours;
+    }
+
+    private int wrapRowIndex(int rowIndex) {
+        return Math.floorMod(rowIndex, numberOfRows);
     }
 
-    Stream<Cell> getBirths() {
-        return generation
-                .stream()
-                .flatMap(this::getNeighboursOf)
-                .filter(this::isDead)
-                .filter(cell -> {
-                    var numberOfLiveNeighbours = getNumberOfLivingNeighboursOf(cell);
-                    return numberOfLiveNeighbours == 3;
-                });
+    private int wrapColumnIndex(int columnIndex) {
+        return Math.floorMod(columnIndex, numberOfColumns);
     }
 
+    /**
+     * Computes the next generation in a single pass over the live cells.
+     * Every live cell adds one to the tally of each of its (wrapped)
+     * neighbours. Afterward, the tally contains every cell that could
+     * possibly be alive in the next generation, together with its number
+     * of live neighbours. Cells that are not in the tally have no live
+     * neighbours at all.
+     * <p>
+     * That's 8 updates of the tally per live cell, compared to the 8 + 64
+     * lookups per live cell of {@link #getNextIterationByLookingUpNeighbours()}.
+     * <p>
+     * Whether a cell is alive is only looked up when it matters: under
+     * Conway's rule, a cell with 3 live neighbours is alive in the next
+     * generation either way.
+     */
+    @Override
     public RepeatingGrid getNextIteration() {
-        var nextGeneration = Stream.concat(getSurvivors(), getBirths()).collect(toSet());
-        return new RepeatingGrid(numberOfRows, numberOfColumns, nextGeneration);
+        var scratch = SCRATCH.get();
+        computeNextGeneration(numberOfRows, numberOfColumns, rule, generation, scratch);
+        return new RepeatingGrid(numberOfRows, numberOfColumns, scratch.nextGeneration.compactCopy(), rule, scratch.nextGenerationHash);
+    }
+
+    /**
+     * Does the actual work of {@link #getNextIteration()}: computes the
+     * next generation of {@code generation} into {@code scratch.nextGeneration}
+     * (and its hash into {@code scratch.nextGenerationHash}). Shared with
+     * {@link SparseSimulator}, which keeps its own scratch.
+     */
+    static void computeNextGeneration(int numberOfRows, int numberOfColumns, Rule rule, LongCellSet generation, Scratch scratch) {
+        var numberOfLiveNeighbours = scratch.numberOfLiveNeighbours;
+        var nextGeneration = scratch.nextGeneration;
+        numberOfLiveNeighbours.clear();
+        nextGeneration.clear();
+        scratch.nextGenerationHash = 0L;
+
+        generation.forEach(packed -> {
+            var rowIndex = Cell.rowIndexOf(packed);
+            var columnIndex = Cell.columnIndexOf(packed);
+            for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                var neighbourRowIndex = Math.floorMod(rowIndex + rowOffset, numberOfRows);
+                for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    if (rowOffset != 0 || columnOffset != 0) {
+                        var neighbourColumnIndex = Math.floorMod(columnIndex + columnOffset, numberOfColumns);
+                        numberOfLiveNeighbours.increment(Cell.pack(neighbourRowIndex, neighbourColumnIndex));
+                    }
+                }
+            }
+        });
+
+        // Survivors and births in one sweep (hashing them as we go):
+        numberOfLiveNeighbours.forEach((packed, count) -> {
+            var isAliveInNextGeneration = rule.isBorn(count)
+                    ? rule.survives(count) || !generation.contains(packed)
+                    : rule.survives(count) && generation.contains(packed);
+            if (isAliveInNextGeneration) {
+                nextGeneration.add(packed);
+                scratch.nextGenerationHash ^= LongCellSet.zobristKeyOf(packed);
+            }
+        });
+
+        // Live cells without any live neighbours are not in the tally:
+        if (rule.survives(0)) {
+            generation.forEach(packed -> {
+                if (numberOfLiveNeighbours.get(packed) == 0) {
+                    nextGeneration.add(packed);
+                    scratch.nextGenerationHash ^= LongCellSet.zobristKeyOf(packed);
+                }
+            });
+        }
     }
 
+    /**
+     * Computes the next generation by looking up the neighbours of every
+     * live cell (survivors) and of every dead cell next to a live cell
+     * (births). Slower than {@link #getNextIteration()}, but kept around
+     * as a reference and to compare against in benchmarks.
+     */
+    RepeatingGrid getNextIterationByLookingUpNeighbours() {
+        var scratch = SCRATCH.get();
+        var nextGeneration = scratch.nextGeneration;
+        var visited = scratch.visited;
+        nextGeneration.clear();
+        visited.clear();
+
+        generation.forEach(packed -> {
+            var rowIndex = Cell.rowIndexOf(packed);
+            var columnIndex = Cell.columnIndexOf(packed);
+
+            // Survivors:
+            var numberOfLiveNeighbours = getNumberOfLivingNeighboursOf(rowIndex, columnIndex);
+            if (rule.survives(numberOfLiveNeighbours)) {
+                nextGeneration.add(packed);
+            }
+
+            // Births (every dead neighbour is only considered once):
+            for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                var neighbourRowIndex = wrapRowIndex(rowIndex + rowOffset);
+                for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    var neighbourColumnIndex = wrapColumnIndex(columnIndex + columnOffset);
+                    var neighbour = Cell.pack(neighbourRowIndex, neighbourColumnIndex);
+                    if (!generation.contains(neighbour) && visited.add(neighbour)) {
+                        if (rule.isBorn(getNumberOfLivingNeighboursOf(neighbourRowIndex, neighbourColumnIndex))) {
+                            nextGeneration.add(neighbour);
+                        }
+                    }
+                }
+            }
+        });
+
+        return new RepeatingGrid(numberOfRows, numberOfColumns, nextGeneration.compactCopy(), rule);
+    }
+
+    /**
+     * Sets that are reused from one generation to the next (per thread,
+     * because grids may be stepped on several threads at once, or per
+     * {@link SparseSimulator}). Once they
+     * have grown to the size of the population, stepping no longer needs
+     * to allocate anything but the compact copy of the next generation.
+     */
+    static final class Scratch {
+        final NeighbourCounts numberOfLiveNeighbours = new NeighbourCounts();
+        LongCellSet nextGeneration = new LongCellSet();
+        final LongCellSet visited = new LongCellSet();
+        long nextGenerationHash;
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         RepeatingGrid that = (RepeatingGrid) o;
+        // Only the live cells matter, not the rule to compute the next generation with:
         return numberOfRows == that.numberOfRows && numberOfColumns == that.numberOfColumns && Objects.equals(generation, that.generation);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(numberOfRows, numberOfColumns, generation);
+        var generationHash = getGenerationHash();
+        return 31 * (31 * numberOfRows + numberOfColumns) + (int) (generationHash ^ (generationHash >>> 32));
     }
 
     @Override
@@ -1,6 +1,6 @@
 package nl.wernerdegroot.gameoflife;
 
-import java.util.*;
+import java.io.StringReader;
 
 public class RepeatingGridReader {
 
@@ -16,6 +16,9 @@ public class RepeatingGridReader {
      * It is the simplest possible parser that could possibly work. It
      * ignores everything but the relevant characters ' ' and 'X'. It
      * does not even require that the provided lines are equally long.
+     * <p>
+     * See {@link PatternReader} for reading (large) files, and for
+     * other formats.
      */
     public static RepeatingGrid read(String input) {
 
@@ -23,35 +26,19 @@ public class RepeatingGridReader {
             return RepeatingGrid.EMPTY;
         }
 
-        // A grid of `true` and `false`. This is an intermediate
-        // data structure. We prefer a more sparse representation
-        // like `RepeatingGrid` that only stores the cells that
-        // contain a live cell.
-        List<List<Boolean>> matrix = new ArrayList<>();
-
-        List<Boolean> row = new ArrayList<>();
-
-        for (var current : input.toCharArray()) {
-            switch (current) {
-                case 'X' -> row.add(true);
-                case ' ' -> row.add(false);
-                case '\n' -> {
-                    if (!row.isEmpty()) {
-                        matrix.add(row);
-                        row = new ArrayList<>();
-                    }
-                }
-                default -> {
-                    // Ignore all other characters.
-                }
-            }
-        }
+        return PatternReader.readBoxDrawing(new StringReader(input));
+    }
 
-        // Last row (in case there's no trailing '\n'):
-        if (!row.isEmpty()) {
-            matrix.add(row);
+    /**
+     * Parses the same expressions as {@link #read(String)}, but places the
+     * live cells on an infinite grid instead.
+     */
+    public static UnboundedGrid readUnbounded(String input) {
+
+        if (input == null || input.isEmpty()) {
+            return UnboundedGrid.EMPTY;
         }
 
-        return RepeatingGrid.fromMatrix(matrix);
+        return new UnboundedGrid(read(input).generation);
     }
 }
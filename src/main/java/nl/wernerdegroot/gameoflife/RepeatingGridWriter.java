@@ -34,21 +34,29 @@ public class RepeatingGridWriter {
      * └─┴─┴─┘
      */
     public static String write(RepeatingGrid grid) {
+        return write(grid, grid.numberOfRows, grid.numberOfColumns);
+    }
+
+    /**
+     * Writes the top-left part of any {@link Grid}, for example a window
+     * onto an {@link UnboundedGrid}, in the same format.
+     */
+    public static String write(Grid grid, int numberOfRows, int numberOfColumns) {
 
-        if (grid.numberOfColumns == 0 || grid.numberOfRows == 0) {
+        if (numberOfColumns == 0 || numberOfRows == 0) {
             return null;
         }
 
         List<String> rows = new ArrayList<>();
 
-        var head = Collections.nCopies(grid.numberOfColumns, HEAD_CONTENT)
+        var head = Collections.nCopies(numberOfColumns, HEAD_CONTENT)
                 .stream()
                 .collect(joining(HEAD_SEPARATOR, HEAD_DELIMITER_LEFT, HEAD_DELIMITER_RIGHT));
 
         rows.add(head);
 
-        IntStream.range(0, grid.numberOfRows).forEach(rowIndex -> {
-            var row = IntStream.range(0, grid.numberOfColumns)
+        IntStream.range(0, numberOfRows).forEach(rowIndex -> {
+            var row = IntStream.range(0, numberOfColumns)
                     .mapToObj(columnIndex -> {
                         return grid.isAlive(rowIndex, columnIndex)
                                 ? ALIVE
@@ -59,7 +67,7 @@ public class RepeatingGridWriter {
             rows.add(row);
         });
 
-        var foot = Collections.nCopies(grid.numberOfColumns, FOOT_CONTENT)
+        var foot = Collections.nCopies(numberOfColumns, FOOT_CONTENT)
                 .stream()
                 .collect(joining(FOOT_SEPARATOR, FOOT_DELIMITER_LEFT, FOOT_DELIMITER_RIGHT));
 
@@ -0,0 +1,44 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * Computes the next generation of (part of) a row of a {@link BitPackedGrid}
+ * under Conway's rule. See {@link BitPackedGrid#stepRow(long[], int, long[], int, long[], int, long[], int, int, int, int)}
+ * for the meaning of the arguments.
+ * <p>
+ * There are two implementations. The {@link #scalar()} one computes one
+ * word (64 cells) at a time. The {@link #vectorized()} one uses the Vector
+ * API to compute as many words at a time as fit in the SIMD registers of
+ * the CPU (8 words, or 512 cells, with AVX-512). The Vector API is still
+ * incubating, so the JVM needs to be started with
+ * {@code --add-modules jdk.incubator.vector} to use it. Without it, the
+ * scalar implementation is used instead.
+ */
+@FunctionalInterface
+public interface RowKernel {
+
+    void stepRow(
+            long[] above, int aboveOffset,
+            long[] row, int rowOffset,
+            long[] below, int belowOffset,
+            long[] next, int nextOffset,
+            int numberOfColumns,
+            int fromWordIndex,
+            int toWordIndex
+    );
+
+    static RowKernel scalar() {
+        return VectorSupport.SCALAR_KERNEL;
+    }
+
+    /**
+     * Returns the vectorized implementation if the Vector API is available
+     * and the scalar implementation otherwise.
+     */
+    static RowKernel vectorized() {
+        return isVectorApiAvailable() ? VectorSupport.VECTORIZED_KERNEL : scalar();
+    }
+
+    static boolean isVectorApiAvailable() {
+        return VectorSupport.VECTORIZED_KERNEL != null;
+    }
+}
@@ -0,0 +1,113 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * A rule of a "Life-like" cellular automaton: which numbers of live
+ * neighbours cause a dead cell to be born, and which allow a live cell to
+ * survive. Conway's Game of Life is B3/S23 (born with 3, survives with 2
+ * or 3).
+ * <p>
+ * Both are kept as a bitmask, where bit {@code n} is set when {@code n}
+ * live neighbours lead to a live cell. Looking up the fate of a cell is
+ * a shift and a mask, so arbitrary rules are as cheap to apply as the
+ * hard-coded comparisons they replace.
+ *
+ * @param births    bit {@code n} is set when a dead cell with {@code n} live neighbours is born
+ * @param survivals bit {@code n} is set when a live cell with {@code n} live neighbours survives
+ */
+public record Rule(int births, int survivals) {
+
+    private static final int ALL_COUNTS = (1 << 9) - 1;
+
+    public static final Rule CONWAY = parse("B3/S23");
+    public static final Rule HIGH_LIFE = parse("B36/S23");
+    public static final Rule DAY_AND_NIGHT = parse("B3678/S34678");
+    public static final Rule SEEDS = parse("B2/S");
+
+    public Rule {
+        if ((births & ~ALL_COUNTS) != 0 || (survivals & ~ALL_COUNTS) != 0) {
+            throw new IllegalArgumentException("A cell has at most 8 neighbours");
+        }
+    }
+
+    /**
+     * Parses a rule in B/S notation (like "B36/S23", in any case, and in
+     * any order), or in the older S/B notation (like "23/36").
+     */
+    public static Rule parse(String rule) {
+        var parts = rule.trim().split("/", -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Not a rule: " + rule);
+        }
+
+        var births = -1;
+        var survivals = -1;
+        for (var part : parts) {
+            var trimmed = part.trim();
+            if (trimmed.startsWith("B") || trimmed.startsWith("b")) {
+                births = parseCounts(trimmed.substring(1), rule);
+            } else if (trimmed.startsWith("S") || trimmed.startsWith("s")) {
+                survivals = parseCounts(trimmed.substring(1), rule);
+            }
+        }
+
+        if (births < 0 && survivals < 0) {
+            // S/B notation:
+            survivals = parseCounts(parts[0].trim(), rule);
+            births = parseCounts(parts[1].trim(), rule);
+        } else if (births < 0 || survivals < 0) {
+            throw new IllegalArgumentException("Not a rule: " + rule);
+        }
+
+        return new Rule(births, survivals);
+    }
+
+    private static int parseCounts(String counts, String rule) {
+        var mask = 0;
+        for (var index = 0; index < counts.length(); index++) {
+            var count = counts.charAt(index) - '0';
+            if (count < 0 || count > 8) {
+                throw new IllegalArgumentException("Not a rule: " + rule);
+            }
+            mask |= 1 << count;
+        }
+        return mask;
+    }
+
+    public boolean isBorn(int numberOfLiveNeighbours) {
+        return ((births >>> numberOfLiveNeighbours) & 1) != 0;
+    }
+
+    public boolean survives(int numberOfLiveNeighbours) {
+        return ((survivals >>> numberOfLiveNeighbours) & 1) != 0;
+    }
+
+    public boolean isAliveInNextGeneration(boolean isAlive, int numberOfLiveNeighbours) {
+        return isAlive ? survives(numberOfLiveNeighbours) : isBorn(numberOfLiveNeighbours);
+    }
+
+    /**
+     * Whether cells without any live neighbours are born. Under such a rule,
+     * the empty space around a pattern comes alive, which means it can't
+     * be simulated by only keeping track of the live cells.
+     */
+    public boolean isBornWithoutNeighbours() {
+        return isBorn(0);
+    }
+
+    @Override
+    public String toString() {
+        var result = new StringBuilder("B");
+        for (var count = 0; count <= 8; count++) {
+            if (isBorn(count)) {
+                result.append(count);
+            }
+        }
+        result.append("/S");
+        for (var count = 0; count <= 8; count++) {
+            if (survives(count)) {
+                result.append(count);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package nl.wernerdegroot.gameoflife;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps track of how a simulation is doing: how long every generation took
+ * to compute, the population, the number of births and deaths, and how much
+ * memory was allocated in the process.
+ * <p>
+ * Every generation is computed by way of {@link #step(Grid, UnaryOperator)},
+ * like this:
+ * <pre>
+ * grid = metrics.step(grid, RepeatingGrid::getNextIteration);
+ * </pre>
+ * The numbers of the last generation (and some totals) are available
+ * through the getters, over JMX once {@link #register(String) registered},
+ * and as a {@link GenerationEvent} for JFR. For an {@link AdaptiveGrid},
+ * that includes which engine it uses, and how often (and how long) it
+ * took to switch between them.
+ * <p>
+ * Counting births and deaths means looking at every live cell of both
+ * generations, which is about as expensive as computing the next
+ * generation of a {@link RepeatingGrid}. When that's too much, use
+ * {@link #DISABLED}, which does nothing but compute the next generation.
+ * <p>
+ * Meant to be used by a single stepping thread. The getters may be called
+ * from any thread.
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+
+    public static final SimulationMetrics DISABLED = new SimulationMetrics(false);
+
+    private static final String DOMAIN = SimulationMetrics.class.getPackageName();
+
+    private final boolean isEnabled;
+
+    // Only available on HotSpot (and its derivatives):
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private volatile long numberOfGenerations;
+    private volatile long lastStepTimeNanos;
+    private volatile long maximumStepTimeNanos;
+    private volatile long totalStepTimeNanos;
+    private volatile long population;
+    private volatile long numberOfBirths;
+    private volatile long numberOfDeaths;
+    private volatile long lastAllocatedBytes = -1;
+    private volatile long totalAllocatedBytes;
+    private volatile String engine;
+    private volatile long numberOfEngineSwitches;
+    private volatile long lastEngineSwitchNanos;
+    private volatile long totalEngineSwitchNanos;
+
+    private ObjectName objectName;
+
+    public SimulationMetrics() {
+        this(true);
+    }
+
+    private SimulationMetrics(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+        this.threadMXBean = isEnabled && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()
+                ? bean
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public Grid step(Grid grid) {
+        return step(grid, Grid::getNextIteration);
+    }
+
+    /**
+     * Computes the next generation of {@code grid} (using {@code getNextIteration},
+     * which allows the type of grid to be preserved) and records how that went.
+     */
+    public <G extends Grid> G step(G grid, UnaryOperator<G> getNextIteration) {
+        if (!isEnabled) {
+            return getNextIteration.apply(grid);
+        }
+
+        var event = new GenerationEvent();
+        var allocatedBytesBefore = getCurrentThreadAllocatedBytes();
+        event.begin();
+        var start = System.nanoTime();
+
+        var next = getNextIteration.apply(grid);
+
+        var stepTimeNanos = System.nanoTime() - start;
+        event.end();
+        var allocatedBytes = allocatedBytesBefore < 0 ? -1 : getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+
+        var nextPopulation = next.getPopulation();
+        var births = next.getNumberOfBirthsSince(grid);
+        var deaths = grid.getPopulation() - nextPopulation + births;
+
+        numberOfGenerations++;
+        lastStepTimeNanos = stepTimeNanos;
+        maximumStepTimeNanos = Math.max(maximumStepTimeNanos, stepTimeNanos);
+        totalStepTimeNanos += stepTimeNanos;
+        population = nextPopulation;
+        numberOfBirths = births;
+        numberOfDeaths = deaths;
+        lastAllocatedBytes = allocatedBytes;
+        if (allocatedBytes >= 0) {
+            totalAllocatedBytes += allocatedBytes;
+        }
+        if (next instanceof AdaptiveGrid adaptiveGrid) {
+            engine = adaptiveGrid.getEngine().toString();
+            if (adaptiveGrid.hasSwitchedEngine()) {
+                numberOfEngineSwitches++;
+                lastEngineSwitchNanos = adaptiveGrid.getEngineSwitchNanos();
+                totalEngineSwitchNanos += adaptiveGrid.getEngineSwitchNanos();
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.generation = numberOfGenerations;
+            event.population = nextPopulation;
+            event.births = births;
+            event.deaths = deaths;
+            event.allocatedBytes = allocatedBytes;
+            if (next instanceof AdaptiveGrid adaptiveGrid) {
+                event.engine = adaptiveGrid.getEngine().toString();
+                event.engineSwitchNanos = adaptiveGrid.getEngineSwitchNanos();
+            }
+            event.commit();
+        }
+
+        return next;
+    }
+
+    private long getCurrentThreadAllocatedBytes() {
+        return threadMXBean == null ? -1 : threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Makes the metrics available over JMX, as
+     * {@code nl.wernerdegroot.gameoflife:type=SimulationMetrics,name=<name>}.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Already registered as " + objectName);
+        }
+        var newObjectName = new ObjectName(DOMAIN + ":type=SimulationMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+        objectName = newObjectName;
+        return objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public long getNumberOfGenerations() {
+        return numberOfGenerations;
+    }
+
+    @Override
+    public long getLastStepTimeNanos() {
+        return lastStepTimeNanos;
+    }
+
+    @Override
+    public long getMaximumStepTimeNanos() {
+        return maximumStepTimeNanos;
+    }
+
+    @Override
+    public long getTotalStepTimeNanos() {
+        return totalStepTimeNanos;
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        var total = totalStepTimeNanos;
+        return total == 0 ? 0.0 : numberOfGenerations * 1e9 / total;
+    }
+
+    @Override
+    public long getPopulation() {
+        return population;
+    }
+
+    @Override
+    public long getNumberOfBirths() {
+        return numberOfBirths;
+    }
+
+    @Override
+    public long getNumberOfDeaths() {
+        return numberOfDeaths;
+    }
+
+    @Override
+    public long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    @Override
+    public long getTotalAllocatedBytes() {
+        return totalAllocatedBytes;
+    }
+
+    @Override
+    public String getEngine() {
+        return engine;
+    }
+
+    @Override
+    public long getNumberOfEngineSwitches() {
+        return numberOfEngineSwitches;
+    }
+
+    @Override
+    public long getLastEngineSwitchNanos() {
+        return lastEngineSwitchNanos;
+    }
+
+    @Override
+    public long getTotalEngineSwitchNanos() {
+        return totalEngineSwitchNanos;
+    }
+}
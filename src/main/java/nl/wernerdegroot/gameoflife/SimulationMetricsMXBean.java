@@ -0,0 +1,44 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * What {@link SimulationMetrics} exposes over JMX (in JConsole or
+ * VisualVM, for example). Times are in nanoseconds.
+ */
+public interface SimulationMetricsMXBean {
+
+    long getNumberOfGenerations();
+
+    long getLastStepTimeNanos();
+
+    long getMaximumStepTimeNanos();
+
+    long getTotalStepTimeNanos();
+
+    double getGenerationsPerSecond();
+
+    long getPopulation();
+
+    long getNumberOfBirths();
+
+    long getNumberOfDeaths();
+
+    /**
+     * Bytes allocated by the stepping thread during the last step, or
+     * {@code -1} if the JVM can't tell.
+     */
+    long getLastAllocatedBytes();
+
+    long getTotalAllocatedBytes();
+
+    /**
+     * The engine of the last generation of an {@link AdaptiveGrid}, or
+     * {@code null} if the grid isn't adaptive.
+     */
+    String getEngine();
+
+    long getNumberOfEngineSwitches();
+
+    long getLastEngineSwitchNanos();
+
+    long getTotalEngineSwitchNanos();
+}
@@ -0,0 +1,343 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Computes and renders generations on two separate threads, so a slow
+ * terminal doesn't slow the simulation down (and vice versa).
+ * <p>
+ * The stepping thread computes generations ahead of time, into a buffer
+ * that holds at most {@code lookahead} generations. The render thread
+ * takes generations out of the buffer, one every {@code frameInterval}
+ * (or as fast as the renderer can keep up, if that's slower). What
+ * happens when one of them can't keep up with the other is up to the
+ * {@link FrameDropPolicy}.
+ * <p>
+ * With {@link FrameDropPolicy#LATEST}, the simulation runs on a schedule:
+ * generation {@code n} is due {@code n * frameInterval} after the start.
+ * The stepping thread stays at most {@code lookahead} generations ahead
+ * of that schedule, and the render thread renders whichever generation
+ * is due, dropping only the ones it was too late for.
+ * <p>
+ * Grids are immutable, so they can safely be handed from one thread to
+ * the other.
+ */
+public class SimulationPipeline<G extends Grid> implements AutoCloseable {
+
+    public enum FrameDropPolicy {
+
+        /**
+         * Render every generation. When the buffer is full, the stepping
+         * thread waits for the render thread.
+         */
+        NONE,
+
+        /**
+         * Never let the stepping thread wait. When the buffer is full, the
+         * oldest generation in it is dropped. The render thread renders
+         * the generations that are left in order.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Never let the stepping thread wait for the render thread, only
+         * for the schedule. Always render the generation that is due. All
+         * generations before it are dropped (but only when the render
+         * thread is running late).
+         */
+        LATEST
+    }
+
+    @FunctionalInterface
+    public interface Renderer<G extends Grid> {
+        void render(G grid, long generation) throws IOException;
+    }
+
+    private record Frame<G>(G grid, long generation) {
+    }
+
+    private final UnaryOperator<G> getNextIteration;
+    private final int lookahead;
+    private final FrameDropPolicy frameDropPolicy;
+    private final long frameIntervalNanos;
+    private final Renderer<G> renderer;
+
+    // The buffer between the two threads:
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition stopped = lock.newCondition();
+    private final ArrayDeque<Frame<G>> buffer;
+    private boolean isStopped = false;
+
+    private final long initialGeneration;
+    private long startNanos;
+
+    private final Thread steppingThread;
+    private final Thread renderThread;
+    private volatile Throwable failure;
+
+    private volatile long numberOfGenerations;
+    private volatile long numberOfRenderedFrames;
+    private volatile long numberOfDroppedFrames;
+
+    public SimulationPipeline(
+            G initial,
+            long initialGeneration,
+            UnaryOperator<G> getNextIteration,
+            int lookahead,
+            FrameDropPolicy frameDropPolicy,
+            Duration frameInterval,
+            Renderer<G> renderer
+    ) {
+        if (lookahead <= 0) {
+            throw new IllegalArgumentException("Lookahead must be positive, but was " + lookahead);
+        }
+        this.getNextIteration = getNextIteration;
+        this.lookahead = lookahead;
+        this.frameDropPolicy = frameDropPolicy;
+        this.frameIntervalNanos = frameInterval.toNanos();
+        this.renderer = renderer;
+        this.initialGeneration = initialGeneration;
+        this.buffer = new ArrayDeque<>(lookahead);
+        this.buffer.add(new Frame<>(initial, initialGeneration));
+        this.steppingThread = new Thread(() -> runSafely(() -> step(initial, initialGeneration)), "stepping");
+        this.renderThread = new Thread(() -> runSafely(this::render), "rendering");
+    }
+
+    public SimulationPipeline<G> start() {
+        startNanos = System.nanoTime();
+        steppingThread.start();
+        renderThread.start();
+        return this;
+    }
+
+    /**
+     * Waits until the pipeline is stopped (by {@link #close()}, or because
+     * computing or rendering a generation failed).
+     */
+    public void awaitTermination() throws InterruptedException {
+        steppingThread.join();
+        renderThread.join();
+    }
+
+    /**
+     * Stops both threads, and waits for them to finish. Rethrows whatever
+     * went wrong while computing or rendering a generation.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        stop();
+        awaitTermination();
+        var failure = this.failure;
+        switch (failure) {
+            case null -> {
+            }
+            case IOException e -> throw e;
+            case UncheckedIOException e -> throw e.getCause();
+            case RuntimeException e -> throw e;
+            case Error e -> throw e;
+            default -> throw new IllegalStateException(failure);
+        }
+    }
+
+    public long getNumberOfGenerations() {
+        return numberOfGenerations;
+    }
+
+    public long getNumberOfRenderedFrames() {
+        return numberOfRenderedFrames;
+    }
+
+    public long getNumberOfDroppedFrames() {
+        return numberOfDroppedFrames;
+    }
+
+    private void step(G initial, long initialGeneration) throws InterruptedException {
+        var grid = initial;
+        var generation = initialGeneration;
+        while (!isStopped()) {
+            if (frameDropPolicy == FrameDropPolicy.LATEST) {
+                // Don't run ahead of the schedule by more than fits in
+                // the buffer (next to the generation that's due):
+                var remainingNanos = getDueAt(generation + 2 - lookahead) - System.nanoTime();
+                if (remainingNanos > 0 && awaitStop(remainingNanos)) {
+                    return;
+                }
+            }
+            grid = getNextIteration.apply(grid);
+            generation++;
+            numberOfGenerations++;
+            if (!put(new Frame<>(grid, generation))) {
+                return;
+            }
+        }
+    }
+
+    private void render() throws IOException, InterruptedException {
+        var nextFrameAt = System.nanoTime();
+        while (true) {
+            var frame = take();
+            if (frame == null) {
+                return;
+            }
+            renderer.render(frame.grid(), frame.generation());
+            numberOfRenderedFrames++;
+
+            if (frameDropPolicy == FrameDropPolicy.LATEST) {
+                // Taking the next frame waits until it's due:
+                continue;
+            }
+
+            // Don't try to catch up on frames that were late:
+            nextFrameAt = Math.max(nextFrameAt + frameIntervalNanos, System.nanoTime());
+            var remainingNanos = nextFrameAt - System.nanoTime();
+            if (remainingNanos > 0 && awaitStop(remainingNanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code false} if the pipeline was stopped instead.
+     */
+    private boolean put(Frame<G> frame) throws InterruptedException {
+        lock.lock();
+        try {
+            while (buffer.size() >= lookahead && !isStopped) {
+                if (frameDropPolicy == FrameDropPolicy.NONE) {
+                    notFull.await();
+                } else {
+                    buffer.removeFirst();
+                    numberOfDroppedFrames++;
+                }
+            }
+            if (isStopped) {
+                return false;
+            }
+            buffer.addLast(frame);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code null} if the pipeline was stopped instead.
+     */
+    private Frame<G> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (buffer.isEmpty() && !isStopped) {
+                notEmpty.await();
+            }
+            if (isStopped) {
+                return null;
+            }
+            if (frameDropPolicy == FrameDropPolicy.LATEST) {
+                return takeLatestDue();
+            }
+            var frame = buffer.removeFirst();
+            notFull.signal();
+            return frame;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the first frame in the buffer is due, and then drops
+     * every frame before the last one that is due. Returns {@code null} if
+     * the pipeline was stopped instead. Must hold the lock.
+     */
+    private Frame<G> takeLatestDue() throws InterruptedException {
+        while (!isStopped) {
+            if (buffer.isEmpty()) {
+                notEmpty.await();
+                continue;
+            }
+            var remainingNanos = getDueAt(buffer.getFirst().generation()) - System.nanoTime();
+            if (remainingNanos > 0) {
+                stopped.awaitNanos(remainingNanos);
+                continue;
+            }
+            var now = System.nanoTime();
+            var frame = buffer.removeFirst();
+            while (!buffer.isEmpty() && getDueAt(buffer.getFirst().generation()) <= now) {
+                frame = buffer.removeFirst();
+                numberOfDroppedFrames++;
+            }
+            notFull.signal();
+            return frame;
+        }
+        return null;
+    }
+
+    private long getDueAt(long generation) {
+        return startNanos + (generation - initialGeneration) * frameIntervalNanos;
+    }
+
+    /**
+     * Waits for the given time, unless the pipeline is stopped in the
+     * meantime. Returns whether it was stopped.
+     */
+    private boolean awaitStop(long nanos) throws InterruptedException {
+        lock.lock();
+        try {
+            var remainingNanos = nanos;
+            while (!isStopped && remainingNanos > 0) {
+                remainingNanos = stopped.awaitNanos(remainingNanos);
+            }
+            return isStopped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isStopped() {
+        lock.lock();
+        try {
+            return isStopped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void stop() {
+        lock.lock();
+        try {
+            isStopped = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            stopped.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private void runSafely(Task task) {
+        try {
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * A mutable alternative to {@link Grid#getNextIteration()} for long runs.
+ * <p>
+ * Every call to {@link Grid#getNextIteration()} creates a new grid, which
+ * is what makes grids easy to test and safe to share between threads. The
+ * price is that a long run allocates (and garbage collects) a whole board
+ * per generation. A simulator owns two buffers instead: one with the
+ * current generation and one that the next generation is written to.
+ * After every {@link #step()}, the two are swapped.
+ * <p>
+ * A simulator is not thread-safe. To look at a generation (or to hand it
+ * to another thread), ask for a {@link #snapshot()}.
+ */
+public interface Simulator {
+
+    /**
+     * Computes the next generation.
+     */
+    void step();
+
+    default void step(int numberOfGenerations) {
+        for (var count = 0; count < numberOfGenerations; count++) {
+            step();
+        }
+    }
+
+    long getPopulation();
+
+    /**
+     * A copy of the current generation, which is not affected by later
+     * steps.
+     */
+    RepeatingGrid snapshot();
+}
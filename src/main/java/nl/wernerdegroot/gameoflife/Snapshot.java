@@ -0,0 +1,254 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A generation of a grid, together with its generation number (and the
+ * {@link Rule} it follows), that can be saved to (and restored from) a
+ * compact binary file.
+ * <p>
+ * The file consists of a header, followed by the rows of the grid:
+ * <pre>
+ * int  magic number ("GOLS")
+ * int  version (2)
+ * int  number of rows
+ * int  number of columns
+ * long generation number
+ * byte[32] rule in B/S notation, US-ASCII, padded with zeroes
+ * long[] for every row, one bit per cell (see {@link BitPackedGrid})
+ * </pre>
+ * Everything is little-endian. The file is written and read through memory
+ * mapped buffers, a large chunk of rows at a time, so that even very large
+ * grids are saved and restored at the speed of the disk. Once
+ * {@link #write(Path)} returns, the file is on disk (not just in the page
+ * cache).
+ * <p>
+ * A grid that doesn't fit in a single process (see
+ * {@link DistributedCoordinator}) can be saved and restored in parts: one
+ * process writes the header (see {@link #writeHeader}), after which every
+ * process writes (see {@link #writeRows}) or reads (see {@link #readRows})
+ * its own rows.
+ */
+public record Snapshot(BitPackedGrid grid, long generation) {
+
+    static final int MAGIC_NUMBER = 0x474F4C53;
+    static final int VERSION = 2;
+    static final int RULE_SIZE = 32;
+    static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES + RULE_SIZE;
+
+    // How much of the file to map at once. Must fit in an `int`.
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    /**
+     * Everything about a snapshot, except for its rows.
+     */
+    public record Header(int numberOfRows, int numberOfColumns, Rule rule, long generation) {
+    }
+
+    public RepeatingGrid toRepeatingGrid() {
+        return grid.toRepeatingGrid();
+    }
+
+    public void write(Path path) throws IOException {
+        write(path, grid, grid.numberOfRows, grid.numberOfColumns, grid.getRule(), generation);
+    }
+
+    public static void write(Path path, RepeatingGrid grid, long generation) throws IOException {
+        write(path, grid, grid.numberOfRows, grid.numberOfColumns, grid.getRule(), generation);
+    }
+
+    public static void write(Path path, Grid grid, int numberOfRows, int numberOfColumns, Rule rule, long generation) throws IOException {
+        if (numberOfRows <= 0 || numberOfColumns <= 0) {
+            throw new IllegalArgumentException("Can't save a board of " + numberOfRows + "x" + numberOfColumns);
+        }
+        var wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        var bytesPerRow = (long) wordsPerRow * Long.BYTES;
+        var row = new long[wordsPerRow];
+
+        try (var channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            writeHeader(channel, numberOfRows, numberOfColumns, rule, generation);
+
+            var rowsPerChunk = getRowsPerChunk(bytesPerRow);
+            for (var fromRowIndex = 0; fromRowIndex < numberOfRows; fromRowIndex += rowsPerChunk) {
+                var toRowIndex = (int) Math.min(numberOfRows, (long) fromRowIndex + rowsPerChunk);
+                var mapped = map(channel, READ_WRITE, HEADER_SIZE + fromRowIndex * bytesPerRow, (toRowIndex - fromRowIndex) * bytesPerRow);
+                var chunk = mapped.asLongBuffer();
+                for (var rowIndex = fromRowIndex; rowIndex < toRowIndex; rowIndex++) {
+                    grid.getRow(rowIndex, numberOfColumns, row);
+                    chunk.put(row, 0, wordsPerRow);
+                }
+                mapped.force();
+            }
+
+            // The rows are on disk now, but the size of the file may not be:
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Creates a snapshot that has a header, but whose rows are still to be
+     * written (see {@link #writeRows}). The file already has its full size.
+     */
+    public static void writeHeader(Path path, int numberOfRows, int numberOfColumns, Rule rule, long generation) throws IOException {
+        if (numberOfRows <= 0 || numberOfColumns <= 0) {
+            throw new IllegalArgumentException("Can't save a board of " + numberOfRows + "x" + numberOfColumns);
+        }
+        var bytesPerRow = (long) BitPackedGrid.getWordsPerRow(numberOfColumns) * Long.BYTES;
+        try (var channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            writeHeader(channel, numberOfRows, numberOfColumns, rule, generation);
+            // Grow the file by writing its very last byte (all rows are empty
+            // until they're written):
+            channel.write(ByteBuffer.allocate(1), HEADER_SIZE + numberOfRows * bytesPerRow - 1);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes {@code numberOfRowsToWrite} rows, from {@code fromRowIndex} on,
+     * to a snapshot that was created with {@link #writeHeader}. The rows are
+     * taken from {@code words}, starting at {@code offset}, in the layout of
+     * {@link BitPackedGrid}. Once this returns, they are on disk.
+     */
+    public static void writeRows(Path path, int fromRowIndex, int numberOfRowsToWrite, long[] words, int offset) throws IOException {
+        try (var channel = FileChannel.open(path, READ, WRITE)) {
+            var header = readHeader(channel, path);
+            checkRows(header, fromRowIndex, numberOfRowsToWrite, path);
+            var wordsPerRow = BitPackedGrid.getWordsPerRow(header.numberOfColumns());
+            var bytesPerRow = (long) wordsPerRow * Long.BYTES;
+
+            var rowsPerChunk = getRowsPerChunk(bytesPerRow);
+            for (var rowIndex = 0; rowIndex < numberOfRowsToWrite; rowIndex += rowsPerChunk) {
+                var numberOfRowsInChunk = Math.min(numberOfRowsToWrite - rowIndex, rowsPerChunk);
+                var mapped = map(channel, READ_WRITE, HEADER_SIZE + (fromRowIndex + rowIndex) * bytesPerRow, numberOfRowsInChunk * bytesPerRow);
+                mapped.asLongBuffer().put(words, offset + rowIndex * wordsPerRow, numberOfRowsInChunk * wordsPerRow);
+                mapped.force();
+            }
+        }
+    }
+
+    public static Header readHeader(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            return readHeader(channel, path);
+        }
+    }
+
+    /**
+     * Reads {@code numberOfRowsToRead} rows, from {@code fromRowIndex} on,
+     * into {@code words}, starting at {@code offset}, in the layout of
+     * {@link BitPackedGrid}.
+     */
+    public static void readRows(Path path, int fromRowIndex, int numberOfRowsToRead, long[] words, int offset) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            var header = readHeader(channel, path);
+            checkRows(header, fromRowIndex, numberOfRowsToRead, path);
+            readRows(channel, header, fromRowIndex, numberOfRowsToRead, words, offset);
+        }
+    }
+
+    public static Snapshot read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            var header = readHeader(channel, path);
+            var numberOfRows = header.numberOfRows();
+            var numberOfColumns = header.numberOfColumns();
+
+            var words = new long[Math.toIntExact((long) numberOfRows * BitPackedGrid.getWordsPerRow(numberOfColumns))];
+            readRows(channel, header, 0, numberOfRows, words, 0);
+
+            return new Snapshot(new BitPackedGrid(numberOfRows, numberOfColumns, words, header.rule(), RowKernel.scalar(), null, null), header.generation());
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, int numberOfRows, int numberOfColumns, Rule rule, long generation) throws IOException {
+        var header = map(channel, READ_WRITE, 0, HEADER_SIZE);
+        header.putInt(MAGIC_NUMBER);
+        header.putInt(VERSION);
+        header.putInt(numberOfRows);
+        header.putInt(numberOfColumns);
+        header.putLong(generation);
+        header.put(rule.toString().getBytes(US_ASCII));
+        header.force();
+    }
+
+    private static Header readHeader(FileChannel channel, Path path) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("Not a snapshot: " + path);
+        }
+
+        var header = map(channel, READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC_NUMBER) {
+            throw new IOException("Not a snapshot: " + path);
+        }
+        var version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+        var numberOfRows = header.getInt();
+        var numberOfColumns = header.getInt();
+        if (numberOfRows <= 0 || numberOfColumns <= 0) {
+            throw new IOException("Snapshot has an invalid size (" + numberOfRows + "x" + numberOfColumns + "): " + path);
+        }
+        var generation = header.getLong();
+        var rule = readRule(header, path);
+
+        var bytesPerRow = (long) BitPackedGrid.getWordsPerRow(numberOfColumns) * Long.BYTES;
+        if (channel.size() != HEADER_SIZE + numberOfRows * bytesPerRow) {
+            throw new IOException("Snapshot is truncated: " + path);
+        }
+        return new Header(numberOfRows, numberOfColumns, rule, generation);
+    }
+
+    private static void checkRows(Header header, int fromRowIndex, int numberOfRows, Path path) {
+        if (fromRowIndex < 0 || numberOfRows < 0 || (long) fromRowIndex + numberOfRows > header.numberOfRows()) {
+            throw new IndexOutOfBoundsException("Rows " + fromRowIndex + " to " + ((long) fromRowIndex + numberOfRows) + " are not in " + path + " (of " + header.numberOfRows() + " rows)");
+        }
+    }
+
+    private static void readRows(FileChannel channel, Header header, int fromRowIndex, int numberOfRowsToRead, long[] words, int offset) throws IOException {
+        var wordsPerRow = BitPackedGrid.getWordsPerRow(header.numberOfColumns());
+        var bytesPerRow = (long) wordsPerRow * Long.BYTES;
+        var rowsPerChunk = getRowsPerChunk(bytesPerRow);
+        for (var rowIndex = 0; rowIndex < numberOfRowsToRead; rowIndex += rowsPerChunk) {
+            var numberOfRowsInChunk = Math.min(numberOfRowsToRead - rowIndex, rowsPerChunk);
+            var chunk = map(channel, READ_ONLY, HEADER_SIZE + (fromRowIndex + rowIndex) * bytesPerRow, numberOfRowsInChunk * bytesPerRow).asLongBuffer();
+            chunk.get(words, offset + rowIndex * wordsPerRow, numberOfRowsInChunk * wordsPerRow);
+        }
+    }
+
+    private static Rule readRule(MappedByteBuffer header, Path path) throws IOException {
+        var bytes = new byte[RULE_SIZE];
+        header.get(bytes);
+        var length = 0;
+        while (length < RULE_SIZE && bytes[length] != 0) {
+            length++;
+        }
+        try {
+            var rule = Rule.parse(new String(bytes, 0, length, US_ASCII));
+            if (rule.isBornWithoutNeighbours()) {
+                throw new IOException("Rules with B0 are not supported: " + rule);
+            }
+            return rule;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot has an invalid rule: " + path, e);
+        }
+    }
+
+    private static int getRowsPerChunk(long bytesPerRow) {
+        return (int) Math.max(1, CHUNK_SIZE / Math.max(1, bytesPerRow));
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        var buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
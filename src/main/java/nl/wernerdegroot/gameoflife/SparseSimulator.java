@@ -0,0 +1,58 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * A {@link Simulator} that computes generations in the same way as
+ * {@link RepeatingGrid#getNextIteration()}. It keeps the live cells of the
+ * current generation, and swaps them with those of the next one after
+ * every step, instead of making a compact copy. Once the sets have grown
+ * to the size of the population, stepping doesn't allocate anything.
+ */
+public class SparseSimulator implements Simulator {
+
+    final int numberOfRows;
+    final int numberOfColumns;
+    final Rule rule;
+
+    private final RepeatingGrid.Scratch scratch = new RepeatingGrid.Scratch();
+    private LongCellSet generation;
+
+    public SparseSimulator(RepeatingGrid grid) {
+        this.numberOfRows = grid.numberOfRows;
+        this.numberOfColumns = grid.numberOfColumns;
+        this.rule = grid.rule;
+
+        // Grids are immutable, so we make our own copy to write to:
+        this.generation = new LongCellSet(grid.generation.size());
+        grid.generation.forEach(packed -> this.generation.add(Cell.pack(
+                Math.floorMod(Cell.rowIndexOf(packed), numberOfRows),
+                Math.floorMod(Cell.columnIndexOf(packed), numberOfColumns)
+        )));
+    }
+
+    @Override
+    public void step() {
+        RepeatingGrid.computeNextGeneration(numberOfRows, numberOfColumns, rule, generation, scratch);
+        var previous = generation;
+        generation = scratch.nextGeneration;
+        scratch.nextGeneration = previous;
+    }
+
+    @Override
+    public long getPopulation() {
+        return generation.size();
+    }
+
+    @Override
+    public RepeatingGrid snapshot() {
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation.compactCopy(), rule);
+    }
+
+    @Override
+    public String toString() {
+        return "SparseSimulator{" +
+               "numberOfRows=" + numberOfRows +
+               ", numberOfColumns=" + numberOfColumns +
+               ", population=" + generation.size() +
+               '}';
+    }
+}
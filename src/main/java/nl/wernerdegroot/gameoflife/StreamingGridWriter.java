@@ -0,0 +1,145 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.wernerdegroot.gameoflife.RepeatingGridWriter.*;
+
+/**
+ * Writes grids in exactly the same format as {@link RepeatingGridWriter},
+ * but without building a {@code String} first.
+ * <p>
+ * The box-drawing characters are encoded as UTF-8 only once. The grid is
+ * read row by row (see {@link Grid#getRow(int, int, long[])}) and the
+ * bytes are written into a buffer that is handed to the channel whenever
+ * it fills up. The buffer and the row are reused for every frame, so
+ * writing a frame doesn't allocate anything once they're large enough.
+ * <p>
+ * Not thread-safe: use one writer per thread.
+ */
+public class StreamingGridWriter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] HEAD_DELIMITER_LEFT_BYTES = HEAD_DELIMITER_LEFT.getBytes(UTF_8);
+    private static final byte[] HEAD_CONTENT_BYTES = HEAD_CONTENT.getBytes(UTF_8);
+    private static final byte[] HEAD_SEPARATOR_BYTES = HEAD_SEPARATOR.getBytes(UTF_8);
+    private static final byte[] HEAD_DELIMITER_RIGHT_BYTES = HEAD_DELIMITER_RIGHT.getBytes(UTF_8);
+    private static final byte[] BODY_DELIMITER_LEFT_BYTES = BODY_DELIMITER_LEFT.getBytes(UTF_8);
+    private static final byte[] BODY_SEPARATOR_BYTES = BODY_SEPARATOR.getBytes(UTF_8);
+    private static final byte[] BODY_DELIMITER_RIGHT_BYTES = BODY_DELIMITER_RIGHT.getBytes(UTF_8);
+    private static final byte[] FOOT_DELIMITER_LEFT_BYTES = FOOT_DELIMITER_LEFT.getBytes(UTF_8);
+    private static final byte[] FOOT_CONTENT_BYTES = FOOT_CONTENT.getBytes(UTF_8);
+    private static final byte[] FOOT_SEPARATOR_BYTES = FOOT_SEPARATOR.getBytes(UTF_8);
+    private static final byte[] FOOT_DELIMITER_RIGHT_BYTES = FOOT_DELIMITER_RIGHT.getBytes(UTF_8);
+    private static final byte[] ALIVE_BYTES = ALIVE.getBytes(UTF_8);
+    private static final byte[] DEAD_BYTES = DEAD.getBytes(UTF_8);
+    private static final byte NEWLINE = '\n';
+
+    private final ByteBuffer buffer;
+    private long[] row = new long[0];
+
+    // The channel around the last output stream (which is usually the same
+    // one every frame), so it doesn't have to be created for every frame:
+    private OutputStream outputStream;
+    private WritableByteChannel outputStreamChannel;
+
+    public StreamingGridWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public StreamingGridWriter(int bufferSize) {
+        // Need room for at least the widest piece we write in one go:
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 16));
+    }
+
+    public void write(RepeatingGrid grid, WritableByteChannel channel) throws IOException {
+        write(grid, grid.numberOfRows, grid.numberOfColumns, channel);
+    }
+
+    public void write(Grid grid, int numberOfRows, int numberOfColumns, OutputStream outputStream) throws IOException {
+        write(grid, numberOfRows, numberOfColumns, channelOf(outputStream));
+        outputStream.flush();
+    }
+
+    public void write(Grid grid, int numberOfRows, int numberOfColumns, WritableByteChannel channel) throws IOException {
+
+        if (numberOfColumns == 0 || numberOfRows == 0) {
+            return;
+        }
+
+        var wordsPerRow = (numberOfColumns + 63) >>> 6;
+        if (row.length < wordsPerRow) {
+            row = new long[wordsPerRow];
+        }
+
+        buffer.clear();
+
+        writeLine(HEAD_DELIMITER_LEFT_BYTES, HEAD_CONTENT_BYTES, HEAD_SEPARATOR_BYTES, HEAD_DELIMITER_RIGHT_BYTES, numberOfColumns, channel);
+
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            grid.getRow(rowIndex, numberOfColumns, row);
+
+            put(BODY_DELIMITER_LEFT_BYTES, channel);
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+                if (columnIndex > 0) {
+                    put(BODY_SEPARATOR_BYTES, channel);
+                }
+                var isAlive = (row[columnIndex >>> 6] & (1L << columnIndex)) != 0;
+                put(isAlive ? ALIVE_BYTES : DEAD_BYTES, channel);
+            }
+            put(BODY_DELIMITER_RIGHT_BYTES, channel);
+            put(NEWLINE, channel);
+        }
+
+        writeLine(FOOT_DELIMITER_LEFT_BYTES, FOOT_CONTENT_BYTES, FOOT_SEPARATOR_BYTES, FOOT_DELIMITER_RIGHT_BYTES, numberOfColumns, channel);
+
+        flush(channel);
+    }
+
+    private void writeLine(byte[] left, byte[] content, byte[] separator, byte[] right, int numberOfColumns, WritableByteChannel channel) throws IOException {
+        put(left, channel);
+        for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+            if (columnIndex > 0) {
+                put(separator, channel);
+            }
+            put(content, channel);
+        }
+        put(right, channel);
+        put(NEWLINE, channel);
+    }
+
+    private void put(byte[] bytes, WritableByteChannel channel) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            flush(channel);
+        }
+        buffer.put(bytes);
+    }
+
+    private void put(byte b, WritableByteChannel channel) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush(channel);
+        }
+        buffer.put(b);
+    }
+
+    private void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private WritableByteChannel channelOf(OutputStream outputStream) {
+        if (outputStream != this.outputStream) {
+            this.outputStream = outputStream;
+            this.outputStreamChannel = Channels.newChannel(outputStream);
+        }
+        return outputStreamChannel;
+    }
+}
@@ -0,0 +1,106 @@
+package nl.wernerdegroot.gameoflife;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The game of life as it is traditionally played: on an infinite grid.
+ * <p>
+ * Only the live cells are stored, so the amount of memory needed is
+ * proportional to the population, no matter how far apart the live cells
+ * are. The coordinates of every live cell are packed into a single
+ * {@code long} (see {@link Cell#pack(int, int)}).
+ * <p>
+ * To compute the next generation, we only visit the live cells. Every
+ * live cell adds one to the number of live neighbours of each of its
+ * neighbours. Cells that don't show up in that tally have no live
+ * neighbours, and are therefore dead in the next generation.
+ */
+public class UnboundedGrid implements Grid {
+
+    final LongCellSet generation;
+
+    public static final UnboundedGrid EMPTY = new UnboundedGrid(new LongCellSet(0));
+
+    UnboundedGrid(LongCellSet generation) {
+        this.generation = generation;
+    }
+
+    public static UnboundedGrid of(Collection<Cell> liveCells) {
+        var generation = new LongCellSet(liveCells.size());
+        for (var cell : liveCells) {
+            generation.add(cell.pack());
+        }
+        return new UnboundedGrid(generation);
+    }
+
+    public Set<Cell> getLiveCells() {
+        Set<Cell> liveCells = new HashSet<>();
+        generation.forEach(packed -> liveCells.add(Cell.unpack(packed)));
+        return liveCells;
+    }
+
+    @Override
+    public boolean isAlive(int rowIndex, int columnIndex) {
+        return generation.contains(Cell.pack(rowIndex, columnIndex));
+    }
+
+    @Override
+    public long getPopulation() {
+        return generation.size();
+    }
+
+    @Override
+    public long getNumberOfBirthsSince(Grid previous) {
+        if (previous instanceof UnboundedGrid that) {
+            return generation.count(packed -> !that.generation.contains(packed));
+        }
+        return generation.count(packed -> previous.isDead(Cell.rowIndexOf(packed), Cell.columnIndexOf(packed)));
+    }
+
+    @Override
+    public UnboundedGrid getNextIteration() {
+        var numberOfLiveNeighbours = new NeighbourCounts(generation.size() * 4);
+        generation.forEach(packed -> {
+            var rowIndex = Cell.rowIndexOf(packed);
+            var columnIndex = Cell.columnIndexOf(packed);
+            for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    if (rowOffset != 0 || columnOffset != 0) {
+                        var neighbour = Cell.pack(rowIndex + rowOffset, columnIndex + columnOffset);
+                        numberOfLiveNeighbours.increment(neighbour);
+                    }
+                }
+            }
+        });
+
+        var nextGeneration = new LongCellSet(generation.size());
+        numberOfLiveNeighbours.forEach((packed, count) -> {
+            if (count == 3 || (count == 2 && generation.contains(packed))) {
+                nextGeneration.add(packed);
+            }
+        });
+        return new UnboundedGrid(nextGeneration);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        UnboundedGrid that = (UnboundedGrid) o;
+        return Objects.equals(generation, that.generation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(generation);
+    }
+
+    @Override
+    public String toString() {
+        return "UnboundedGrid{" +
+               "generation=" + getLiveCells() +
+               '}';
+    }
+}
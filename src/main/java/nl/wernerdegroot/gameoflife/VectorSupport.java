@@ -0,0 +1,32 @@
+package nl.wernerdegroot.gameoflife;
+
+/**
+ * Finds out whether the Vector API is available. The vectorized kernel
+ * refers to classes in {@code jdk.incubator.vector}, so it can only be
+ * loaded when that module is. That's why it's loaded by name, and only
+ * after checking for the module.
+ */
+final class VectorSupport {
+
+    static final String MODULE_NAME = "jdk.incubator.vector";
+
+    static final RowKernel SCALAR_KERNEL = BitPackedGrid::stepRow;
+
+    // `null` when the Vector API is not available.
+    static final RowKernel VECTORIZED_KERNEL = loadVectorizedKernel();
+
+    private VectorSupport() {
+    }
+
+    private static RowKernel loadVectorizedKernel() {
+        if (ModuleLayer.boot().findModule(MODULE_NAME).isEmpty()) {
+            return null;
+        }
+        try {
+            var kernelClass = Class.forName(VectorSupport.class.getPackageName() + ".VectorizedRowKernel");
+            return (RowKernel) kernelClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
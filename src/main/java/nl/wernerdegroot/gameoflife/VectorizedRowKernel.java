@@ -0,0 +1,108 @@
+package nl.wernerdegroot.gameoflife;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+/**
+ * Does exactly what {@link BitPackedGrid#applyConwaysRule} does, but for a
+ * number of words at once, using the Vector API.
+ * <p>
+ * The cells to the west and east of a word are found by shifting it, and
+ * shifting in the last (or first) bit of the word next to it. For all but
+ * the first and the last word of a row, the word next to it is simply the
+ * word before (or after) it in the array. So we load the words of a row
+ * three times: as is, one word to the left and one word to the right.
+ * <p>
+ * The first and the last word of a row wrap around (and the last word
+ * needs to be masked), so those are left to the scalar kernel. So are
+ * rows that are too narrow to fill a single vector.
+ * <p>
+ * Only loaded when the {@code jdk.incubator.vector} module is available
+ * (see {@link VectorSupport}).
+ */
+final class VectorizedRowKernel implements RowKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void stepRow(
+            long[] above, int aboveOffset,
+            long[] row, int rowOffset,
+            long[] below, int belowOffset,
+            long[] next, int nextOffset,
+            int numberOfColumns,
+            int fromWordIndex,
+            int toWordIndex
+    ) {
+        var wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        var fromInnerWordIndex = Math.max(fromWordIndex, 1);
+        var toInnerWordIndex = Math.min(toWordIndex, wordsPerRow - 1);
+        var lanes = SPECIES.length();
+        if (toInnerWordIndex - fromInnerWordIndex < lanes) {
+            BitPackedGrid.stepRow(above, aboveOffset, row, rowOffset, below, belowOffset, next, nextOffset, numberOfColumns, fromWordIndex, toWordIndex);
+            return;
+        }
+
+        // First word (if it's in the range):
+        BitPackedGrid.stepRow(above, aboveOffset, row, rowOffset, below, belowOffset, next, nextOffset, numberOfColumns, fromWordIndex, fromInnerWordIndex);
+
+        for (var wordIndex = fromInnerWordIndex; wordIndex < toInnerWordIndex; wordIndex += lanes) {
+            // The last vector may overlap with the one before it (which is
+            // fine, we just compute some words twice):
+            wordIndex = Math.min(wordIndex, toInnerWordIndex - lanes);
+            var nw = west(above, aboveOffset + wordIndex);
+            var n = LongVector.fromArray(SPECIES, above, aboveOffset + wordIndex);
+            var ne = east(above, aboveOffset + wordIndex);
+            var w = west(row, rowOffset + wordIndex);
+            var alive = LongVector.fromArray(SPECIES, row, rowOffset + wordIndex);
+            var e = east(row, rowOffset + wordIndex);
+            var sw = west(below, belowOffset + wordIndex);
+            var s = LongVector.fromArray(SPECIES, below, belowOffset + wordIndex);
+            var se = east(below, belowOffset + wordIndex);
+
+            applyConwaysRule(nw, n, ne, w, alive, e, sw, s, se).intoArray(next, nextOffset + wordIndex);
+        }
+
+        // Last word (if it's in the range):
+        BitPackedGrid.stepRow(above, aboveOffset, row, rowOffset, below, belowOffset, next, nextOffset, numberOfColumns, toInnerWordIndex, toWordIndex);
+    }
+
+    private static LongVector west(long[] words, int offset) {
+        var current = LongVector.fromArray(SPECIES, words, offset);
+        var before = LongVector.fromArray(SPECIES, words, offset - 1);
+        return current.lanewise(LSHL, 1).or(before.lanewise(LSHR, 63));
+    }
+
+    private static LongVector east(long[] words, int offset) {
+        var current = LongVector.fromArray(SPECIES, words, offset);
+        var after = LongVector.fromArray(SPECIES, words, offset + 1);
+        return current.lanewise(LSHR, 1).or(after.lanewise(LSHL, 63));
+    }
+
+    private static LongVector applyConwaysRule(
+            LongVector nw, LongVector n, LongVector ne,
+            LongVector w, LongVector alive, LongVector e,
+            LongVector sw, LongVector s, LongVector se
+    ) {
+        var onesAbove = nw.lanewise(XOR, n).lanewise(XOR, ne);
+        var twosAbove = nw.and(n).or(nw.and(ne)).or(n.and(ne));
+        var onesMiddle = w.lanewise(XOR, e);
+        var twosMiddle = w.and(e);
+        var onesBelow = sw.lanewise(XOR, s).lanewise(XOR, se);
+        var twosBelow = sw.and(s).or(sw.and(se)).or(s.and(se));
+
+        var ones = onesAbove.lanewise(XOR, onesMiddle).lanewise(XOR, onesBelow);
+        var carry = onesAbove.and(onesMiddle).or(onesAbove.and(onesBelow)).or(onesMiddle.and(onesBelow));
+
+        var oddNumberOfTwos = twosAbove.lanewise(XOR, twosMiddle).lanewise(XOR, twosBelow).lanewise(XOR, carry);
+        var atLeastTwoTwos = twosAbove.and(twosMiddle).or(twosAbove.and(twosBelow)).or(twosAbove.and(carry))
+                .or(twosMiddle.and(twosBelow)).or(twosMiddle.and(carry)).or(twosBelow.and(carry));
+        var twoOrThree = oddNumberOfTwos.and(atLeastTwoTwos.not());
+
+        return twoOrThree.and(ones.or(alive));
+    }
+}
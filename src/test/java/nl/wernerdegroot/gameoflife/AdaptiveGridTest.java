@@ -0,0 +1,91 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveGridTest {
+
+    // A blinker, and five cells that die right away: 8 live cells out of
+    // 100, and 3 in every generation after that.
+    private static final RepeatingGrid BLINKER_AND_DEBRIS = new RepeatingGrid(10, 10, Set.of(
+            new Cell(1, 1), new Cell(1, 2), new Cell(1, 3),
+            new Cell(5, 0), new Cell(5, 5), new Cell(8, 3), new Cell(8, 8), new Cell(3, 7)
+    ));
+
+    @Test
+    void should_agree_with_repeating_grid_and_respect_the_thresholds() {
+        var expected = BitPackedGridTest.randomSoup(new Random(109), 48, 48);
+        var grid = new AdaptiveGrid(expected, 0.1, 0.3);
+        var numberOfSwitches = 0;
+        for (var generation = 0; generation < 300; generation++) {
+            assertEquals(expected, grid.toRepeatingGrid());
+            if (grid.getEngine() == Engine.BIT_PACKED) {
+                assertTrue(grid.getDensity() >= 0.1);
+            } else {
+                assertTrue(grid.getDensity() <= 0.3);
+            }
+            if (grid.hasSwitchedEngine()) {
+                numberOfSwitches++;
+            }
+            expected = expected.getNextIteration();
+            grid = grid.getNextIteration();
+        }
+        assertTrue(numberOfSwitches > 0);
+    }
+
+    @Test
+    void should_start_with_the_representation_that_suits_the_density() {
+        assertEquals(Engine.BIT_PACKED, new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.01, 0.05).getEngine());
+        assertEquals(Engine.SPARSE, new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.01, 0.1).getEngine());
+    }
+
+    @Test
+    void should_switch_to_sparse_when_the_density_drops_below_the_sparse_threshold() {
+        var grid = new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.05, 0.07);
+        assertEquals(Engine.BIT_PACKED, grid.getEngine());
+        assertFalse(grid.hasSwitchedEngine());
+
+        var next = grid.getNextIteration();
+
+        assertEquals(Engine.SPARSE, next.getEngine());
+        assertTrue(next.hasSwitchedEngine());
+        assertEquals(3, next.getPopulation());
+        assertEquals(2, next.getNumberOfBirthsSince(grid));
+    }
+
+    @Test
+    void should_not_switch_in_between_the_thresholds() {
+        // The density drops from 0.08 to 0.03, which is still above the
+        // sparse threshold:
+        var grid = new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.02, 0.07).getNextIteration();
+
+        assertEquals(Engine.BIT_PACKED, grid.getEngine());
+        assertFalse(grid.hasSwitchedEngine());
+    }
+
+    @Test
+    void should_reject_thresholds_the_wrong_way_around() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.1, 0.05));
+    }
+
+    @Test
+    void metrics_should_report_the_engine_and_the_switches() {
+        var metrics = new SimulationMetrics();
+        Grid grid = new AdaptiveGrid(BLINKER_AND_DEBRIS, 0.05, 0.07);
+
+        grid = metrics.step(grid);
+        grid = metrics.step(grid);
+
+        assertEquals("sparse", metrics.getEngine());
+        assertEquals(1, metrics.getNumberOfEngineSwitches());
+        assertEquals(metrics.getLastEngineSwitchNanos(), metrics.getTotalEngineSwitchNanos());
+        assertEquals(3, grid.getPopulation());
+    }
+}
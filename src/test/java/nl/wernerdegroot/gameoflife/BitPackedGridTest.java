@@ -0,0 +1,304 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitPackedGridTest {
+
+    @Test
+    void converting_from_and_to_a_repeating_grid_should_be_lossless() {
+        var repeatingGrid = RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │ │X│ │
+                │ │X│X│
+                │X│ │ │
+                └─┴─┴─┘
+                """);
+
+        var toVerify = BitPackedGrid.from(repeatingGrid).toRepeatingGrid();
+
+        assertEquals(repeatingGrid, toVerify);
+    }
+
+    @Test
+    void is_alive_should_wrap_around() {
+        var grid = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │ │ │ │
+                │ │ │ │
+                │ │ │X│
+                └─┴─┴─┘
+                """));
+
+        assertTrue(grid.isAlive(2, 2));
+        assertTrue(grid.isAlive(-1, -1));
+        assertTrue(grid.isAlive(5, 5));
+        assertFalse(grid.isAlive(0, 0));
+    }
+
+    @Test
+    void get_next_iteration_should_consider_survivors() {
+        // See https://nl.wikipedia.org/wiki/Game_of_Life
+        var grid = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │X│ │ │
+                │ │X│ │
+                │X│ │ │
+                └─┴─┴─┘
+                """));
+
+        var toVerify = grid.getNextIteration();
+
+        assertTrue(toVerify.isAlive(1, 1));
+    }
+
+    @Test
+    void get_next_iteration_should_consider_overcrowding() {
+        // See https://nl.wikipedia.org/wiki/Game_of_Life
+        var grid = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │X│ │X│
+                │ │X│ │
+                │X│ │X│
+                └─┴─┴─┘
+                """));
+
+        var toVerify = grid.getNextIteration();
+
+        assertTrue(toVerify.isDead(1, 1));
+    }
+
+    @Test
+    void get_next_iteration_should_consider_births() {
+        // See https://nl.wikipedia.org/wiki/Game_of_Life
+        var grid = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │X│ │X│
+                │ │ │ │
+                │X│ │ │
+                └─┴─┴─┘
+                """));
+
+        var toVerify = grid.getNextIteration();
+
+        assertTrue(toVerify.isAlive(1, 1));
+    }
+
+    @Test
+    void get_next_iteration_should_be_correct() {
+
+        var grid = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│ │ │
+                │ │ │X│X│ │
+                │ │X│ │ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """));
+
+        var expected = BitPackedGrid.from(RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│X│ │
+                │ │X│X│X│ │
+                │ │ │X│ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """));
+
+        var toVerify = grid.getNextIteration();
+
+        assertEquals(expected, toVerify);
+    }
+
+    @Test
+    void get_next_iteration_should_agree_with_repeating_grid_on_random_soups() {
+        // Includes sizes that are smaller than, equal to and larger than
+        // a single word, to make sure that wrapping at the edges is right.
+        int[][] sizes = {{1, 1}, {2, 2}, {3, 5}, {7, 63}, {5, 64}, {9, 65}, {4, 130}, {66, 200}};
+
+        var random = new Random(42);
+        for (var size : sizes) {
+            var repeatingGrid = randomSoup(random, size[0], size[1]);
+            var bitPackedGrid = BitPackedGrid.from(repeatingGrid);
+
+            for (var generation = 0; generation < 10; generation++) {
+                assertEquals(repeatingGrid, bitPackedGrid.toRepeatingGrid());
+
+                repeatingGrid = repeatingGrid.getNextIteration();
+                bitPackedGrid = bitPackedGrid.getNextIteration();
+            }
+        }
+    }
+
+    @Test
+    void generation_hash_should_be_kept_up_to_date_while_stepping() {
+        try (var pool = new ForkJoinPool(4)) {
+            var sequential = BitPackedGrid.from(randomSoup(new Random(43), 700, 300));
+            var parallel = sequential.withParallelism(pool);
+            // From now on, the hash is derived from the flipped cells:
+            sequential.getGenerationHash();
+            parallel.getGenerationHash();
+
+            for (var generation = 0; generation < 20; generation++) {
+                sequential = sequential.getNextIteration();
+                parallel = parallel.getNextIteration();
+
+                var expected = sequential.toRepeatingGrid().getGenerationHash();
+                assertEquals(expected, sequential.getGenerationHash());
+                assertEquals(expected, parallel.getGenerationHash());
+            }
+        }
+    }
+
+    @Test
+    void get_next_iteration_in_parallel_should_be_identical_to_sequential() {
+        // Large enough to be split into a number of bands:
+        try (var pool = new ForkJoinPool(4)) {
+            var sequential = BitPackedGrid.from(randomSoup(new Random(7), 1000, 1000));
+            var parallel = sequential.withParallelism(pool);
+
+            for (var generation = 0; generation < 10; generation++) {
+                sequential = sequential.getNextIteration();
+                parallel = parallel.getNextIteration();
+
+                assertEquals(sequential, parallel);
+            }
+        }
+    }
+
+    @Test
+    void get_next_iteration_should_only_recompute_tiles_near_changes() {
+        // A blinker in one corner, a block in the opposite corner, on a
+        // board that consists of 4 by 3 tiles:
+        var numberOfRows = 4 * BitPackedGrid.TILE_ROWS;
+        var numberOfColumns = 3 * BitPackedGrid.TILE_WORDS * 64;
+        var repeatingGrid = new RepeatingGrid(numberOfRows, numberOfColumns, Set.of(
+                new Cell(10, 10), new Cell(10, 11), new Cell(10, 12),
+                new Cell(200, 1000), new Cell(200, 1001), new Cell(201, 1000), new Cell(201, 1001)
+        ));
+        var grid = BitPackedGrid.from(repeatingGrid);
+
+        // Without history, every tile is recomputed:
+        assertEquals(12, grid.getNumberOfActiveTiles());
+
+        for (var generation = 0; generation < 10; generation++) {
+            grid = grid.getNextIteration();
+            repeatingGrid = repeatingGrid.getNextIteration();
+
+            assertEquals(repeatingGrid, grid.toRepeatingGrid());
+        }
+
+        // Only the tile containing the blinker keeps changing. That tile
+        // and the 8 (wrapped) tiles around it are recomputed:
+        assertEquals(9, grid.getNumberOfActiveTiles());
+    }
+
+    @Test
+    void get_next_iteration_with_tiles_should_agree_with_recomputing_everything() {
+        // Lots of activity in one region that spreads out over time:
+        var random = new Random(23);
+        var soup = randomSoup(random, 40, 40);
+        var grid = BitPackedGrid.from(new RepeatingGrid(200, 1100, soup.getLiveCells()));
+
+        for (var generation = 0; generation < 200; generation++) {
+            var expected = new BitPackedGrid(grid.numberOfRows, grid.numberOfColumns, grid.words).getNextIteration();
+            grid = grid.getNextIteration();
+
+            assertEquals(expected, grid);
+        }
+    }
+
+    @Test
+    void get_next_iteration_should_follow_any_rule() {
+        var rules = List.of(Rule.HIGH_LIFE, Rule.DAY_AND_NIGHT, Rule.SEEDS, Rule.parse("B3/S012345678"), Rule.parse("B012345678/S"), Rule.parse("B0/S8"));
+
+        var random = new Random(43);
+        for (var rule : rules) {
+            var grid = BitPackedGrid.from(randomSoup(random, 9, 70)).withRule(rule);
+
+            for (var generation = 0; generation < 5; generation++) {
+                var toVerify = grid.getNextIteration();
+
+                for (var rowIndex = 0; rowIndex < grid.numberOfRows; rowIndex++) {
+                    for (var columnIndex = 0; columnIndex < grid.numberOfColumns; columnIndex++) {
+                        var expected = rule.isAliveInNextGeneration(grid.isAlive(rowIndex, columnIndex), getNumberOfLiveNeighbours(grid, rowIndex, columnIndex));
+                        assertEquals(expected, toVerify.isAlive(rowIndex, columnIndex), rule + " at (" + rowIndex + ", " + columnIndex + ")");
+                    }
+                }
+
+                grid = toVerify;
+            }
+        }
+    }
+
+    @Test
+    void get_next_iteration_should_agree_with_repeating_grid_for_other_rules() {
+        var random = new Random(44);
+        for (var rule : List.of(Rule.HIGH_LIFE, Rule.DAY_AND_NIGHT, Rule.SEEDS, Rule.parse("B3/S012345678"))) {
+            var repeatingGrid = randomSoup(random, 30, 100).withRule(rule);
+            var bitPackedGrid = BitPackedGrid.from(repeatingGrid);
+
+            for (var generation = 0; generation < 10; generation++) {
+                assertEquals(repeatingGrid, bitPackedGrid.toRepeatingGrid());
+
+                repeatingGrid = repeatingGrid.getNextIteration();
+                bitPackedGrid = bitPackedGrid.getNextIteration();
+            }
+        }
+    }
+
+    @Test
+    void random_soup_should_be_the_same_when_generated_in_bands() {
+        var expected = BitPackedGrid.randomSoup(50, 130, 0.4, 139);
+
+        var words = new long[expected.words.length];
+        for (var fromRowIndex = 0; fromRowIndex < 50; fromRowIndex += 7) {
+            var toRowIndex = Math.min(50, fromRowIndex + 7);
+            BitPackedGrid.randomSoup(fromRowIndex, toRowIndex, 130, 0.4, 139, words, fromRowIndex * expected.wordsPerRow);
+        }
+
+        assertEquals(expected, new BitPackedGrid(50, 130, words));
+        // Still the same soup as one `Random` would give, cell by cell:
+        var random = new Random(139);
+        for (var rowIndex = 0; rowIndex < 50; rowIndex++) {
+            for (var columnIndex = 0; columnIndex < 130; columnIndex++) {
+                assertEquals(random.nextDouble() < 0.4, expected.isAlive(rowIndex, columnIndex));
+            }
+        }
+    }
+
+    private static int getNumberOfLiveNeighbours(Grid grid, int rowIndex, int columnIndex) {
+        var numberOfLiveNeighbours = 0;
+        for (var rowOffset = -1; rowOffset <= 1; rowOffset++) {
+            for (var columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                if ((rowOffset != 0 || columnOffset != 0) && grid.isAlive(rowIndex + rowOffset, columnIndex + columnOffset)) {
+                    numberOfLiveNeighbours++;
+                }
+            }
+        }
+        return numberOfLiveNeighbours;
+    }
+
+    static RepeatingGrid randomSoup(Random random, int numberOfRows, int numberOfColumns) {
+        Set<Cell> generation = new HashSet<>();
+        for (var rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            for (var columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+                if (random.nextBoolean()) {
+                    generation.add(new Cell(rowIndex, columnIndex));
+                }
+            }
+        }
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    }
+}
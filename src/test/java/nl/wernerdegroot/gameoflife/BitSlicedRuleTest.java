@@ -0,0 +1,36 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitSlicedRuleTest {
+
+    @Test
+    void should_agree_with_the_rule_for_every_cell() {
+        var random = new Random(47);
+        for (var attempt = 0; attempt < 2_000; attempt++) {
+            var rule = new Rule(random.nextInt(1 << 9), random.nextInt(1 << 9));
+            // Sparse, dense and anything in between, so every number of
+            // neighbours (including eight) comes up:
+            var neighbours = new long[8];
+            for (var index = 0; index < neighbours.length; index++) {
+                neighbours[index] = random.nextLong() | (attempt % 3 == 0 ? random.nextLong() : 0L);
+            }
+            var alive = random.nextLong();
+
+            var toVerify = BitSlicedRule.of(rule).apply(neighbours[0], neighbours[1], neighbours[2], neighbours[3], alive, neighbours[4], neighbours[5], neighbours[6], neighbours[7]);
+
+            for (var bit = 0; bit < 64; bit++) {
+                var numberOfLiveNeighbours = 0;
+                for (var neighbour : neighbours) {
+                    numberOfLiveNeighbours += (int) (neighbour >>> bit) & 1;
+                }
+                var expected = rule.isAliveInNextGeneration(((alive >>> bit) & 1) != 0, numberOfLiveNeighbours);
+                assertEquals(expected, ((toVerify >>> bit) & 1) != 0, rule + ", " + numberOfLiveNeighbours + " neighbours");
+            }
+        }
+    }
+}
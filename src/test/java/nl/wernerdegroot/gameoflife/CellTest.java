@@ -66,4 +66,13 @@ class CellTest {
                 )
         );
     }
+
+    @Test
+    void packing_should_be_reversible() {
+        var cell = new Cell(-3, Integer.MAX_VALUE);
+
+        var toVerify = Cell.unpack(cell.pack());
+
+        assertEquals(cell, toVerify);
+    }
 }
@@ -0,0 +1,93 @@
+package nl.wernerdegroot.gameoflife;
+
+import nl.wernerdegroot.gameoflife.Census.Result;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CensusTest {
+
+    @Test
+    void an_empty_soup_should_be_stable_right_away() {
+        var census = new Census(16, 16, 0.0, 100, 1);
+
+        assertEquals(new Result(3, 0, 0, 1), census.run(3));
+    }
+
+    @Test
+    void result_should_agree_with_the_cycle_detector() {
+        var census = new Census(20, 20, 0.3, 2_000, 1);
+        var cycleDetector = new CycleDetector();
+        var grid = census.randomSoup(5).toRepeatingGrid();
+
+        Optional<CycleDetector.Cycle> cycle = Optional.empty();
+        for (var generation = 0L; cycle.isEmpty() && generation <= 2_000; generation++) {
+            cycle = cycleDetector.observe(grid, generation);
+            if (cycle.isEmpty()) {
+                grid = grid.getNextIteration();
+            }
+        }
+
+        var expected = new Result(5, grid.getPopulation(), cycle.orElseThrow().firstGeneration(), cycle.orElseThrow().period());
+        assertEquals(expected, census.run(5));
+    }
+
+    @Test
+    void soups_that_do_not_stabilise_in_time_should_have_empty_columns() {
+        var census = new Census(32, 32, 0.4, 1, 1);
+
+        var result = census.run(7);
+
+        assertEquals(-1, result.generationsToStabilise());
+        assertEquals("7," + result.population() + ",,", result.toCsv());
+    }
+
+    @Test
+    void running_in_parallel_should_give_the_same_results_as_running_sequentially() throws IOException, InterruptedException {
+        var sequential = new StringWriter();
+        new Census(24, 24, 0.35, 500, 1).run(100, 40, sequential);
+        var parallel = new StringWriter();
+        new Census(24, 24, 0.35, 500, 4).run(100, 40, parallel);
+
+        var sequentialLines = sequential.toString().split("\n");
+        var parallelLines = parallel.toString().split("\n");
+
+        assertEquals(41, sequentialLines.length);
+        assertEquals(Census.HEADER, sequentialLines[0]);
+        assertEquals(Census.HEADER, parallelLines[0]);
+        assertThat(Arrays.asList(parallelLines), containsInAnyOrder(sequentialLines));
+    }
+
+    @Test
+    void should_parse_the_arguments() {
+        var arguments = Census.Arguments.parse("--rows", "32", "--columns", "48", "--density", "0.25", "--generations", "0", "--first-seed", "-3", "--soups", "5", "--threads", "2");
+
+        assertEquals(32, arguments.numberOfRows);
+        assertEquals(48, arguments.numberOfColumns);
+        assertEquals(0.25, arguments.density);
+        assertEquals(0, arguments.maximumNumberOfGenerations);
+        assertEquals(-3, arguments.firstSeed);
+        assertEquals(5, arguments.numberOfSoups);
+        assertEquals(2, arguments.numberOfThreads);
+    }
+
+    @Test
+    void should_reject_arguments_that_make_no_sense() {
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--rows"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--rows", "many"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--rows", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--soups", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--generations", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--density", "1.5"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--threads", "0"));
+        assertThrows(IllegalArgumentException.class, () -> Census.Arguments.parse("--soup", "1"));
+    }
+}
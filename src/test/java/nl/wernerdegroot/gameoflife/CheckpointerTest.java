@@ -0,0 +1,116 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointerTest {
+
+    @Test
+    void should_checkpoint_every_interval_and_resume_from_the_latest(@TempDir Path directory) throws IOException {
+        var grid = BitPackedGridTest.randomSoup(new Random(19), 30, 40);
+        RepeatingGrid expected = null;
+
+        try (var checkpointer = new Checkpointer(directory, 5, 100, 2)) {
+            for (var generation = 1L; generation <= 12; generation++) {
+                grid = grid.getNextIteration();
+                var isCheckpoint = checkpointer.offer(grid, generation);
+                assertEquals(generation % 5 == 0, isCheckpoint);
+                if (generation == 10) {
+                    expected = grid;
+                }
+            }
+        }
+
+        var snapshot = Checkpointer.resume(directory).orElseThrow();
+        assertEquals(10L, snapshot.generation());
+        assertEquals(expected, snapshot.toRepeatingGrid());
+        assertEquals(
+                List.of(Checkpointer.getPathOf(directory, 5), Checkpointer.getPathOf(directory, 10)),
+                Checkpointer.listCheckpoints(directory)
+        );
+    }
+
+    @Test
+    void should_only_keep_the_most_recent_checkpoints(@TempDir Path directory) throws IOException {
+        var grid = BitPackedGridTest.randomSoup(new Random(23), 8, 8);
+
+        try (var checkpointer = new Checkpointer(directory, 1, 100, 3)) {
+            for (var generation = 1L; generation <= 10; generation++) {
+                checkpointer.offer(grid, generation);
+            }
+        }
+
+        assertEquals(
+                List.of(Checkpointer.getPathOf(directory, 8), Checkpointer.getPathOf(directory, 9), Checkpointer.getPathOf(directory, 10)),
+                Checkpointer.listCheckpoints(directory)
+        );
+    }
+
+    @Test
+    void should_drop_checkpoints_instead_of_queueing_them_when_the_writer_falls_behind(@TempDir Path directory) throws IOException {
+        // The writer needs a while for each of these:
+        var grid = BitPackedGridTest.randomSoup(new Random(29), 512, 512);
+
+        long numberOfAcceptedCheckpoints = 0;
+        long numberOfDroppedCheckpoints;
+        try (var checkpointer = new Checkpointer(directory, 1, 1, 1)) {
+            for (var generation = 1L; generation <= 1000; generation++) {
+                if (checkpointer.offer(grid, generation)) {
+                    numberOfAcceptedCheckpoints++;
+                }
+            }
+            numberOfDroppedCheckpoints = checkpointer.getNumberOfDroppedCheckpoints();
+        }
+
+        assertEquals(1000, numberOfAcceptedCheckpoints + numberOfDroppedCheckpoints);
+        assertTrue(numberOfDroppedCheckpoints > 0);
+        assertEquals(1, Checkpointer.listCheckpoints(directory).size());
+    }
+
+    @Test
+    void should_not_leave_temporary_files_behind(@TempDir Path directory) throws IOException {
+        try (var checkpointer = new Checkpointer(directory, 1)) {
+            checkpointer.offer(BitPackedGridTest.randomSoup(new Random(31), 10, 10), 1);
+        }
+
+        try (var paths = Files.list(directory)) {
+            assertEquals(List.of(Checkpointer.getPathOf(directory, 1)), paths.toList());
+        }
+    }
+
+    @Test
+    void should_resume_with_the_rule_of_the_checkpoint(@TempDir Path directory) throws IOException {
+        var highLife = Rule.parse("B36/S23");
+        try (var checkpointer = new Checkpointer(directory, 1)) {
+            checkpointer.offer(BitPackedGridTest.randomSoup(new Random(41), 10, 10).withRule(highLife), 1);
+        }
+
+        assertEquals(highLife, Checkpointer.resume(directory).orElseThrow().grid().getRule());
+    }
+
+    @Test
+    void should_resume_from_nothing_when_there_are_no_checkpoints(@TempDir Path directory) throws IOException {
+        assertEquals(Optional.empty(), Checkpointer.resume(directory));
+        assertEquals(Optional.empty(), Checkpointer.resume(directory.resolve("does-not-exist")));
+    }
+
+    @Test
+    void should_report_the_failure_to_write_a_checkpoint(@TempDir Path directory) throws IOException {
+        var checkpointer = new Checkpointer(directory, 1);
+        // Make the temporary file impossible to create:
+        Files.createDirectory(directory.resolve(Checkpointer.getPathOf(directory, 1).getFileName() + ".tmp"));
+
+        checkpointer.offer(BitPackedGridTest.randomSoup(new Random(37), 10, 10), 1);
+
+        assertThrows(IOException.class, checkpointer::close);
+    }
+}
@@ -0,0 +1,118 @@
+package nl.wernerdegroot.gameoflife;
+
+import nl.wernerdegroot.gameoflife.CycleDetector.Cycle;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CycleDetectorTest {
+
+    @Test
+    void should_detect_a_still_life() {
+        var block = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┐
+                │ │ │ │ │
+                │ │X│X│ │
+                │ │X│X│ │
+                │ │ │ │ │
+                └─┴─┴─┴─┘
+                """);
+
+        assertEquals(Optional.of(new Cycle(0, 1)), run(block, new CycleDetector(), 10));
+    }
+
+    @Test
+    void should_detect_an_oscillator() {
+        var blinker = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│ │ │
+                │ │ │X│ │ │
+                │ │ │X│ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """);
+
+        assertEquals(Optional.of(new Cycle(0, 2)), run(blinker, new CycleDetector(), 10));
+    }
+
+    @Test
+    void should_detect_the_first_generation_of_a_cycle() {
+        // Becomes a block after one generation:
+        var tromino = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┐
+                │ │ │ │ │
+                │ │X│X│ │
+                │ │X│ │ │
+                │ │ │ │ │
+                └─┴─┴─┴─┘
+                """);
+
+        assertEquals(Optional.of(new Cycle(1, 1)), run(tromino, new CycleDetector(), 10));
+    }
+
+    @Test
+    void should_detect_a_board_that_died_out() {
+        var lonelyCell = RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │ │ │ │
+                │ │X│ │
+                │ │ │ │
+                └─┴─┴─┘
+                """);
+
+        assertEquals(Optional.of(new Cycle(1, 1)), run(lonelyCell, new CycleDetector(), 10));
+    }
+
+    @Test
+    void should_detect_a_glider_that_wraps_around() {
+        // A glider moves one cell diagonally every 4 generations, so it's
+        // back where it started after 4 * 8 generations:
+        var glider = glider(8, 8);
+
+        assertEquals(Optional.of(new Cycle(0, 32)), run(glider, new CycleDetector(), 100));
+    }
+
+    @Test
+    void should_forget_the_oldest_hashes_first() {
+        var cycleDetector = new CycleDetector(3);
+        for (var generation = 0; generation < 4; generation++) {
+            assertEquals(Optional.empty(), cycleDetector.observe(100 + generation, generation));
+        }
+
+        // Generation 0 is forgotten by now, but generation 2 is not:
+        assertEquals(Optional.empty(), cycleDetector.observe(100, 4));
+        assertEquals(Optional.of(new Cycle(2, 3)), cycleDetector.observe(102, 5));
+    }
+
+    @Test
+    void should_not_detect_cycles_longer_than_the_history() {
+        var glider = glider(8, 8);
+
+        assertEquals(Optional.empty(), run(glider, new CycleDetector(16), 100));
+    }
+
+    private static Optional<Cycle> run(RepeatingGrid grid, CycleDetector cycleDetector, int maximumNumberOfGenerations) {
+        for (var generation = 0L; generation <= maximumNumberOfGenerations; generation++) {
+            var cycle = cycleDetector.observe(grid, generation);
+            if (cycle.isPresent()) {
+                return cycle;
+            }
+            grid = grid.getNextIteration();
+        }
+        return Optional.empty();
+    }
+
+    private static RepeatingGrid glider(int numberOfRows, int numberOfColumns) {
+        return new RepeatingGrid(numberOfRows, numberOfColumns, Set.of(
+                new Cell(0, 1),
+                new Cell(1, 2),
+                new Cell(2, 0),
+                new Cell(2, 1),
+                new Cell(2, 2)
+        ));
+    }
+}
@@ -0,0 +1,128 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DifferentialRendererTest {
+
+    @Test
+    void should_only_redraw_cells_that_flipped() throws IOException {
+        var grid = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│ │ │
+                │ │ │X│ │ │
+                │ │ │X│ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """);
+        var renderer = new DifferentialRenderer(5, 5);
+        renderer.render(grid, new ByteArrayOutputStream());
+
+        var outputStream = new ByteArrayOutputStream();
+        renderer.render(grid.getNextIteration(), outputStream);
+
+        // Four cells flip. We start below the grid, and move back there:
+        var expected = "\033[5A\033[6G \033[1B\033[4GX\033[8GX\033[1B\033[6G \033[3B\r";
+        assertEquals(expected, outputStream.toString(UTF_8));
+    }
+
+    @Test
+    void should_not_write_anything_if_nothing_changed() throws IOException {
+        var grid = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┐
+                │ │ │ │ │
+                │ │X│X│ │
+                │ │X│X│ │
+                │ │ │ │ │
+                └─┴─┴─┴─┘
+                """);
+        var renderer = new DifferentialRenderer(4, 4);
+        renderer.render(grid, new ByteArrayOutputStream());
+
+        var outputStream = new ByteArrayOutputStream();
+        renderer.render(grid.getNextIteration(), outputStream);
+
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    void the_screen_should_show_the_latest_generation() throws IOException {
+        var numberOfRows = 12;
+        var numberOfColumns = 70;
+        var grid = BitPackedGridTest.randomSoup(new Random(31), numberOfRows, numberOfColumns);
+        var renderer = new DifferentialRenderer(numberOfRows, numberOfColumns);
+        var terminal = new Terminal();
+
+        for (var generation = 0; generation < 20; generation++) {
+            var outputStream = new ByteArrayOutputStream();
+            renderer.render(grid, outputStream);
+            terminal.print(outputStream.toString(UTF_8));
+
+            assertEquals(RepeatingGridWriter.write(grid), terminal.getScreen());
+
+            grid = grid.getNextIteration();
+        }
+    }
+
+    /**
+     * Just enough of a terminal to interpret the output of the renderer.
+     */
+    private static class Terminal {
+
+        private final List<StringBuilder> lines = new ArrayList<>();
+        private int line = 0;
+        private int column = 0;
+
+        void print(String output) {
+            var index = 0;
+            while (index < output.length()) {
+                var current = output.charAt(index++);
+                if (current == '\033') {
+                    // Skip '[':
+                    index++;
+                    var argument = 0;
+                    while (Character.isDigit(output.charAt(index))) {
+                        argument = argument * 10 + (output.charAt(index++) - '0');
+                    }
+                    switch (output.charAt(index++)) {
+                        case 'A' -> line -= argument;
+                        case 'B' -> line += argument;
+                        case 'G' -> column = argument - 1;
+                        default -> throw new IllegalArgumentException("Unsupported escape sequence");
+                    }
+                } else if (current == '\n') {
+                    line++;
+                    column = 0;
+                } else if (current == '\r') {
+                    column = 0;
+                } else {
+                    while (lines.size() <= line) {
+                        lines.add(new StringBuilder());
+                    }
+                    var text = lines.get(line);
+                    while (text.length() <= column) {
+                        text.append(' ');
+                    }
+                    text.setCharAt(column++, current);
+                }
+            }
+        }
+
+        String getScreen() {
+            var screen = new StringBuilder();
+            for (var text : lines) {
+                screen.append(text).append('\n');
+            }
+            return screen.toString();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DistributedCoordinatorTest {
+
+    @Test
+    void should_agree_with_bit_packed_grid() throws IOException, InterruptedException {
+        // Including a worker per row, and bands that don't divide the rows evenly:
+        for (var numberOfWorkers : new int[]{1, 2, 3, 7}) {
+            var expected = BitPackedGrid.randomSoup(7, 130, 0.4, 113 + numberOfWorkers);
+            var threads = new ArrayList<Thread>();
+            try (var coordinator = new DistributedCoordinator(expected, startWorkers(numberOfWorkers, threads))) {
+                for (var generation = 0; generation < 30; generation++) {
+                    assertEquals(expected, coordinator.gather(), numberOfWorkers + " workers, generation " + generation);
+                    assertEquals(expected.getPopulation(), coordinator.getPopulation());
+                    expected = expected.getNextIteration();
+                    coordinator.step();
+                }
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    void should_support_other_rules() throws IOException {
+        var expected = BitPackedGrid.randomSoup(40, 70, 0.3, 127).withRule(Rule.HIGH_LIFE);
+        try (var coordinator = new DistributedCoordinator(expected, startWorkers(4, new ArrayList<>()))) {
+            coordinator.step(25);
+            for (var generation = 0; generation < 25; generation++) {
+                expected = expected.getNextIteration();
+            }
+
+            assertEquals(expected, coordinator.gather());
+            assertEquals(expected.toRepeatingGrid(), coordinator.snapshot());
+        }
+    }
+
+    @Test
+    void should_let_the_workers_generate_the_random_soup() throws IOException {
+        var expected = BitPackedGrid.randomSoup(31, 100, 0.35, 149).withRule(Rule.HIGH_LIFE);
+        try (var coordinator = DistributedCoordinator.randomSoup(31, 100, 0.35, 149, Rule.HIGH_LIFE, startWorkers(4, new ArrayList<>()))) {
+            assertEquals(expected, coordinator.gather());
+            assertEquals(expected.getPopulation(), coordinator.getPopulation());
+
+            coordinator.step(10);
+            for (var generation = 0; generation < 10; generation++) {
+                expected = expected.getNextIteration();
+            }
+
+            assertEquals(expected, coordinator.gather());
+        }
+    }
+
+    @Test
+    void should_write_and_resume_from_a_snapshot_band_by_band(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("board.snapshot");
+        var expected = BitPackedGrid.randomSoup(40, 90, 0.3, 151);
+        try (var coordinator = DistributedCoordinator.randomSoup(40, 90, 0.3, 151, Rule.CONWAY, startWorkers(3, new ArrayList<>()))) {
+            coordinator.step(10);
+            coordinator.write(path);
+        }
+        for (var generation = 0; generation < 10; generation++) {
+            expected = expected.getNextIteration();
+        }
+        assertEquals(new Snapshot(expected, 10L), Snapshot.read(path));
+
+        // With a different number of workers:
+        try (var coordinator = DistributedCoordinator.resume(path, startWorkers(5, new ArrayList<>()))) {
+            assertEquals(expected.getPopulation(), coordinator.getPopulation());
+            coordinator.step(5);
+            for (var generation = 0; generation < 5; generation++) {
+                expected = expected.getNextIteration();
+            }
+
+            assertEquals(expected, coordinator.gather());
+            assertEquals(15L, coordinator.getGeneration());
+        }
+    }
+
+    @Test
+    void should_agree_with_bit_packed_grid_across_processes() throws IOException, InterruptedException {
+        var localProcesses = new ArrayList<DistributedWorker.LocalProcess>();
+        try {
+            for (var count = 0; count < 3; count++) {
+                localProcesses.add(DistributedWorker.startLocalProcess());
+            }
+            var addresses = localProcesses.stream().map(DistributedWorker.LocalProcess::address).toList();
+
+            var expected = BitPackedGrid.randomSoup(100, 200, 0.3, 131);
+            try (var coordinator = new DistributedCoordinator(expected, addresses)) {
+                coordinator.step(50);
+                for (var generation = 0; generation < 50; generation++) {
+                    expected = expected.getNextIteration();
+                }
+
+                assertEquals(expected, coordinator.gather());
+            }
+        } finally {
+            for (var localProcess : localProcesses) {
+                localProcess.close();
+            }
+        }
+    }
+
+    @Test
+    void should_need_at_least_a_row_per_worker() {
+        var grid = BitPackedGrid.randomSoup(2, 10, 0.5, 137);
+
+        assertThrows(IllegalArgumentException.class, () -> new DistributedCoordinator(grid, List.of()));
+        var worker = InetSocketAddress.createUnresolved("localhost", 1);
+        assertThrows(IllegalArgumentException.class, () -> new DistributedCoordinator(grid, List.of(worker, worker, worker)));
+    }
+
+    /**
+     * Workers in this JVM, each on its own thread, that talk to the
+     * coordinator over sockets just like the ones in separate processes.
+     */
+    private static List<InetSocketAddress> startWorkers(int numberOfWorkers, List<Thread> threads) throws IOException {
+        var addresses = new ArrayList<InetSocketAddress>();
+        for (var count = 0; count < numberOfWorkers; count++) {
+            var serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort()));
+            var thread = Thread.ofPlatform().daemon().start(() -> {
+                try (serverSocket) {
+                    DistributedWorker.serve(serverSocket);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            threads.add(thread);
+        }
+        return addresses;
+    }
+}
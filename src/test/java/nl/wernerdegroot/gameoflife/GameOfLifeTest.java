@@ -0,0 +1,99 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameOfLifeTest {
+
+    @Test
+    void all_engines_should_agree_in_headless_mode() throws IOException {
+        var options = Options.parse("--rows", "40", "--columns", "90", "--seed", "11", "--density", "0.3");
+        var initial = GameOfLife.createInitialGrid(options);
+
+        var expected = initial;
+        for (var generation = 0; generation < 50; generation++) {
+            expected = expected.getNextIteration();
+        }
+
+        for (var engine : Engine.values()) {
+            var grid = engine.create(initial, null);
+            var out = new ByteArrayOutputStream();
+            var result = GameOfLife.runHeadless(grid, 0, 40, 90, initial.getRule(), 50, SimulationMetrics.DISABLED, null, new PrintStream(out, true, UTF_8));
+
+            assertEquals(expected.getPopulation(), result.getPopulation(), engine.toString());
+            assertEquals(expected, toRepeatingGrid(result), engine.toString());
+            assertThat(out.toString(UTF_8), containsString("Generations per second:"));
+            assertThat(out.toString(UTF_8), containsString("Cell updates per second:"));
+        }
+    }
+
+    @Test
+    void headless_mode_should_report_engine_switches_without_metrics() {
+        // A blinker and some debris that dies out, so the density drops
+        // below the sparse threshold after one generation:
+        var initial = new RepeatingGrid(10, 10, Set.of(
+                new Cell(1, 1), new Cell(1, 2), new Cell(1, 3),
+                new Cell(5, 0), new Cell(5, 5), new Cell(8, 3), new Cell(8, 8), new Cell(3, 7)
+        ));
+        var out = new ByteArrayOutputStream();
+
+        GameOfLife.runHeadless(new AdaptiveGrid(initial, 0.05, 0.07), 0, 10, 10, Rule.CONWAY, 4, SimulationMetrics.DISABLED, null, new PrintStream(out, true, UTF_8));
+
+        assertThat(out.toString(UTF_8), containsString("Engine:                  sparse"));
+        assertThat(out.toString(UTF_8), containsString("Engine switches:         1 "));
+    }
+
+    @Test
+    void headless_mode_should_report_births_and_deaths_with_metrics() {
+        // A blinker: two cells are born and two die every generation.
+        var initial = new RepeatingGrid(10, 10, Set.of(new Cell(1, 1), new Cell(1, 2), new Cell(1, 3)));
+        var out = new ByteArrayOutputStream();
+
+        GameOfLife.runHeadless(initial, 0, 10, 10, Rule.CONWAY, 4, new SimulationMetrics(), null, new PrintStream(out, true, UTF_8));
+
+        assertThat(out.toString(UTF_8), containsString("Births:                  8"));
+        assertThat(out.toString(UTF_8), containsString("Deaths:                  8"));
+    }
+
+    @Test
+    void the_same_seed_should_give_the_same_soup() throws IOException {
+        var options = Options.parse("--rows", "30", "--columns", "30", "--seed", "3");
+
+        assertEquals(GameOfLife.createInitialGrid(options), GameOfLife.createInitialGrid(options));
+    }
+
+    @Test
+    void pattern_should_be_centred_on_a_larger_board() {
+        var blinker = new RepeatingGrid(3, 3, Set.of(new Cell(1, 0), new Cell(1, 1), new Cell(1, 2)));
+
+        var centred = GameOfLife.centre(blinker, 9, 11);
+
+        assertEquals(new RepeatingGrid(9, 11, Set.of(new Cell(4, 4), new Cell(4, 5), new Cell(4, 6))), centred);
+    }
+
+    @Test
+    void pattern_should_fit_on_the_board() {
+        var blinker = new RepeatingGrid(3, 3, Set.of(new Cell(1, 0), new Cell(1, 1), new Cell(1, 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> GameOfLife.centre(blinker, 2, 10));
+    }
+
+    private static RepeatingGrid toRepeatingGrid(Grid grid) {
+        return switch (grid) {
+            case BitPackedGrid bitPackedGrid -> bitPackedGrid.toRepeatingGrid();
+            case LookupTableGrid lookupTableGrid -> lookupTableGrid.toRepeatingGrid();
+            case AdaptiveGrid adaptiveGrid -> adaptiveGrid.toRepeatingGrid();
+            default -> (RepeatingGrid) grid;
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashLifeTest {
+
+    @Test
+    void converting_from_and_to_a_repeating_grid_should_be_lossless() {
+        var repeatingGrid = RepeatingGridReader.read("""
+                ┌─┬─┬─┐
+                │ │X│ │
+                │ │X│X│
+                │X│ │ │
+                └─┴─┴─┘
+                """);
+
+        var toVerify = HashLife.from(repeatingGrid).toRepeatingGrid(3, 3);
+
+        assertEquals(repeatingGrid, toVerify);
+    }
+
+    @Test
+    void jump_should_move_a_glider() {
+        var hashLife = new HashLife();
+        hashLife.setAlive(0, 1);
+        hashLife.setAlive(1, 2);
+        hashLife.setAlive(2, 0);
+        hashLife.setAlive(2, 1);
+        hashLife.setAlive(2, 2);
+
+        // Every 4 generations, a glider moves one cell diagonally:
+        hashLife.jump(4_000_000_000L);
+
+        var offset = 1_000_000_000L;
+        assertEquals(5, hashLife.getPopulation());
+        assertTrue(hashLife.isAlive(offset, offset + 1));
+        assertTrue(hashLife.isAlive(offset + 1, offset + 2));
+        assertTrue(hashLife.isAlive(offset + 2, offset));
+        assertTrue(hashLife.isAlive(offset + 2, offset + 1));
+        assertTrue(hashLife.isAlive(offset + 2, offset + 2));
+        assertEquals(4_000_000_000L, hashLife.getGeneration());
+    }
+
+    @Test
+    void jump_should_agree_with_repeating_grid() {
+        // A random soup in the middle of a torus that is large enough for
+        // the pattern to never reach the edges:
+        var numberOfRows = 128;
+        var numberOfColumns = 128;
+        var repeatingGrid = randomSoupInCenter(new Random(3), numberOfRows, numberOfColumns, 10);
+        var hashLife = HashLife.from(repeatingGrid);
+
+        for (var generations : new int[]{1, 2, 3, 5, 8, 13}) {
+            for (var generation = 0; generation < generations; generation++) {
+                repeatingGrid = repeatingGrid.getNextIteration();
+            }
+            hashLife.jump(generations);
+
+            assertEquals(repeatingGrid, hashLife.toRepeatingGrid(numberOfRows, numberOfColumns));
+        }
+    }
+
+    @Test
+    void converting_to_a_repeating_grid_should_ignore_cells_outside_of_it() {
+        var hashLife = new HashLife();
+        // A blinker at the origin, and one far out of the range of an `int`:
+        for (var offset : new long[]{0, 1L << 40}) {
+            hashLife.setAlive(offset + 1, offset);
+            hashLife.setAlive(offset + 1, offset + 1);
+            hashLife.setAlive(offset + 1, offset + 2);
+        }
+        hashLife.setAlive(-1, 1);
+
+        var toVerify = hashLife.toRepeatingGrid(3, 3);
+
+        assertEquals(new RepeatingGrid(3, 3, Set.of(new Cell(1, 0), new Cell(1, 1), new Cell(1, 2))), toVerify);
+    }
+
+    @Test
+    void should_reject_rules_other_than_conways() {
+        var repeatingGrid = new RepeatingGrid(3, 3, Set.of(new Cell(1, 1))).withRule(Rule.HIGH_LIFE);
+
+        assertThrows(IllegalArgumentException.class, () -> HashLife.from(repeatingGrid));
+    }
+
+    @Test
+    void collecting_garbage_should_not_change_the_outcome() {
+        var repeatingGrid = randomSoupInCenter(new Random(5), 256, 256, 16);
+
+        var unbounded = HashLife.from(repeatingGrid);
+        var bounded = HashLife.from(repeatingGrid, 1_000);
+
+        for (var step = 0; step < 20; step++) {
+            unbounded.jump(3);
+            bounded.jump(3);
+        }
+
+        assertEquals(unbounded.getLiveCells(), bounded.getLiveCells());
+        assertTrue(bounded.getNumberOfNodes() < unbounded.getNumberOfNodes());
+    }
+
+    private static RepeatingGrid randomSoupInCenter(Random random, int numberOfRows, int numberOfColumns, int size) {
+        Set<Cell> generation = new HashSet<>();
+        for (var rowIndex = 0; rowIndex < size; rowIndex++) {
+            for (var columnIndex = 0; columnIndex < size; columnIndex++) {
+                if (random.nextBoolean()) {
+                    generation.add(new Cell((numberOfRows - size) / 2 + rowIndex, (numberOfColumns - size) / 2 + columnIndex));
+                }
+            }
+        }
+        return new RepeatingGrid(numberOfRows, numberOfColumns, generation);
+    }
+}
@@ -0,0 +1,94 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongCellSetTest {
+
+    @Test
+    void should_contain_added_cells_only() {
+        var set = LongCellSet.of(Cell.pack(1, 2), Cell.pack(-1, 0));
+
+        assertTrue(set.contains(Cell.pack(1, 2)));
+        assertTrue(set.contains(Cell.pack(-1, 0)));
+        assertFalse(set.contains(Cell.pack(2, 1)));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void should_support_the_cell_in_the_origin() {
+        // The origin packs to `0`, which is also what marks a free slot.
+        var set = new LongCellSet();
+
+        assertFalse(set.contains(Cell.pack(0, 0)));
+        assertTrue(set.add(Cell.pack(0, 0)));
+        assertFalse(set.add(Cell.pack(0, 0)));
+        assertTrue(set.contains(Cell.pack(0, 0)));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void should_behave_like_a_hash_set_while_growing() {
+        var random = new Random(11);
+        var set = new LongCellSet(0);
+        Set<Long> expected = new HashSet<>();
+
+        for (var i = 0; i < 10_000; i++) {
+            var cell = Cell.pack(random.nextInt(200) - 100, random.nextInt(200) - 100);
+            assertEquals(expected.add(cell), set.add(cell));
+        }
+
+        assertEquals(expected.size(), set.size());
+        Set<Long> toVerify = new HashSet<>();
+        set.forEach(toVerify::add);
+        assertEquals(expected, toVerify);
+    }
+
+    @Test
+    void clearing_should_remove_all_cells() {
+        var set = LongCellSet.of(Cell.pack(0, 0), Cell.pack(3, 4));
+
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(Cell.pack(0, 0)));
+        assertFalse(set.contains(Cell.pack(3, 4)));
+    }
+
+    @Test
+    void compact_copy_should_be_equal_and_take_less_than_10_bytes_per_cell() {
+        var set = new LongCellSet();
+        for (var i = 0; i < 100_000; i++) {
+            set.add(Cell.pack(i / 300, i % 300));
+        }
+
+        var toVerify = set.compactCopy();
+
+        assertEquals(set, toVerify);
+        assertEquals(set.hashCode(), toVerify.hashCode());
+        assertTrue(Long.BYTES * toVerify.capacity() < 10 * toVerify.size());
+    }
+
+    @Test
+    void sets_with_different_cells_should_not_be_equal() {
+        assertNotEquals(LongCellSet.of(Cell.pack(0, 1)), LongCellSet.of(Cell.pack(1, 0)));
+    }
+
+    @Test
+    void zobrist_hash_should_not_depend_on_the_order_of_the_cells() {
+        var cells = new long[]{Cell.pack(0, 0), Cell.pack(0, 1), Cell.pack(-5, 7), Cell.pack(1, 0)};
+        var reversed = new long[]{cells[3], cells[2], cells[1], cells[0]};
+
+        assertEquals(LongCellSet.of(cells).zobristHash(), LongCellSet.of(reversed).zobristHash());
+        assertNotEquals(LongCellSet.of(cells).zobristHash(), LongCellSet.of(cells[0], cells[1]).zobristHash());
+        assertEquals(0L, new LongCellSet().zobristHash());
+    }
+}
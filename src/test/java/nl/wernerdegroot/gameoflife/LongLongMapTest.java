@@ -0,0 +1,68 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongLongMapTest {
+
+    @Test
+    void should_support_the_key_zero() {
+        // `0` is also what marks a free slot.
+        var map = new LongLongMap();
+
+        assertEquals(-1, map.get(0, -1));
+        map.put(0, 5);
+        map.put(0, 6);
+        assertEquals(6, map.get(0, -1));
+        assertEquals(1, map.size());
+        map.remove(0);
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void should_behave_like_a_hash_map() {
+        var random = new Random(7);
+        var map = new LongLongMap(4);
+        var expected = new HashMap<Long, Long>();
+        var keys = new ArrayList<Long>();
+
+        for (var operation = 0; operation < 100_000; operation++) {
+            // Few distinct top bits, so there are plenty of collisions:
+            var key = random.nextInt(3) == 0 && !keys.isEmpty()
+                    ? keys.get(random.nextInt(keys.size()))
+                    : (long) random.nextInt(64) << 32 | random.nextInt(1 << 10);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, operation);
+                expected.put(key, (long) operation);
+                keys.add(key);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (var key : keys) {
+            assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1));
+        }
+    }
+
+    @Test
+    void should_be_empty_after_clearing() {
+        var map = new LongLongMap();
+        map.put(0, 1);
+        map.put(3L << 32, 2);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(-1, map.get(3L << 32, -1));
+    }
+}
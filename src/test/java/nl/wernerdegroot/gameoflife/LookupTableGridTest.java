@@ -0,0 +1,80 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LookupTableGridTest {
+
+    @Test
+    void table_should_agree_with_the_rule() {
+        var table = LookupTableGrid.createTable(Rule.CONWAY);
+
+        // A blinker, horizontal in the middle of the block (rows 1 and 2
+        // of the 4x4 block are the ones that are computed):
+        //   . . . .
+        //   x x x .
+        //   . . . .
+        //   . . . .
+        var horizontal = 0b0111 << 4;
+        // The centre becomes vertical: (1, 1) and (2, 1) are alive, (1, 2)
+        // and (2, 2) are not.
+        assertEquals(0b0101, table[horizontal]);
+
+        // Nothing comes from nothing:
+        assertEquals(0, table[0]);
+    }
+
+    @Test
+    void should_agree_with_bit_packed_grid() {
+        var random = new Random(103);
+        // Odd and even sizes, tiny ones, and ones that cross a word boundary:
+        for (var size : new int[][]{{1, 1}, {1, 2}, {2, 1}, {3, 3}, {4, 4}, {5, 7}, {16, 63}, {17, 64}, {31, 65}, {40, 130}}) {
+            var expected = BitPackedGrid.from(BitPackedGridTest.randomSoup(random, size[0], size[1]));
+            var grid = LookupTableGrid.from(expected);
+            for (var generation = 0; generation < 20; generation++) {
+                assertEquals(expected, grid.toBitPackedGrid(), size[0] + "x" + size[1] + ", generation " + generation);
+                expected = expected.getNextIteration();
+                grid = grid.getNextIteration();
+            }
+        }
+    }
+
+    @Test
+    void should_support_other_rules() {
+        var random = new Random(107);
+        for (var rule : List.of(Rule.HIGH_LIFE, Rule.DAY_AND_NIGHT, Rule.SEEDS, Rule.parse("B3/S012345678"))) {
+            var expected = BitPackedGridTest.randomSoup(random, 23, 71).withRule(rule);
+            var grid = LookupTableGrid.from(expected);
+            for (var generation = 0; generation < 10; generation++) {
+                expected = expected.getNextIteration();
+                grid = grid.getNextIteration();
+            }
+            assertEquals(expected, grid.toRepeatingGrid(), rule.toString());
+        }
+    }
+
+    @Test
+    void glider_should_wrap_around_the_edges() {
+        var glider = new RepeatingGrid(7, 9, Set.of(new Cell(0, 1), new Cell(1, 2), new Cell(2, 0), new Cell(2, 1), new Cell(2, 2)));
+        var grid = LookupTableGrid.from(glider);
+
+        // After 4 * 63 generations, the glider has moved 63 cells down and
+        // to the right, which is a multiple of both 7 and 9:
+        for (var generation = 0; generation < 4 * 63; generation++) {
+            grid = grid.getNextIteration();
+        }
+
+        assertEquals(glider, grid.toRepeatingGrid());
+    }
+
+    @Test
+    void should_reject_rules_with_b0() {
+        assertThrows(IllegalArgumentException.class, () -> LookupTableGrid.from(BitPackedGrid.EMPTY).withRule(Rule.parse("B0/S")));
+    }
+}
@@ -0,0 +1,56 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NeighbourCountsTest {
+
+    @Test
+    void should_count_increments_per_cell() {
+        var counts = new NeighbourCounts();
+
+        counts.increment(Cell.pack(0, 0));
+        counts.increment(Cell.pack(0, 0));
+        counts.increment(Cell.pack(1, -1));
+
+        assertEquals(2, counts.get(Cell.pack(0, 0)));
+        assertEquals(1, counts.get(Cell.pack(1, -1)));
+        assertEquals(0, counts.get(Cell.pack(-1, 1)));
+        assertEquals(2, counts.size());
+    }
+
+    @Test
+    void should_behave_like_a_hash_map_while_growing() {
+        var random = new Random(17);
+        var counts = new NeighbourCounts(0);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (var i = 0; i < 10_000; i++) {
+            var cell = Cell.pack(random.nextInt(100), random.nextInt(100));
+            counts.increment(cell);
+            expected.merge(cell, 1, Integer::sum);
+        }
+
+        Map<Long, Integer> toVerify = new HashMap<>();
+        counts.forEach(toVerify::put);
+        assertEquals(expected, toVerify);
+    }
+
+    @Test
+    void clearing_should_reset_all_counts() {
+        var counts = new NeighbourCounts();
+        counts.increment(Cell.pack(0, 0));
+        counts.increment(Cell.pack(2, 3));
+
+        counts.clear();
+
+        assertEquals(0, counts.size());
+        assertEquals(0, counts.get(Cell.pack(0, 0)));
+        assertEquals(0, counts.get(Cell.pack(2, 3)));
+    }
+}
@@ -0,0 +1,95 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapGridTest {
+
+    @Test
+    void should_agree_with_bit_packed_grid() throws IOException {
+        var random = new Random(67);
+        for (var size : new int[][]{{1, 1}, {3, 64}, {17, 65}, {40, 130}}) {
+            var expected = BitPackedGrid.from(BitPackedGridTest.randomSoup(random, size[0], size[1]));
+            try (var grid = OffHeapGrid.from(expected)) {
+                for (var generation = 0; generation < 20; generation++) {
+                    assertEquals(expected, grid.toBitPackedGrid());
+                    assertEquals(expected.getPopulation(), grid.getPopulation());
+                    expected = expected.getNextIteration();
+                    grid.step();
+                }
+            }
+        }
+    }
+
+    @Test
+    void should_agree_with_bit_packed_grid_across_chunks_and_bands() throws IOException {
+        try (var pool = new ForkJoinPool(3)) {
+            var expected = BitPackedGrid.randomSoup(1000, 100, 0.3, 71);
+            // Every chunk holds 7 rows of 2 words:
+            try (var grid = OffHeapGrid.allocate(1000, 100, Rule.CONWAY, RowKernel.scalar(), pool, 7 * 2 * Long.BYTES).fillRandomly(0.3, 71)) {
+                assertEquals(expected, grid.toBitPackedGrid());
+                grid.step(10);
+                for (var generation = 0; generation < 10; generation++) {
+                    expected = expected.getNextIteration();
+                }
+                assertEquals(expected, grid.toBitPackedGrid());
+            }
+        }
+    }
+
+    @Test
+    void should_support_other_rules() throws IOException {
+        var random = new Random(73);
+        for (var rule : List.of(Rule.HIGH_LIFE, Rule.DAY_AND_NIGHT, Rule.SEEDS)) {
+            var expected = BitPackedGrid.from(BitPackedGridTest.randomSoup(random, 30, 70)).withRule(rule);
+            try (var grid = OffHeapGrid.from(expected)) {
+                grid.step(5);
+                for (var generation = 0; generation < 5; generation++) {
+                    expected = expected.getNextIteration();
+                }
+                assertEquals(expected, grid.toBitPackedGrid(), rule.toString());
+            }
+        }
+    }
+
+    @Test
+    void should_reject_rules_with_b0() {
+        assertThrows(IllegalArgumentException.class, () -> OffHeapGrid.allocate(10, 10, Rule.parse("B0/S"), RowKernel.scalar(), null));
+    }
+
+    @Test
+    void mapped_grid_should_step_like_a_direct_one(@TempDir Path directory) throws IOException {
+        try (var mapped = OffHeapGrid.map(directory.resolve("board"), 50, 90).fillRandomly(0.25, 79);
+             var direct = OffHeapGrid.allocate(50, 90).fillRandomly(0.25, 79)) {
+            mapped.step(15);
+            direct.step(15);
+
+            assertEquals(direct.toBitPackedGrid(), mapped.toBitPackedGrid());
+        }
+    }
+
+    @Test
+    void cells_should_wrap_around() throws IOException {
+        try (var grid = OffHeapGrid.allocate(5, 70)) {
+            grid.setAlive(-1, -1, true);
+
+            assertTrue(grid.isAlive(4, 69));
+            assertEquals(1, grid.getPopulation());
+
+            grid.setAlive(4, 69, false);
+
+            assertFalse(grid.isAlive(-1, -1));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionsTest {
+
+    @Test
+    void no_arguments_should_give_the_defaults() {
+        var options = Options.parse();
+
+        assertNull(options.numberOfRows);
+        assertNull(options.numberOfColumns);
+        assertNull(options.seed);
+        assertEquals(Engine.SPARSE, options.engine);
+        assertEquals(Duration.ofSeconds(2), options.interval);
+        assertEquals(SimulationPipeline.FrameDropPolicy.LATEST, options.frameDropPolicy);
+        assertFalse(options.isHeadless);
+    }
+
+    @Test
+    void should_parse_all_options() {
+        var options = Options.parse(
+                "--rows", "100",
+                "--columns", "200",
+                "--density", "0.35",
+                "--seed", "-7",
+                "--pattern", "glider.rle",
+                "--rule", "B36/S23",
+                "--engine", "vectorized",
+                "--threads", "4",
+                "--interval", "50",
+                "--lookahead", "8",
+                "--frame-drop-policy", "drop-oldest",
+                "--headless",
+                "--generations", "5000",
+                "--metrics",
+                "--checkpoint", "checkpoints",
+                "--checkpoint-every", "10"
+        );
+
+        assertEquals(100, options.numberOfRows);
+        assertEquals(200, options.numberOfColumns);
+        assertEquals(0.35, options.density);
+        assertEquals(-7L, options.seed);
+        assertEquals(Path.of("glider.rle"), options.pattern);
+        assertEquals(Rule.HIGH_LIFE, options.rule);
+        assertEquals(Engine.VECTORIZED, options.engine);
+        assertEquals(4, options.numberOfThreads);
+        assertEquals(Duration.ofMillis(50), options.interval);
+        assertEquals(8, options.lookahead);
+        assertEquals(SimulationPipeline.FrameDropPolicy.DROP_OLDEST, options.frameDropPolicy);
+        assertTrue(options.isHeadless);
+        assertEquals(5000, options.numberOfGenerations);
+        assertTrue(options.hasMetrics);
+        assertEquals(Path.of("checkpoints"), options.checkpointDirectory);
+        assertEquals(10, options.checkpointInterval);
+    }
+
+    @Test
+    void should_reject_nonsense() {
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--rows"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--rows", "ten"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--rows", "0"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--density", "1.5"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--rule", "B03/S23"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--generations", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--interval", "-100"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--engine", "quantum"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--frame-drop-policy", "sometimes"));
+        assertThrows(IllegalArgumentException.class, () -> Options.parse("--what"));
+    }
+}
@@ -0,0 +1,144 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static nl.wernerdegroot.gameoflife.PatternReader.Format.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PatternReaderTest {
+
+    // A glider, in a 4 by 5 grid:
+    private static final RepeatingGrid GLIDER = new RepeatingGrid(
+            4,
+            5,
+            Set.of(
+                    new Cell(0, 1),
+                    new Cell(1, 2),
+                    new Cell(2, 0),
+                    new Cell(2, 1),
+                    new Cell(2, 2)
+            )
+    );
+
+    @Test
+    void should_read_rle_correctly() throws IOException {
+        var input = """
+                #N Glider
+                #C A comment
+                x = 5, y = 4, rule = B3/S23
+                bo$2bo$3o!
+                """;
+
+        var toVerify = PatternReader.read(new StringReader(input), RLE);
+
+        assertEquals(GLIDER, toVerify);
+    }
+
+    @Test
+    void should_read_rle_with_runs_of_empty_rows_and_wrapped_lines() throws IOException {
+        var input = """
+                x = 3, y = 5
+                3o2$
+                o
+                b
+                o!
+                """;
+
+        var expected = new RepeatingGrid(5, 3, Set.of(
+                new Cell(0, 0),
+                new Cell(0, 1),
+                new Cell(0, 2),
+                new Cell(2, 0),
+                new Cell(2, 2)
+        ));
+
+        var toVerify = PatternReader.read(new StringReader(input), RLE);
+
+        assertEquals(expected, toVerify);
+    }
+
+    @Test
+    void should_read_plaintext_correctly() throws IOException {
+        var input = """
+                !Name: Glider
+                !
+                .O...
+                ..O..
+                OOO..
+
+                """;
+
+        var toVerify = PatternReader.read(new StringReader(input), PLAINTEXT);
+
+        assertEquals(GLIDER, toVerify);
+    }
+
+    @Test
+    void should_read_box_drawing_correctly() throws IOException {
+        var input = """
+                ┌─┬─┬─┬─┬─┐
+                │ │X│ │ │ │
+                │ │ │X│ │ │
+                │X│X│X│ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """;
+
+        var toVerify = PatternReader.read(new StringReader(input), BOX_DRAWING);
+
+        assertEquals(GLIDER, toVerify);
+    }
+
+    @Test
+    void should_guess_the_format_from_the_file_extension(@TempDir Path directory) throws IOException {
+        var rle = directory.resolve("glider.rle");
+        Files.writeString(rle, "x = 5, y = 4\nbo$2bo$3o!\n");
+        var cells = directory.resolve("glider.cells");
+        Files.writeString(cells, ".O...\n..O..\nOOO..\n.....\n");
+
+        assertEquals(GLIDER, PatternReader.read(rle));
+        assertEquals(GLIDER, PatternReader.read(cells));
+    }
+
+    @Test
+    void should_read_input_larger_than_its_buffer() throws IOException {
+        // A single row, much longer than the internal buffer:
+        var numberOfColumns = 100_000;
+        var input = ".".repeat(numberOfColumns / 2) + "O" + ".".repeat(numberOfColumns / 2 - 1) + "\n";
+
+        var toVerify = PatternReader.read(new StringReader(input), PLAINTEXT);
+
+        assertEquals(new RepeatingGrid(1, numberOfColumns, Set.of(new Cell(0, numberOfColumns / 2))), toVerify);
+    }
+
+    @Test
+    void should_take_the_rule_from_the_rle_header() throws IOException {
+        var input = """
+                x = 5, y = 4, rule = B36/S23:T5,4
+                bo$2bo$3o!
+                """;
+
+        var toVerify = PatternReader.read(new StringReader(input), RLE);
+
+        assertEquals(GLIDER, toVerify);
+        assertEquals(Rule.HIGH_LIFE, toVerify.getRule());
+    }
+
+    @Test
+    void should_reject_rules_that_are_not_supported() {
+        var input = """
+                x = 5, y = 4, rule = B0/S8
+                bo$2bo$3o!
+                """;
+
+        assertThrows(IOException.class, () -> PatternReader.read(new StringReader(input), RLE));
+    }
+}
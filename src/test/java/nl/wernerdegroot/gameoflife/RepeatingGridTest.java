@@ -3,11 +3,13 @@ package nl.wernerdegroot.gameoflife;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RepeatingGridTest {
@@ -258,4 +260,85 @@ class RepeatingGridTest {
 
         assertEquals(expected, toVerify);
     }
+
+    @Test
+    void get_next_iteration_should_agree_with_looking_up_neighbours() {
+        var random = new Random(13);
+        for (var size : new int[]{1, 2, 3, 10, 37}) {
+            var repeatingGrid = BitPackedGridTest.randomSoup(random, size, size + 1);
+
+            for (var generation = 0; generation < 10; generation++) {
+                var expected = repeatingGrid.getNextIterationByLookingUpNeighbours();
+                var toVerify = repeatingGrid.getNextIteration();
+
+                assertEquals(expected, toVerify);
+
+                repeatingGrid = toVerify;
+            }
+        }
+    }
+
+    @Test
+    void generation_hash_computed_while_stepping_should_equal_the_hash_of_the_live_cells() {
+        var random = new Random(41);
+        var repeatingGrid = BitPackedGridTest.randomSoup(random, 30, 31);
+
+        for (var generation = 0; generation < 20; generation++) {
+            repeatingGrid = repeatingGrid.getNextIteration();
+
+            var expected = new RepeatingGrid(30, 31, repeatingGrid.getLiveCells()).getGenerationHash();
+
+            assertEquals(expected, repeatingGrid.getGenerationHash());
+            assertEquals(expected, BitPackedGrid.from(repeatingGrid).getGenerationHash());
+        }
+    }
+
+    @Test
+    void get_next_iteration_should_follow_the_rule_of_the_grid() {
+        // The cell in the middle has 6 live neighbours:
+        var repeatingGrid = RepeatingGridReader.read("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │X│X│X│ │
+                │ │X│ │X│ │
+                │ │X│ │ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """);
+
+        assertTrue(repeatingGrid.getNextIteration().isDead(2, 2));
+        assertTrue(repeatingGrid.withRule(Rule.HIGH_LIFE).getNextIteration().isAlive(2, 2));
+        assertEquals(Rule.HIGH_LIFE, repeatingGrid.withRule(Rule.HIGH_LIFE).getNextIteration().getRule());
+    }
+
+    @Test
+    void get_next_iteration_should_let_cells_without_neighbours_survive_when_the_rule_says_so() {
+        var repeatingGrid = new RepeatingGrid(5, 5, Set.of(new Cell(2, 2))).withRule(Rule.parse("B3/S0"));
+
+        var toVerify = repeatingGrid.getNextIteration();
+
+        assertEquals(repeatingGrid, toVerify);
+    }
+
+    @Test
+    void rules_with_births_without_neighbours_should_not_be_supported() {
+        assertThrows(IllegalArgumentException.class, () -> GRID.withRule(Rule.parse("B0/S")));
+    }
+
+    @Test
+    void get_next_iteration_should_agree_with_looking_up_neighbours_for_other_rules() {
+        var random = new Random(17);
+        for (var rule : List.of(Rule.HIGH_LIFE, Rule.DAY_AND_NIGHT, Rule.SEEDS, Rule.parse("B3/S012345678"))) {
+            var repeatingGrid = BitPackedGridTest.randomSoup(random, 20, 21).withRule(rule);
+
+            for (var generation = 0; generation < 10; generation++) {
+                var expected = repeatingGrid.getNextIterationByLookingUpNeighbours();
+                var toVerify = repeatingGrid.getNextIteration();
+
+                assertEquals(expected, toVerify);
+
+                repeatingGrid = toVerify;
+            }
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowKernelTest {
+
+    @Test
+    void vector_api_should_be_available_in_tests() {
+        // Surefire adds the module, see `pom.xml`:
+        assertTrue(RowKernel.isVectorApiAvailable());
+    }
+
+    @Test
+    void vectorized_kernel_should_agree_with_scalar_kernel_for_any_width_and_range() {
+        var random = new Random(47);
+        for (var numberOfColumns : new int[]{1, 63, 64, 65, 200, 511, 512, 513, 1000, 2048, 4095}) {
+            var wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+            var above = randomRow(random, numberOfColumns);
+            var row = randomRow(random, numberOfColumns);
+            var below = randomRow(random, numberOfColumns);
+
+            for (var attempt = 0; attempt < 20; attempt++) {
+                var fromWordIndex = attempt == 0 ? 0 : random.nextInt(wordsPerRow);
+                var toWordIndex = attempt == 0 ? wordsPerRow : fromWordIndex + random.nextInt(wordsPerRow - fromWordIndex + 1);
+
+                var expected = new long[wordsPerRow];
+                RowKernel.scalar().stepRow(above, 0, row, 0, below, 0, expected, 0, numberOfColumns, fromWordIndex, toWordIndex);
+                var toVerify = new long[wordsPerRow];
+                RowKernel.vectorized().stepRow(above, 0, row, 0, below, 0, toVerify, 0, numberOfColumns, fromWordIndex, toWordIndex);
+
+                assertArrayEquals(expected, toVerify, numberOfColumns + " columns, words " + fromWordIndex + " to " + toWordIndex);
+            }
+        }
+    }
+
+    @Test
+    void get_next_iteration_with_vectorized_kernel_should_agree_with_scalar_kernel() {
+        var random = new Random(53);
+        for (var size : new int[][]{{3, 5}, {17, 700}, {130, 1500}}) {
+            var scalar = BitPackedGrid.from(BitPackedGridTest.randomSoup(random, size[0], size[1]));
+            var vectorized = scalar.withKernel(RowKernel.vectorized());
+
+            for (var generation = 0; generation < 20; generation++) {
+                scalar = scalar.getNextIteration();
+                vectorized = vectorized.getNextIteration();
+
+                assertEquals(scalar, vectorized);
+            }
+        }
+    }
+
+    private static long[] randomRow(Random random, int numberOfColumns) {
+        var wordsPerRow = BitPackedGrid.getWordsPerRow(numberOfColumns);
+        var row = new long[wordsPerRow];
+        for (var wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+            row[wordIndex] = random.nextLong();
+        }
+        row[wordsPerRow - 1] &= BitPackedGrid.getLastWordMask((numberOfColumns - 1) & 63);
+        return row;
+    }
+}
@@ -0,0 +1,59 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleTest {
+
+    @Test
+    void should_parse_b_s_notation() {
+        var toVerify = Rule.parse("B36/S23");
+
+        assertEquals(new Rule(1 << 3 | 1 << 6, 1 << 2 | 1 << 3), toVerify);
+        assertEquals(Rule.HIGH_LIFE, toVerify);
+    }
+
+    @Test
+    void should_parse_b_s_notation_in_any_case_and_order() {
+        assertEquals(Rule.HIGH_LIFE, Rule.parse("b36/s23"));
+        assertEquals(Rule.HIGH_LIFE, Rule.parse("S23/B36"));
+    }
+
+    @Test
+    void should_parse_s_b_notation() {
+        assertEquals(Rule.CONWAY, Rule.parse("23/3"));
+    }
+
+    @Test
+    void should_parse_rules_without_births_or_survivals() {
+        var toVerify = Rule.parse("B2/S");
+
+        assertTrue(toVerify.isBorn(2));
+        for (var count = 0; count <= 8; count++) {
+            assertFalse(toVerify.survives(count));
+        }
+    }
+
+    @Test
+    void should_reject_invalid_rules() {
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B3"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B9/S23"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B3/X23"));
+        assertThrows(IllegalArgumentException.class, () -> new Rule(1 << 9, 0));
+    }
+
+    @Test
+    void conways_rule_should_be_born_with_three_and_survive_with_two_or_three() {
+        for (var count = 0; count <= 8; count++) {
+            assertEquals(count == 3, Rule.CONWAY.isAliveInNextGeneration(false, count));
+            assertEquals(count == 2 || count == 3, Rule.CONWAY.isAliveInNextGeneration(true, count));
+        }
+    }
+
+    @Test
+    void to_string_should_be_b_s_notation() {
+        assertEquals("B3678/S34678", Rule.DAY_AND_NIGHT.toString());
+        assertEquals("B2/S", Rule.SEEDS.toString());
+    }
+}
@@ -0,0 +1,121 @@
+package nl.wernerdegroot.gameoflife;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationMetricsTest {
+
+    // A blinker: two cells die and two cells are born in every generation.
+    private static final RepeatingGrid BLINKER = RepeatingGridReader.read("""
+            ┌─┬─┬─┬─┬─┐
+            │ │ │ │ │ │
+            │ │ │X│ │ │
+            │ │ │X│ │ │
+            │ │ │X│ │ │
+            │ │ │ │ │ │
+            └─┴─┴─┴─┴─┘
+            """);
+
+    @Test
+    void should_record_population_births_and_deaths() {
+        var metrics = new SimulationMetrics();
+
+        var next = metrics.step(BLINKER, RepeatingGrid::getNextIteration);
+
+        assertEquals(BLINKER.getNextIteration(), next);
+        assertEquals(1, metrics.getNumberOfGenerations());
+        assertEquals(3, metrics.getPopulation());
+        assertEquals(2, metrics.getNumberOfBirths());
+        assertEquals(2, metrics.getNumberOfDeaths());
+        assertTrue(metrics.getLastStepTimeNanos() > 0);
+        assertEquals(metrics.getLastStepTimeNanos(), metrics.getTotalStepTimeNanos());
+    }
+
+    @Test
+    void should_count_births_and_deaths_for_every_type_of_grid() {
+        var repeatingGrid = BitPackedGridTest.randomSoup(new Random(59), 20, 70);
+        var next = repeatingGrid.getNextIteration();
+        var expectedBirths = next.getLiveCells().stream().filter(repeatingGrid::isDead).count();
+
+        assertEquals(expectedBirths, next.getNumberOfBirthsSince(repeatingGrid));
+        assertEquals(expectedBirths, BitPackedGrid.from(next).getNumberOfBirthsSince(BitPackedGrid.from(repeatingGrid)));
+        assertEquals(expectedBirths, BitPackedGrid.from(next).getNumberOfBirthsSince(repeatingGrid));
+        assertEquals(expectedBirths, next.getNumberOfBirthsSince(BitPackedGrid.from(repeatingGrid)));
+        assertEquals(expectedBirths, UnboundedGrid.of(next.getLiveCells()).getNumberOfBirthsSince(UnboundedGrid.of(repeatingGrid.getLiveCells())));
+    }
+
+    @Test
+    void should_add_up_totals() {
+        var metrics = new SimulationMetrics();
+
+        Grid grid = BitPackedGrid.from(BLINKER);
+        for (var generation = 0; generation < 10; generation++) {
+            grid = metrics.step(grid);
+        }
+
+        assertEquals(10, metrics.getNumberOfGenerations());
+        assertTrue(metrics.getTotalStepTimeNanos() >= metrics.getMaximumStepTimeNanos());
+        assertTrue(metrics.getGenerationsPerSecond() > 0);
+        assertTrue(metrics.getTotalAllocatedBytes() > 0);
+    }
+
+    @Test
+    void disabled_metrics_should_only_compute_the_next_generation() {
+        var next = SimulationMetrics.DISABLED.step(BLINKER, RepeatingGrid::getNextIteration);
+
+        assertEquals(BLINKER.getNextIteration(), next);
+        assertFalse(SimulationMetrics.DISABLED.isEnabled());
+        assertEquals(0, SimulationMetrics.DISABLED.getNumberOfGenerations());
+    }
+
+    @Test
+    void should_be_available_over_jmx() throws JMException {
+        var metrics = new SimulationMetrics();
+        var objectName = metrics.register("test");
+        try {
+            metrics.step(BLINKER);
+
+            var server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(objectName, "NumberOfGenerations"));
+            assertEquals(2L, server.getAttribute(objectName, "NumberOfBirths"));
+        } finally {
+            metrics.unregister();
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+    @Test
+    void should_emit_jfr_events(@TempDir Path directory) throws IOException {
+        var metrics = new SimulationMetrics();
+        var path = directory.resolve("recording.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable(GenerationEvent.class);
+            recording.start();
+            Grid grid = BLINKER;
+            for (var generation = 0; generation < 3; generation++) {
+                grid = metrics.step(grid);
+            }
+            recording.stop();
+            recording.dump(path);
+        }
+
+        var events = RecordingFile.readAllEvents(path).stream()
+                .filter(event -> event.getEventType().getName().equals("nl.wernerdegroot.gameoflife.Generation"))
+                .toList();
+        assertEquals(3, events.size());
+        assertEquals(3L, events.getLast().getLong("generation"));
+        assertEquals(2L, events.getLast().getLong("births"));
+    }
+}
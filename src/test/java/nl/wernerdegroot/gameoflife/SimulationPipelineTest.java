@@ -0,0 +1,149 @@
+package nl.wernerdegroot.gameoflife;
+
+import nl.wernerdegroot.gameoflife.SimulationPipeline.FrameDropPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationPipelineTest {
+
+    private static final RepeatingGrid SOUP = BitPackedGridTest.randomSoup(new Random(61), 16, 16);
+
+    @Test
+    void should_render_every_generation_in_order_without_dropping_frames() throws Exception {
+        var frames = Collections.synchronizedList(new ArrayList<Frame>());
+        var rendered = new CountDownLatch(50);
+
+        try (var pipeline = new SimulationPipeline<>(SOUP, 0, RepeatingGrid::getNextIteration, 4, FrameDropPolicy.NONE, Duration.ZERO, (grid, generation) -> {
+            frames.add(new Frame(grid, generation));
+            rendered.countDown();
+        }).start()) {
+            rendered.await();
+        }
+
+        var expected = SOUP;
+        for (var index = 0; index < 50; index++) {
+            assertEquals(new Frame(expected, index), frames.get(index));
+            expected = expected.getNextIteration();
+        }
+    }
+
+    @Test
+    void should_let_the_simulation_wait_for_a_slow_renderer_without_dropping_frames() throws Exception {
+        var rendered = new CountDownLatch(5);
+
+        var pipeline = new SimulationPipeline<>(SOUP, 0, RepeatingGrid::getNextIteration, 3, FrameDropPolicy.NONE, Duration.ofMillis(10), (grid, generation) -> rendered.countDown()).start();
+        rendered.await();
+        pipeline.close();
+
+        assertEquals(0, pipeline.getNumberOfDroppedFrames());
+        // At most a buffer full of generations ahead:
+        assertTrue(pipeline.getNumberOfGenerations() <= pipeline.getNumberOfRenderedFrames() + 3);
+    }
+
+    @Test
+    void should_drop_the_oldest_frames_instead_of_slowing_down_the_simulation() throws Exception {
+        var generations = Collections.synchronizedList(new ArrayList<Long>());
+        var rendered = new CountDownLatch(5);
+
+        var pipeline = new SimulationPipeline<>(SOUP, 0, RepeatingGrid::getNextIteration, 2, FrameDropPolicy.DROP_OLDEST, Duration.ofMillis(20), (grid, generation) -> {
+            generations.add(generation);
+            rendered.countDown();
+        }).start();
+        rendered.await();
+        pipeline.close();
+
+        assertTrue(pipeline.getNumberOfDroppedFrames() > 0);
+        assertTrue(pipeline.getNumberOfGenerations() > pipeline.getNumberOfRenderedFrames() + 2);
+        assertIncreasing(generations);
+    }
+
+    @Test
+    void should_keep_to_the_schedule_without_dropping_frames_when_the_renderer_keeps_up() throws Exception {
+        var generations = Collections.synchronizedList(new ArrayList<Long>());
+        var rendered = new CountDownLatch(5);
+
+        var pipeline = new SimulationPipeline<>(SOUP, 100, RepeatingGrid::getNextIteration, 3, FrameDropPolicy.LATEST, Duration.ofMillis(50), (grid, generation) -> {
+            generations.add(generation);
+            rendered.countDown();
+        }).start();
+        rendered.await();
+        pipeline.close();
+
+        assertEquals(0, pipeline.getNumberOfDroppedFrames());
+        // Doesn't run flat out, but at most a buffer full of generations
+        // ahead of the screen:
+        assertTrue(pipeline.getNumberOfGenerations() <= pipeline.getNumberOfRenderedFrames() + 3);
+        synchronized (generations) {
+            for (var index = 0; index < 5; index++) {
+                assertEquals(100L + index, generations.get(index));
+            }
+        }
+    }
+
+    @Test
+    void should_render_the_generation_that_is_due_when_the_renderer_falls_behind() throws Exception {
+        var generations = Collections.synchronizedList(new ArrayList<Long>());
+        var rendered = new CountDownLatch(5);
+
+        var start = System.nanoTime();
+        var pipeline = new SimulationPipeline<>(SOUP, 100, RepeatingGrid::getNextIteration, 8, FrameDropPolicy.LATEST, Duration.ofMillis(10), (grid, generation) -> {
+            generations.add(generation);
+            rendered.countDown();
+            sleep(Duration.ofMillis(35));
+        }).start();
+        rendered.await();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        pipeline.close();
+
+        assertTrue(generations.getFirst() >= 100L);
+        assertTrue(pipeline.getNumberOfDroppedFrames() > 0);
+        assertIncreasing(generations);
+        // Skips ahead to the generation that's due, but not any further:
+        assertTrue(generations.get(4) >= 100L + 4 * 3, "Fell behind: " + generations);
+        assertTrue(generations.get(4) <= 100L + elapsed.toMillis() / 10, "Ran ahead: " + generations);
+    }
+
+    @Test
+    void should_stop_and_report_when_rendering_fails() throws InterruptedException {
+        var pipeline = new SimulationPipeline<>(SOUP, 0, RepeatingGrid::getNextIteration, 2, FrameDropPolicy.NONE, Duration.ZERO, (grid, generation) -> {
+            if (generation == 3) {
+                throw new IOException("Terminal went away");
+            }
+        }).start();
+
+        pipeline.awaitTermination();
+
+        var exception = assertThrows(IOException.class, pipeline::close);
+        assertEquals("Terminal went away", exception.getMessage());
+        assertEquals(3, pipeline.getNumberOfRenderedFrames());
+    }
+
+    // Rendering can't be interrupted, so neither can this:
+    private static void sleep(Duration duration) {
+        var until = System.nanoTime() + duration.toNanos();
+        for (var remaining = duration.toNanos(); remaining > 0; remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void assertIncreasing(List<Long> generations) {
+        synchronized (generations) {
+            for (var index = 1; index < generations.size(); index++) {
+                assertTrue(generations.get(index - 1) < generations.get(index), "Not increasing: " + generations);
+            }
+        }
+    }
+
+    private record Frame(Grid grid, long generation) {
+    }
+}
@@ -0,0 +1,90 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimulatorTest {
+
+    private static final List<Function<RepeatingGrid, Simulator>> SIMULATORS = List.of(
+            SparseSimulator::new,
+            DenseSimulator::new,
+            grid -> OffHeapGrid.from(BitPackedGrid.from(grid))
+    );
+
+    @Test
+    void simulators_should_agree_with_get_next_iteration() {
+        var random = new Random(83);
+        for (var createSimulator : SIMULATORS) {
+            for (var rule : List.of(Rule.CONWAY, Rule.HIGH_LIFE, Rule.parse("B3/S023"))) {
+                var expected = BitPackedGridTest.randomSoup(random, 37, 101).withRule(rule);
+                var simulator = createSimulator.apply(expected);
+                for (var generation = 0; generation < 30; generation++) {
+                    assertEquals(expected, simulator.snapshot(), simulator + " " + rule);
+                    assertEquals(expected.getPopulation(), simulator.getPopulation());
+                    expected = expected.getNextIteration();
+                    simulator.step();
+                }
+            }
+        }
+    }
+
+    @Test
+    void step_should_step_the_given_number_of_generations() {
+        var glider = new RepeatingGrid(8, 8, Set.of(new Cell(0, 1), new Cell(1, 2), new Cell(2, 0), new Cell(2, 1), new Cell(2, 2)));
+        for (var createSimulator : SIMULATORS) {
+            var simulator = createSimulator.apply(glider);
+
+            // A glider moves one cell diagonally every 4 generations, and
+            // the board is 8 cells wide:
+            simulator.step(32);
+
+            assertEquals(glider, simulator.snapshot(), simulator.toString());
+        }
+    }
+
+    @Test
+    void snapshots_should_not_change_when_stepping() {
+        var grid = BitPackedGridTest.randomSoup(new Random(89), 20, 20);
+        for (var createSimulator : SIMULATORS) {
+            var simulator = createSimulator.apply(grid);
+            var snapshot = simulator.snapshot();
+
+            simulator.step(5);
+
+            assertEquals(grid, snapshot, simulator.toString());
+        }
+    }
+
+    @Test
+    void simulators_should_not_change_the_grid_they_were_created_from() {
+        var repeatingGrid = BitPackedGridTest.randomSoup(new Random(97), 20, 20);
+        var bitPackedGrid = BitPackedGrid.from(repeatingGrid);
+
+        new SparseSimulator(repeatingGrid).step(5);
+        new DenseSimulator(bitPackedGrid).step(5);
+
+        assertEquals(BitPackedGridTest.randomSoup(new Random(97), 20, 20), repeatingGrid);
+        assertEquals(BitPackedGrid.from(repeatingGrid), bitPackedGrid);
+    }
+
+    @Test
+    void dense_simulator_should_skip_tiles_and_step_in_parallel_like_bit_packed_grid() {
+        try (var pool = new ForkJoinPool(3)) {
+            var expected = BitPackedGrid.randomSoup(1000, 700, 0.1, 101).withParallelism(pool);
+            var simulator = new DenseSimulator(expected);
+            for (var generation = 0; generation < 100; generation++) {
+                expected = expected.getNextIteration();
+                simulator.step();
+            }
+
+            assertEquals(expected, simulator.toBitPackedGrid());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotTest {
+
+    @Test
+    void should_round_trip_a_repeating_grid(@TempDir Path directory) throws IOException {
+        var random = new Random(11);
+        var path = directory.resolve("snapshot.bin");
+        for (var size : new int[][]{{1, 1}, {3, 64}, {17, 65}, {100, 130}}) {
+            var repeatingGrid = BitPackedGridTest.randomSoup(random, size[0], size[1]);
+
+            Snapshot.write(path, repeatingGrid, 42L);
+            var snapshot = Snapshot.read(path);
+
+            assertEquals(repeatingGrid, snapshot.toRepeatingGrid());
+            assertEquals(42L, snapshot.generation());
+        }
+    }
+
+    @Test
+    void should_round_trip_a_bit_packed_grid(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        var bitPackedGrid = BitPackedGrid.from(BitPackedGridTest.randomSoup(new Random(13), 50, 200));
+        var snapshot = new Snapshot(bitPackedGrid, Long.MAX_VALUE);
+
+        snapshot.write(path);
+
+        assertEquals(snapshot, Snapshot.read(path));
+    }
+
+    @Test
+    void should_write_and_read_rows_band_by_band(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        var bitPackedGrid = BitPackedGrid.from(BitPackedGridTest.randomSoup(new Random(23), 50, 130)).withRule(Rule.HIGH_LIFE);
+        var wordsPerRow = bitPackedGrid.wordsPerRow;
+
+        Snapshot.writeHeader(path, 50, 130, Rule.HIGH_LIFE, 7L);
+        // In any order, and in bands that don't divide the rows evenly:
+        for (var fromRowIndex : new int[]{42, 0, 28, 14}) {
+            var numberOfRows = Math.min(14, 50 - fromRowIndex);
+            Snapshot.writeRows(path, fromRowIndex, numberOfRows, bitPackedGrid.words, fromRowIndex * wordsPerRow);
+        }
+
+        assertEquals(new Snapshot(bitPackedGrid, 7L), Snapshot.read(path));
+        assertEquals(new Snapshot.Header(50, 130, Rule.HIGH_LIFE, 7L), Snapshot.readHeader(path));
+        var band = new long[(3 + 1) * wordsPerRow];
+        Snapshot.readRows(path, 20, 3, band, wordsPerRow);
+        assertEquals(
+                Arrays.toString(Arrays.copyOfRange(bitPackedGrid.words, 20 * wordsPerRow, 23 * wordsPerRow)),
+                Arrays.toString(Arrays.copyOfRange(band, wordsPerRow, band.length))
+        );
+        assertThrows(IndexOutOfBoundsException.class, () -> Snapshot.readRows(path, 48, 3, band, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> Snapshot.writeRows(path, -1, 1, band, 0));
+    }
+
+    @Test
+    void should_write_a_compact_file(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        var repeatingGrid = new RepeatingGrid(3, 70, Set.of(new Cell(1, 69)));
+
+        Snapshot.write(path, repeatingGrid, 0L);
+
+        // Header, and two words for every row:
+        assertEquals(Snapshot.HEADER_SIZE + 3 * 2 * Long.BYTES, Files.size(path));
+    }
+
+    @Test
+    void should_round_trip_the_rule(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        var highLife = BitPackedGridTest.randomSoup(new Random(19), 20, 20).withRule(Rule.parse("B36/S23"));
+
+        Snapshot.write(path, highLife, 3L);
+
+        assertEquals(Rule.parse("B36/S23"), Snapshot.read(path).grid().getRule());
+        assertEquals(highLife, Snapshot.read(path).toRepeatingGrid());
+    }
+
+    @Test
+    void should_not_save_an_empty_board(@TempDir Path directory) {
+        var path = directory.resolve("snapshot.bin");
+
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.write(path, RepeatingGrid.EMPTY, 7L));
+    }
+
+    @Test
+    void should_reject_snapshots_of_an_invalid_size(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        Snapshot.write(path, BitPackedGridTest.randomSoup(new Random(23), 1, 1), 1L);
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(2 * Integer.BYTES, -1);
+        Files.write(path, buffer.array());
+
+        assertThrows(IOException.class, () -> Snapshot.read(path));
+    }
+
+    @Test
+    void should_reject_files_that_are_not_snapshots(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("glider.cells");
+        Files.writeString(path, ".O.\n..O\nOOO\n..........................\n");
+
+        assertThrows(IOException.class, () -> Snapshot.read(path));
+    }
+
+    @Test
+    void should_reject_truncated_snapshots(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("snapshot.bin");
+        Snapshot.write(path, BitPackedGridTest.randomSoup(new Random(17), 10, 10), 1L);
+        var bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> Snapshot.read(path));
+    }
+}
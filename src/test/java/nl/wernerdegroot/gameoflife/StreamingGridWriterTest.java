@@ -0,0 +1,47 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingGridWriterTest {
+
+    @Test
+    void should_write_correctly() throws IOException {
+
+        var expected = """
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│ │ │
+                │ │ │X│X│ │
+                │ │X│ │ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """;
+
+        var repeatingGrid = RepeatingGridReader.read(expected);
+
+        var outputStream = new ByteArrayOutputStream();
+        new StreamingGridWriter().write(repeatingGrid, 5, 5, outputStream);
+
+        assertEquals(expected, outputStream.toString(UTF_8));
+    }
+
+    @Test
+    void should_write_the_same_as_repeating_grid_writer_across_many_flushes() throws IOException {
+        var repeatingGrid = BitPackedGridTest.randomSoup(new Random(29), 70, 130);
+        var writer = new StreamingGridWriter(100);
+
+        for (Grid grid : new Grid[]{repeatingGrid, BitPackedGrid.from(repeatingGrid)}) {
+            var outputStream = new ByteArrayOutputStream();
+            writer.write(grid, 70, 130, outputStream);
+
+            assertEquals(RepeatingGridWriter.write(repeatingGrid), outputStream.toString(UTF_8));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package nl.wernerdegroot.gameoflife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnboundedGridTest {
+
+    private static final String GLIDER = """
+            ┌─┬─┬─┐
+            │ │X│ │
+            │ │ │X│
+            │X│X│X│
+            └─┴─┴─┘
+            """;
+
+    @Test
+    void get_next_iteration_should_be_correct() {
+
+        var grid = RepeatingGridReader.readUnbounded("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│ │ │
+                │ │ │X│X│ │
+                │ │X│ │ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """);
+
+        var expected = RepeatingGridReader.readUnbounded("""
+                ┌─┬─┬─┬─┬─┐
+                │ │ │ │ │ │
+                │ │ │X│X│ │
+                │ │X│X│X│ │
+                │ │ │X│ │ │
+                │ │ │ │ │ │
+                └─┴─┴─┴─┴─┘
+                """);
+
+        var toVerify = grid.getNextIteration();
+
+        assertEquals(expected, toVerify);
+    }
+
+    @Test
+    void get_next_iteration_should_not_wrap_around() {
+        // On a 3 by 3 torus, this blinker would be overcrowded. On an
+        // infinite grid, it just oscillates.
+        var grid = RepeatingGridReader.readUnbounded("""
+                ┌─┬─┬─┐
+                │ │ │ │
+                │X│X│X│
+                │ │ │ │
+                └─┴─┴─┘
+                """);
+
+        var toVerify = grid.getNextIteration();
+
+        assertEquals(UnboundedGrid.of(Set.of(new Cell(0, 1), new Cell(1, 1), new Cell(2, 1))), toVerify);
+        assertTrue(toVerify.isAlive(0, 1));
+        assertFalse(toVerify.isAlive(1, 0));
+    }
+
+    @Test
+    void a_glider_should_travel_arbitrarily_far() {
+        var grid = RepeatingGridReader.readUnbounded(GLIDER);
+
+        for (var generation = 0; generation < 4 * 1000; generation++) {
+            grid = grid.getNextIteration();
+        }
+
+        var expected = UnboundedGrid.of(Set.of(
+                new Cell(1000, 1001),
+                new Cell(1001, 1002),
+                new Cell(1002, 1000),
+                new Cell(1002, 1001),
+                new Cell(1002, 1002)
+        ));
+
+        assertEquals(expected, grid);
+        assertEquals(5, grid.getPopulation());
+    }
+
+    @Test
+    void live_cells_may_have_negative_coordinates() {
+        var grid = UnboundedGrid.of(Set.of(new Cell(-1, -1), new Cell(-1, 0), new Cell(-1, 1)));
+
+        var toVerify = grid.getNextIteration();
+
+        assertEquals(Set.of(new Cell(-2, 0), new Cell(-1, 0), new Cell(0, 0)), toVerify.getLiveCells());
+    }
+
+    @Test
+    void should_be_written_like_a_repeating_grid() {
+        var grid = RepeatingGridReader.readUnbounded(GLIDER);
+
+        var toVerify = RepeatingGridWriter.write(grid, 3, 3);
+
+        assertEquals(GLIDER.trim(), toVerify.trim());
+    }
+}